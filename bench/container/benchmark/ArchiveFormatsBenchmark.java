@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package container.benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import container.AppContainer;
+import container.utility.ArchiveFormat;
+import container.utility.ArchiveFormats;
+
+/**
+ * Benchmark of archive formats. Extracts each given archive with its format (see {@link ArchiveFormats#detect(String)}) in the given number of rounds (each into a new directory), and prints the size on wire, the compression ratio and the decode throughput of each round.
+ * <p>
+ * Usage: <code>ArchiveFormatsBenchmark &lt;output directory&gt; &lt;rounds&gt; &lt;archive&gt;...</code>
+ *
+ * @author Murat Artim
+ * @date 19 Oct 2026
+ * @time 00:33:47
+ */
+public final class ArchiveFormatsBenchmark {
+
+	/**
+	 * No implementation.
+	 */
+	private ArchiveFormatsBenchmark() {
+		// no implementation
+	}
+
+	/**
+	 * Runs the benchmark.
+	 *
+	 * @param args
+	 *            Output directory, number of rounds and paths to archives.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public static void main(String[] args) throws Exception {
+
+		// invalid arguments
+		if (args.length < 3) {
+			System.out.println("Usage: ArchiveFormatsBenchmark <output directory> <rounds> <archive>...");
+			return;
+		}
+		if (AppContainer.LOGGER == null) {
+			AppContainer.LOGGER = Logger.getLogger(ArchiveFormatsBenchmark.class.getName());
+		}
+
+		// loop over archives
+		int rounds = Integer.parseInt(args[1]);
+		for (int i = 2; i < args.length; i++) {
+
+			// get format
+			Path archive = Paths.get(args[i]);
+			ArchiveFormat format = ArchiveFormats.detect(archive.getFileName().toString());
+			if (format == null) {
+				System.out.println(archive.getFileName() + ": unknown archive format");
+				continue;
+			}
+
+			// extract archive in rounds
+			for (int round = 1; round <= rounds; round++) {
+				Path outputDir = Paths.get(args[0]).resolve("round-" + round).resolve(archive.getFileName().toString());
+				long start = System.nanoTime();
+				format.extract(archive, outputDir, null);
+				double seconds = (System.nanoTime() - start) / 1e9;
+
+				// get extracted size
+				long bytes;
+				try (Stream<Path> files = Files.walk(outputDir)) {
+					bytes = files.filter(Files::isRegularFile).mapToLong(x -> x.toFile().length()).sum();
+				}
+
+				// print results
+				double wire = Files.size(archive) / (1024.0 * 1024.0), megabytes = bytes / (1024.0 * 1024.0);
+				System.out.println(String.format("%s [%s] round %d: %.1f MB on wire, %.1f MB extracted (ratio %.2f) in %.2f s: %.1f MB/s", archive.getFileName(), format.getName(), round, wire, megabytes, wire / megabytes, seconds, megabytes / seconds));
+			}
+		}
+	}
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package container.benchmark;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import container.AppContainer;
+import container.utility.IndexedClassLoader;
+import container.utility.Utility;
+
+/**
+ * Benchmark of class loading. Loads all classes of the application jar and its libraries with {@link URLClassLoader} and {@link IndexedClassLoader}, in alternating rounds, and prints the loading times of each round.
+ * <p>
+ * Usage: <code>IndexedClassLoaderBenchmark &lt;application directory&gt; [rounds]</code>
+ *
+ * @author Murat Artim
+ * @date 19 Oct 2026
+ * @time 00:36:09
+ */
+public final class IndexedClassLoaderBenchmark {
+
+	/**
+	 * No implementation.
+	 */
+	private IndexedClassLoaderBenchmark() {
+		// no implementation
+	}
+
+	/**
+	 * Runs the benchmark.
+	 *
+	 * @param args
+	 *            Application directory, and optionally the number of rounds.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public static void main(String[] args) throws Exception {
+
+		// check arguments
+		if (args.length < 1 || args.length > 2) {
+			System.out.println("Usage: IndexedClassLoaderBenchmark <application directory> [rounds]");
+			return;
+		}
+		Path appDir = Paths.get(args[0]);
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		if (AppContainer.LOGGER == null) {
+			AppContainer.LOGGER = Logger.getLogger(IndexedClassLoaderBenchmark.class.getName());
+		}
+
+		// get application jar
+		Path jarFile = Utility.getPathToAppJar(appDir);
+		if (jarFile == null) {
+			System.out.println("No application jar found in '" + appDir + "'.");
+			return;
+		}
+
+		// parent of the loaders (so that classes are not loaded from the classpath of the benchmark)
+		ClassLoader parent = ClassLoader.getSystemClassLoader().getParent();
+
+		// write index and get classes of application jar and libraries
+		IndexedClassLoader.writeIndex(appDir);
+		ArrayList<String> classNames = new ArrayList<>();
+		URL[] jars;
+		try (IndexedClassLoader loader = new IndexedClassLoader(appDir, jarFile, parent)) {
+			jars = loader.getURLs();
+		}
+		for (URL jar : jars) {
+			Path path = Paths.get(jar.toURI());
+			if (!path.toString().endsWith(".jar"))
+				continue;
+			try (ZipFile zip = new ZipFile(path.toFile())) {
+				Enumeration<? extends ZipEntry> entries = zip.entries();
+				while (entries.hasMoreElements()) {
+					String name = entries.nextElement().getName();
+					if (name.endsWith(".class") && !name.endsWith("module-info.class")) {
+						classNames.add(name.substring(0, name.length() - 6).replace('/', '.'));
+					}
+				}
+			}
+		}
+		System.out.println(jars.length + " jars, " + classNames.size() + " classes.");
+
+		// load classes in alternating rounds
+		URL[] urls = { jarFile.toUri().toURL() };
+		for (int round = 1; round <= rounds; round++) {
+			long start = System.nanoTime();
+			int loaded;
+			try (URLClassLoader loader = URLClassLoader.newInstance(urls, parent)) {
+				loaded = loadAll(loader, classNames);
+			}
+			long urlTime = System.nanoTime() - start;
+			start = System.nanoTime();
+			try (IndexedClassLoader loader = new IndexedClassLoader(appDir, jarFile, parent)) {
+				loaded = loadAll(loader, classNames);
+			}
+			long indexedTime = System.nanoTime() - start;
+			System.out.printf("Round %d: %d classes loaded. URLClassLoader: %.1f ms, IndexedClassLoader: %.1f ms%n", round, loaded, urlTime / 1e6, indexedTime / 1e6);
+		}
+	}
+
+	/**
+	 * Loads the given classes (without initialization) with the given class loader.
+	 *
+	 * @param loader
+	 *            Class loader.
+	 * @param classNames
+	 *            Class names.
+	 * @return Number of classes loaded.
+	 */
+	private static int loadAll(ClassLoader loader, List<String> classNames) {
+		int loaded = 0;
+		for (String className : classNames) {
+			try {
+				Class.forName(className, false, loader);
+				loaded++;
+			}
+			catch (ClassNotFoundException | LinkageError e) {
+				// missing dependency or invalid class
+			}
+		}
+		return loaded;
+	}
+}
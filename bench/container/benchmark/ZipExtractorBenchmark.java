@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package container.benchmark;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import container.AppContainer;
+import container.utility.ZipExtractor;
+
+/**
+ * Benchmark of zip extraction throughput. Extracts the given archives with {@link ZipExtractor} in the given number of rounds (each into a new directory), and prints the throughput of each round.
+ * <p>
+ * Usage: <code>ZipExtractorBenchmark &lt;output directory&gt; &lt;rounds&gt; &lt;archive&gt;...</code>
+ *
+ * @author Murat Artim
+ * @date 19 Oct 2026
+ * @time 00:31:18
+ */
+public final class ZipExtractorBenchmark {
+
+	/**
+	 * No implementation.
+	 */
+	private ZipExtractorBenchmark() {
+		// no implementation
+	}
+
+	/**
+	 * Runs the benchmark.
+	 *
+	 * @param args
+	 *            Output directory, number of rounds and paths to archives.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public static void main(String[] args) throws Exception {
+
+		// invalid arguments
+		if (args.length < 3) {
+			System.out.println("Usage: ZipExtractorBenchmark <output directory> <rounds> <archive>...");
+			return;
+		}
+		if (AppContainer.LOGGER == null) {
+			AppContainer.LOGGER = Logger.getLogger(ZipExtractorBenchmark.class.getName());
+		}
+
+		// get archives, number of entries and total uncompressed size
+		ArrayList<Path> archives = new ArrayList<>();
+		int entries = 0;
+		long bytes = 0;
+		for (int i = 2; i < args.length; i++) {
+			Path archive = Paths.get(args[i]);
+			archives.add(archive);
+			try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+				Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+				while (zipEntries.hasMoreElements()) {
+					bytes += Math.max(0L, zipEntries.nextElement().getSize());
+					entries++;
+				}
+			}
+		}
+		double megabytes = bytes / (1024.0 * 1024.0);
+
+		// extract archives in rounds
+		int rounds = Integer.parseInt(args[1]);
+		for (int round = 1; round <= rounds; round++) {
+			ZipExtractor extractor = new ZipExtractor(Paths.get(args[0]).resolve("round-" + round), null);
+			long start = System.nanoTime();
+			extractor.extract(archives);
+			double seconds = (System.nanoTime() - start) / 1e9;
+			System.out.println(String.format("Round %d: extracted %d entries (%.1f MB) in %.2f s: %.1f MB/s", round, entries, megabytes, seconds, megabytes / seconds));
+		}
+	}
+}
@@ -24,6 +24,9 @@ import java.util.logging.Logger;
 
 import container.controller.MainPanel;
 import container.data.Settings;
+import container.utility.AppSlots;
+import container.utility.Trash;
+import container.utility.UpdateJournal;
 import container.utility.Utility;
 import javafx.application.Application;
 import javafx.scene.Scene;
@@ -44,11 +47,17 @@ public class AppContainer extends Application {
 	/** Launcher version. */
 	public static final double VERSION = 1.0;
 
+	/** Launch parameter to roll back to the previous application version. */
+	public static final String ROLLBACK = "--rollback";
+
+	/** Launch parameter to verify hashes of installed files (instead of their sizes and modification times). */
+	public static final String VERIFY = "--verify";
+
 	/** Operating system type and architecture. */
 	public static String OS_TYPE, OS_ARCH;
 
 	/** Resource paths. */
-	public static Path LOG_FILE, SETTINGS_FILE, TEMP_DIR, APP_DIR, CONFIG_FILE;
+	public static Path LOG_FILE, SETTINGS_FILE, TEMP_DIR, APP_DIR, CACHE_DIR, TRASH_DIR, SEED_DIR, CONFIG_FILE;
 
 	/** Logger. */
 	public static Logger LOGGER;
@@ -83,9 +92,25 @@ public class AppContainer extends Application {
 		TEMP_DIR = Utility.getPathToFile(codeBase, "tempdir");
 		TEMP_DIR = Files.exists(TEMP_DIR) ? TEMP_DIR : Files.createDirectory(TEMP_DIR);
 
-		// set path to application directory
+		// set path to trash directory (files left in trash are deleted in the background)
+		TRASH_DIR = Utility.getPathToFile(codeBase, "trashdir");
+		TRASH_DIR = Files.exists(TRASH_DIR) ? TRASH_DIR : Files.createDirectory(TRASH_DIR);
+		Trash.start();
+
+		// set path to archive cache directory
+		CACHE_DIR = Utility.getPathToFile(codeBase, "cachedir");
+		CACHE_DIR = Files.exists(CACHE_DIR) ? CACHE_DIR : Files.createDirectory(CACHE_DIR);
+
+		// set path to seed payload directory (optionally bundled by installers, next to default settings file)
+		SEED_DIR = Utility.getPathToFile(codeBase, "seed");
+
+		// load update journal (from archive cache directory)
+		UpdateJournal.load();
+
+		// set path to application directory (current slot of application root directory, or previous slot if rollback is requested)
 		APP_DIR = Utility.getPathToFile(codeBase, "appdir");
 		APP_DIR = Files.exists(APP_DIR) ? APP_DIR : Files.createDirectory(APP_DIR);
+		APP_DIR = AppSlots.init(APP_DIR, getParameters().getRaw().contains(ROLLBACK), UpdateJournal.getStagedSlot());
 
 		// log
 		LOGGER.info("App Container v" + VERSION + " initialized.");
@@ -103,8 +128,8 @@ public class AppContainer extends Application {
 		String appName = (String) settings.getSetting(Settings.APP_NAME);
 		CONFIG_FILE = Utility.getPathToLaunchConfigurationFile(codeBase, appName + ".cfg");
 
-		// clean temporary directory
-		Utility.deleteTemporaryFiles(TEMP_DIR, TEMP_DIR);
+		// clean temporary directory in the background (verified downloads of interrupted update are kept)
+		Trash.deleteContents(TEMP_DIR, UpdateJournal.getDownloads());
 		LOGGER.info("Temporary directory cleaned.");
 
 		// set stage undecorated
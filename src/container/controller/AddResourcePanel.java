@@ -22,11 +22,13 @@ import java.util.ResourceBundle;
 
 import container.AppContainer;
 import container.data.ApplicationResource;
+import container.utility.ArchiveFormats;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.ListView;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
@@ -51,11 +53,14 @@ public class AddResourcePanel implements Initializable {
 	private VBox root;
 
 	@FXML
-	private TextField path, manifestAttribute;
+	private TextField path, manifestAttribute, platform, archiveFormat;
 
 	@FXML
 	private TextArea fileNames;
 
+	@FXML
+	private CheckBox librarySet, onDemand, bootCritical, runFromArchive, encrypted;
+
 	@Override
 	public void initialize(URL location, ResourceBundle resources) {
 		// no implementation
@@ -83,6 +88,8 @@ public class AddResourcePanel implements Initializable {
 		String pathText = path.getText();
 		String manifestAttributeText = manifestAttribute.getText();
 		String fileNamesText = fileNames.getText();
+		String platformText = platform.getText() == null || platform.getText().trim().isEmpty() ? null : platform.getText().trim();
+		String archiveFormatText = archiveFormat.getText() == null || archiveFormat.getText().trim().isEmpty() ? null : archiveFormat.getText().trim();
 
 		// invalid inputs
 		if (pathText == null || pathText.trim().isEmpty()) {
@@ -109,6 +116,14 @@ public class AddResourcePanel implements Initializable {
 			alert.showAndWait();
 			return false;
 		}
+		if (archiveFormatText != null && ArchiveFormats.get(archiveFormatText) == null) {
+			Alert alert = new Alert(AlertType.WARNING);
+			alert.setTitle("Invalid Input");
+			alert.setHeaderText(null);
+			alert.setContentText("Archive format '" + archiveFormatText + "' is not available. Please supply a valid archive format to proceed.");
+			alert.showAndWait();
+			return false;
+		}
 		ArrayList<String> resourceFileNames = extractFileNames(fileNamesText);
 		if (resourceFileNames == null || resourceFileNames.isEmpty()) {
 			Alert alert = new Alert(AlertType.WARNING);
@@ -127,6 +142,13 @@ public class AddResourcePanel implements Initializable {
 			resource.setPath(pathText);
 			resource.setManifestAttribute(manifestAttributeText);
 			resource.setFileNames(resourceFileNames);
+			resource.setLibrarySet(librarySet.isSelected());
+			resource.setPlatform(platformText);
+			resource.setOnDemand(onDemand.isSelected());
+			resource.setBootCritical(bootCritical.isSelected());
+			resource.setRunFromArchive(runFromArchive.isSelected());
+			resource.setEncrypted(encrypted.isSelected());
+			resource.setArchiveFormat(archiveFormatText);
 
 			// resource already exists
 			if (resourceList.getItems().contains(resource)) {
@@ -148,6 +170,13 @@ public class AddResourcePanel implements Initializable {
 		newResource.setPath(pathText);
 		newResource.setManifestAttribute(manifestAttributeText);
 		newResource.setFileNames(resourceFileNames);
+		newResource.setLibrarySet(librarySet.isSelected());
+		newResource.setPlatform(platformText);
+		newResource.setOnDemand(onDemand.isSelected());
+		newResource.setBootCritical(bootCritical.isSelected());
+		newResource.setRunFromArchive(runFromArchive.isSelected());
+		newResource.setEncrypted(encrypted.isSelected());
+		newResource.setArchiveFormat(archiveFormatText);
 		int checkIndex = resourceList.getItems().indexOf(newResource);
 
 		// no change
@@ -230,6 +259,13 @@ public class AddResourcePanel implements Initializable {
 				controller.path.setText(resource.getPath());
 				controller.manifestAttribute.setText(resource.getManifestAttribute());
 				controller.fileNames.setText(String.join(", ", resource.getFileNames()));
+				controller.librarySet.setSelected(resource.isLibrarySet());
+				controller.platform.setText(resource.getPlatform());
+				controller.onDemand.setSelected(resource.isOnDemand());
+				controller.bootCritical.setSelected(resource.isBootCritical());
+				controller.runFromArchive.setSelected(resource.isRunFromArchive());
+				controller.encrypted.setSelected(resource.isEncrypted());
+				controller.archiveFormat.setText(resource.getArchiveFormat());
 			}
 
 			// return controller
@@ -24,11 +24,16 @@ import java.util.ResourceBundle;
 import java.util.logging.Level;
 
 import container.AppContainer;
+import container.data.AppManifest;
 import container.data.ApplicationResource;
+import container.data.ManifestCache;
 import container.data.Settings;
+import container.remote.EmbeddedApplication;
 import container.task.DeleteAppResources;
-import container.task.PingConnection;
+import container.task.RepairAppResources;
+import container.task.SeedAppResources;
 import container.task.StartApplication;
+import container.utility.UpdateChannel;
 import container.utility.Utility;
 import javafx.application.Application;
 import javafx.application.Platform;
@@ -69,6 +74,12 @@ public class MainPanel implements Initializable {
 	/** Exception in case a task fails. */
 	private Throwable exception;
 
+	/** Update notification channel (null if not subscribed). */
+	private UpdateChannel updateChannel;
+
+	/** Manifests of the installed application and the remote repository (null if not read yet). */
+	private volatile AppManifest installedManifest, remoteManifest;
+
 	@FXML
 	private HBox root;
 
@@ -96,7 +107,22 @@ public class MainPanel implements Initializable {
 	 *             If exception occurs during process.
 	 */
 	public void start() throws Exception {
-		startTask(new PingConnection(this));
+
+		// first run with bundled seed payload (install it, then check for updates)
+		if (SeedAppResources.isSeedable()) {
+			startTask(new SeedAppResources(this));
+			return;
+		}
+
+		// application was found up to date recently (skip update check)
+		boolean checkForUpdates = true;
+		if (Utility.getPathToAppManifest(AppContainer.APP_DIR) != null && ManifestCache.load().isFresh(owner.getSettings())) {
+			AppContainer.LOGGER.info("Update check skipped. Application manifest was checked within its time to live.");
+			checkForUpdates = false;
+		}
+
+		// repair installed files (then check for updates or start application)
+		startTask(new RepairAppResources(this, checkForUpdates));
 	}
 
 	/**
@@ -107,6 +133,11 @@ public class MainPanel implements Initializable {
 	 */
 	public void stop() throws Exception {
 
+		// stop update notification channel (if subscribed)
+		if (updateChannel != null) {
+			updateChannel.stop();
+		}
+
 		// stop launched application (if loaded)
 		if (application != null) {
 			application.stop();
@@ -159,6 +190,44 @@ public class MainPanel implements Initializable {
 		this.application = application;
 	}
 
+	/**
+	 * Returns the manifest of the installed application, or null if there is no installed application (or the manifest is not read yet).
+	 *
+	 * @return The manifest of the installed application, or null if there is no installed application.
+	 */
+	public AppManifest getInstalledManifest() {
+		return installedManifest;
+	}
+
+	/**
+	 * Sets the manifest of the installed application.
+	 *
+	 * @param installedManifest
+	 *            Manifest of the installed application.
+	 */
+	public void setInstalledManifest(AppManifest installedManifest) {
+		this.installedManifest = installedManifest;
+	}
+
+	/**
+	 * Returns the remote manifest, or null if it is not downloaded yet.
+	 *
+	 * @return The remote manifest, or null if it is not downloaded yet.
+	 */
+	public AppManifest getRemoteManifest() {
+		return remoteManifest;
+	}
+
+	/**
+	 * Sets the remote manifest.
+	 *
+	 * @param remoteManifest
+	 *            Remote manifest.
+	 */
+	public void setRemoteManifest(AppManifest remoteManifest) {
+		this.remoteManifest = remoteManifest;
+	}
+
 	/**
 	 * Starts given task. It will first unbind the UI from the previous task (if it exists), and bind given task to this panel.
 	 *
@@ -196,6 +265,62 @@ public class MainPanel implements Initializable {
 		new Thread(this.task).start();
 	}
 
+	/**
+	 * Starts given task in the background, without binding it to this panel. This is used for installing resources after the application is started. The task doesn't keep the application running; an installation interrupted by exit is resumed at next start (see {@link container.utility.UpdateJournal}).
+	 *
+	 * @param task
+	 *            Task to start.
+	 */
+	public void startBackgroundTask(Task<?> task) {
+		Thread thread = new Thread(task, "BackgroundInstaller");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+	}
+
+	/**
+	 * Notifies the embedded application that the given resources were installed in the background. Note that this method should be called from JavaFX application thread.
+	 *
+	 * @param resources
+	 *            Installed resources.
+	 * @param e
+	 *            Exception, or null if the resources were successfully installed.
+	 */
+	public void notifyResourcesInstalled(ArrayList<ApplicationResource> resources, Throwable e) {
+		if (application instanceof EmbeddedApplication) {
+			for (ApplicationResource resource : resources) {
+				((EmbeddedApplication) application).resourceInstalled(resource.toString(), e);
+			}
+		}
+	}
+
+	/**
+	 * Subscribes to the update notification channel given in the settings (if any). Announced releases are passed to the embedded application, and the manifest cache is invalidated so that the next launch checks for updates.
+	 */
+	public void subscribeToUpdates() {
+
+		// no channel specified or already subscribed
+		Settings settings = owner.getSettings();
+		String location = (String) settings.getSetting(Settings.UPDATE_CHANNEL_LOCATION);
+		if (location == null || location.trim().isEmpty() || updateChannel != null)
+			return;
+
+		// create and start channel
+		int timeout = Integer.parseInt((String) settings.getSetting(Settings.CONNECTION_TIMEOUT));
+		updateChannel = new UpdateChannel(location.trim(), timeout, message -> {
+			AppContainer.LOGGER.info("New release announced: " + message);
+			ManifestCache cache = ManifestCache.load();
+			cache.clearChecked();
+			cache.save();
+			Platform.runLater(() -> {
+				if (application instanceof EmbeddedApplication) {
+					((EmbeddedApplication) application).updatePublished(message);
+				}
+			});
+		});
+		updateChannel.start();
+	}
+
 	/**
 	 * Called when a task fails.
 	 *
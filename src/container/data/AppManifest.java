@@ -0,0 +1,289 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package container.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+
+import com.jcraft.jsch.SftpATTRS;
+
+import container.utility.SFTPConnection;
+import container.utility.Utility;
+
+/**
+ * Immutable in-memory model of application manifest. The manifest is read (or downloaded) once, parsed once and shared by the update tasks; it is written to disk only when the update is committed.
+ *
+ * @author Murat Artim
+ * @date 18 Oct 2026
+ * @time 22:22:39
+ */
+public final class AppManifest {
+
+	/** Raw content of manifest. */
+	private final byte[] content;
+
+	/** Parsed manifest. This is never exposed, so that the model stays immutable. */
+	private final Manifest manifest;
+
+	/**
+	 * Creates application manifest.
+	 *
+	 * @param content
+	 *            Raw content of manifest.
+	 * @throws IOException
+	 *             If the content cannot be parsed.
+	 */
+	private AppManifest(byte[] content) throws IOException {
+		this.content = content;
+		manifest = new Manifest(new ByteArrayInputStream(content));
+	}
+
+	/**
+	 * Reads the given manifest file.
+	 *
+	 * @param manifestFile
+	 *            Path to manifest file.
+	 * @return The application manifest, or null if the file is null or doesn't exist.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	public static AppManifest read(Path manifestFile) throws IOException {
+		if (manifestFile == null || !Files.isRegularFile(manifestFile))
+			return null;
+		return new AppManifest(Files.readAllBytes(manifestFile));
+	}
+
+	/**
+	 * Downloads the remote manifest (specified in the settings) into memory.
+	 *
+	 * @param settings
+	 *            Application settings.
+	 * @return The remote application manifest.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public static AppManifest download(Settings settings) throws Exception {
+		return download(settings, null, null);
+	}
+
+	/**
+	 * Downloads the remote manifest (specified in the settings) into memory, revalidating the installed manifest with the validators of the given cache. If the cache describes the installed manifest and the server reports it as not modified (HTTP 304 for web hosting, same modification time and size for SFTP hosting), the installed manifest is returned without downloading. Otherwise, the manifest is downloaded and its validators are recorded in the cache (the cache is not saved).
+	 *
+	 * @param settings
+	 *            Application settings.
+	 * @param cache
+	 *            Manifest cache. Can be null.
+	 * @param installedManifest
+	 *            Manifest of the installed application. Can be null.
+	 * @return The remote application manifest. This is the given installed manifest instance if the remote manifest is not modified.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public static AppManifest download(Settings settings, ManifestCache cache, AppManifest installedManifest) throws Exception {
+
+		// get manifest location
+		String location = (String) settings.getSetting(Settings.MANIFEST_LOCATION);
+		boolean revalidate = cache != null && cache.describes(installedManifest);
+
+		// download from SFTP server
+		if (settings.getSetting(Settings.HOSTING_TYPE).equals(Settings.SFTP_HOSTING)) {
+			try (SFTPConnection connection = Utility.createSFTPConnection(settings)) {
+
+				// compare modification time and size
+				SftpATTRS attributes = cache == null ? null : connection.getSftpChannel().stat(location);
+				if (revalidate && attributes.getMTime() == cache.getSftpMTime() && attributes.getSize() == cache.getSftpSize())
+					return installedManifest;
+
+				// download manifest
+				try (InputStream inputStream = connection.getSftpChannel().get(location)) {
+					AppManifest manifest = new AppManifest(readAll(inputStream));
+					if (cache != null) {
+						cache.setSftpValidators(manifest, attributes.getMTime(), attributes.getSize());
+					}
+					return manifest;
+				}
+			}
+		}
+
+		// open connection to web server
+		URLConnection urlConnection = new URL(location).openConnection();
+		int timeout = Integer.parseInt((String) settings.getSetting(Settings.CONNECTION_TIMEOUT));
+		urlConnection.setConnectTimeout(timeout);
+		urlConnection.setReadTimeout(timeout);
+
+		// HTTP connection (send conditional request)
+		if (urlConnection instanceof HttpURLConnection) {
+			HttpURLConnection httpConnection = (HttpURLConnection) urlConnection;
+			if (revalidate && cache.getETag() != null) {
+				httpConnection.setRequestProperty("If-None-Match", cache.getETag());
+			}
+			if (revalidate && cache.getLastModified() != null) {
+				httpConnection.setRequestProperty("If-Modified-Since", cache.getLastModified());
+			}
+			if (httpConnection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+				httpConnection.disconnect();
+				if (revalidate)
+					return installedManifest;
+				throw new IOException("Web server reported manifest as not modified, although it wasn't requested conditionally.");
+			}
+		}
+
+		// download manifest
+		try (InputStream inputStream = urlConnection.getInputStream()) {
+			AppManifest manifest = new AppManifest(readAll(inputStream));
+			if (cache != null) {
+				cache.setWebValidators(manifest, urlConnection.getHeaderField("ETag"), urlConnection.getHeaderField("Last-Modified"));
+			}
+			return manifest;
+		}
+	}
+
+	/**
+	 * Returns the SHA-256 hash of this manifest as lower case hexadecimal string.
+	 *
+	 * @return The SHA-256 hash of this manifest.
+	 */
+	public String getSHA256() {
+		try {
+			return Utility.toHexString(MessageDigest.getInstance("SHA-256").digest(content));
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not supported.", e);
+		}
+	}
+
+	/**
+	 * Returns the value of the given main attribute.
+	 *
+	 * @param attributeName
+	 *            Attribute name.
+	 * @return The value of the given main attribute, or null if the attribute couldn't be found.
+	 */
+	public String getMainAttribute(String attributeName) {
+		return attributeName == null ? null : manifest.getMainAttributes().getValue(attributeName);
+	}
+
+	/**
+	 * Returns the version of the given application resource for the current platform (see {@link Utility#getPlatformAttributeValue(Attributes, String)}).
+	 *
+	 * @param resource
+	 *            Application resource.
+	 * @return The version of the given application resource, or null if the resource has no version.
+	 */
+	public String getResourceVersion(ApplicationResource resource) {
+		String attributeName = resource.getManifestAttribute();
+		return attributeName == null ? null : Utility.getPlatformAttributeValue(manifest.getMainAttributes(), attributeName);
+	}
+
+	/**
+	 * Returns the versions of the given application resources.
+	 *
+	 * @param resources
+	 *            Application resources.
+	 * @return Mapping of manifest attribute names to resource versions. Resources without version are not contained.
+	 */
+	public HashMap<String, String> getResourceVersions(ArrayList<ApplicationResource> resources) {
+		HashMap<String, String> versions = new HashMap<>();
+		for (ApplicationResource resource : resources) {
+			String version = getResourceVersion(resource);
+			if (version != null) {
+				versions.put(resource.getManifestAttribute(), version);
+			}
+		}
+		return versions;
+	}
+
+	/**
+	 * Returns the names of the named sections of the manifest.
+	 *
+	 * @return The names of the named sections of the manifest.
+	 */
+	public Set<String> getSectionNames() {
+		return Collections.unmodifiableSet(manifest.getEntries().keySet());
+	}
+
+	/**
+	 * Returns the value of the given attribute from the given named section.
+	 *
+	 * @param sectionName
+	 *            Section name.
+	 * @param attributeName
+	 *            Attribute name.
+	 * @return The value of the given attribute, or null if the section or attribute couldn't be found.
+	 */
+	public String getSectionAttribute(String sectionName, String attributeName) {
+		Attributes attributes = manifest.getAttributes(sectionName);
+		return attributes == null ? null : attributes.getValue(attributeName);
+	}
+
+	/**
+	 * Writes this manifest to the given file. The manifest is written to a temporary file and forced to the disk, which then replaces the file atomically; so a crash leaves either the previous or the new manifest, never a truncated one (manifest files mark committed installations).
+	 *
+	 * @param manifestFile
+	 *            Path to output file.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	public void write(Path manifestFile) throws IOException {
+		Path tempFile = manifestFile.resolveSibling(manifestFile.getFileName().toString() + ".tmp");
+		try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.wrap(content);
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(true);
+		}
+		Files.move(tempFile, manifestFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Reads all bytes from the given input stream.
+	 *
+	 * @param inputStream
+	 *            Input stream.
+	 * @return All bytes of the input stream.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	private static byte[] readAll(InputStream inputStream) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int len;
+		while ((len = inputStream.read(buffer)) != -1) {
+			output.write(buffer, 0, len);
+		}
+		return output.toByteArray();
+	}
+}
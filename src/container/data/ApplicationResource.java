@@ -38,6 +38,27 @@ public class ApplicationResource {
 	/** Resource file names. */
 	private ArrayList<String> fileNames;
 
+	/** Platform of the resource (operating system type, optionally followed by architecture, such as "windows" or "windows-x64"). Null or empty for all platforms. */
+	private String platform;
+
+	/** True if the resource is a set of independently versioned libraries. */
+	private boolean librarySet = false;
+
+	/** True if the resource is downloaded only when it is requested by the application. */
+	private boolean onDemand = false;
+
+	/** True if the resource is required to start the application. */
+	private boolean bootCritical = true;
+
+	/** True if the resource archive is installed as it is (without extraction), and the application is run from it. */
+	private boolean runFromArchive = false;
+
+	/** True if the resource is encrypted (see {@link container.utility.ResourceCipher}). */
+	private boolean encrypted = false;
+
+	/** Archive format name of the resource (see {@link container.utility.ArchiveFormats}). Null or empty to detect the format from the file name. */
+	private String archiveFormat;
+
 	/**
 	 * Returns the path to the resource.
 	 *
@@ -65,6 +86,82 @@ public class ApplicationResource {
 		return fileNames;
 	}
 
+	/**
+	 * Returns the platform of the resource, or null if the resource is for all platforms.
+	 *
+	 * @return The platform of the resource, or null if the resource is for all platforms.
+	 */
+	public String getPlatform() {
+		return platform;
+	}
+
+	/**
+	 * Returns true if the resource is required on the given platform.
+	 *
+	 * @param osType
+	 *            Operating system type.
+	 * @param osArch
+	 *            Operating system architecture.
+	 * @return True if the resource is required on the given platform.
+	 */
+	public boolean isForPlatform(String osType, String osArch) {
+		return platform == null || platform.trim().isEmpty() || platform.trim().equals(osType) || platform.trim().equals(osType + "-" + osArch);
+	}
+
+	/**
+	 * Returns true if the resource is a set of independently versioned libraries. Libraries of such resources are listed one by one in the manifest (with their hashes), and only the changed libraries are updated.
+	 *
+	 * @return True if the resource is a set of independently versioned libraries.
+	 */
+	public boolean isLibrarySet() {
+		return librarySet;
+	}
+
+	/**
+	 * Returns true if the resource is downloaded only when it is requested by the application (see {@link container.remote.EmbeddedApplication#requestResource(String)}). Such resources are not installed or updated by the container.
+	 *
+	 * @return True if the resource is downloaded only when it is requested by the application.
+	 */
+	public boolean isOnDemand() {
+		return onDemand;
+	}
+
+	/**
+	 * Returns true if the resource is required to start the application. Other resources are installed in the background after the application is started (see {@link container.remote.EmbeddedApplication#isResourceReady(String)}).
+	 *
+	 * @return True if the resource is required to start the application.
+	 */
+	public boolean isBootCritical() {
+		return bootCritical;
+	}
+
+	/**
+	 * Returns true if the resource archive is installed as it is (without extraction) into the application directory. Classes and resources of the jars contained in such archives are loaded directly from the archive (see {@link container.utility.ArchiveClassLoader}).
+	 *
+	 * @return True if the resource archive is installed as it is, and the application is run from it.
+	 */
+	public boolean isRunFromArchive() {
+		return runFromArchive;
+	}
+
+	/**
+	 * Returns true if the resource is encrypted with the resource key given in the settings (see {@link container.data.Settings#RESOURCE_KEY}). Encrypted resources are downloaded and cached as they are, and decrypted as a stream while they are extracted.
+	 *
+	 * @return True if the resource is encrypted.
+	 */
+	public boolean isEncrypted() {
+		return encrypted;
+	}
+
+	/**
+	 * Returns the archive format name of the resource (such as <code>tar.gz</code>), or null if the format is detected from the file name of the resource (see {@link container.utility.ArchiveFormats#forResource(ApplicationResource)}).
+	 *
+	 * @return The archive format name of the resource, or null if the format is detected from the file name of the resource.
+	 */
+	public String getArchiveFormat() {
+		return archiveFormat;
+	}
+
 	/**
 	 * Sets the path to the resource.
 	 *
@@ -95,6 +192,76 @@ public class ApplicationResource {
 		this.fileNames = fileNames;
 	}
 
+	/**
+	 * Sets the platform of the resource.
+	 *
+	 * @param platform
+	 *            Platform of the resource (operating system type, optionally followed by architecture, such as "windows" or "windows-x64"). Null or empty for all platforms.
+	 */
+	public void setPlatform(String platform) {
+		this.platform = platform;
+	}
+
+	/**
+	 * Sets whether the resource is a set of independently versioned libraries.
+	 *
+	 * @param librarySet
+	 *            True if the resource is a set of independently versioned libraries.
+	 */
+	public void setLibrarySet(boolean librarySet) {
+		this.librarySet = librarySet;
+	}
+
+	/**
+	 * Sets whether the resource is downloaded only when it is requested by the application.
+	 *
+	 * @param onDemand
+	 *            True if the resource is downloaded only when it is requested by the application.
+	 */
+	public void setOnDemand(boolean onDemand) {
+		this.onDemand = onDemand;
+	}
+
+	/**
+	 * Sets whether the resource is required to start the application.
+	 *
+	 * @param bootCritical
+	 *            True if the resource is required to start the application.
+	 */
+	public void setBootCritical(boolean bootCritical) {
+		this.bootCritical = bootCritical;
+	}
+
+	/**
+	 * Sets whether the resource archive is installed as it is (without extraction), and the application is run from it.
+	 *
+	 * @param runFromArchive
+	 *            True if the resource archive is installed as it is, and the application is run from it.
+	 */
+	public void setRunFromArchive(boolean runFromArchive) {
+		this.runFromArchive = runFromArchive;
+	}
+
+	/**
+	 * Sets whether the resource is encrypted.
+	 *
+	 * @param encrypted
+	 *            True if the resource is encrypted.
+	 */
+	public void setEncrypted(boolean encrypted) {
+		this.encrypted = encrypted;
+	}
+
+	/**
+	 * Sets the archive format name of the resource.
+	 *
+	 * @param archiveFormat
+	 *            Archive format name of the resource (such as <code>tar.gz</code>). Null or empty to detect the format from the file name.
+	 */
+	public void setArchiveFormat(String archiveFormat) {
+		this.archiveFormat = archiveFormat;
+	}
+
 	@Override
 	public String toString() {
 
@@ -114,9 +281,16 @@ public class ApplicationResource {
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
+		result = prime * result + (archiveFormat == null ? 0 : archiveFormat.hashCode());
+		result = prime * result + (bootCritical ? 1231 : 1237);
+		result = prime * result + (encrypted ? 1231 : 1237);
 		result = prime * result + (fileNames == null ? 0 : fileNames.hashCode());
+		result = prime * result + (librarySet ? 1231 : 1237);
 		result = prime * result + (manifestAttribute == null ? 0 : manifestAttribute.hashCode());
+		result = prime * result + (onDemand ? 1231 : 1237);
 		result = prime * result + (path == null ? 0 : path.hashCode());
+		result = prime * result + (platform == null ? 0 : platform.hashCode());
+		result = prime * result + (runFromArchive ? 1231 : 1237);
 		return result;
 	}
 
@@ -129,24 +303,46 @@ public class ApplicationResource {
 		if (getClass() != obj.getClass())
 			return false;
 		ApplicationResource other = (ApplicationResource) obj;
+		if (archiveFormat == null) {
+			if (other.archiveFormat != null)
+				return false;
+		}
+		else if (!archiveFormat.equals(other.archiveFormat))
+			return false;
+		if (bootCritical != other.bootCritical)
+			return false;
+		if (encrypted != other.encrypted)
+			return false;
 		if (fileNames == null) {
 			if (other.fileNames != null)
 				return false;
 		}
 		else if (!fileNames.equals(other.fileNames))
 			return false;
+		if (librarySet != other.librarySet)
+			return false;
 		if (manifestAttribute == null) {
 			if (other.manifestAttribute != null)
 				return false;
 		}
 		else if (!manifestAttribute.equals(other.manifestAttribute))
 			return false;
+		if (onDemand != other.onDemand)
+			return false;
 		if (path == null) {
 			if (other.path != null)
 				return false;
 		}
 		else if (!path.equals(other.path))
 			return false;
+		if (platform == null) {
+			if (other.platform != null)
+				return false;
+		}
+		else if (!platform.equals(other.platform))
+			return false;
+		if (runFromArchive != other.runFromArchive)
+			return false;
 		return true;
 	}
 }
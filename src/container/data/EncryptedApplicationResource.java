@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package container.data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+/**
+ * Class for encrypted version of application resource. The resource path is encrypted with the container key (see {@link EncryptedSettings}).
+ *
+ * @author Murat Artim
+ * @date 19 May 2018
+ * @time 12:42:20
+ */
+public final class EncryptedApplicationResource implements Serializable {
+
+	/** Serial id. */
+	private static final long serialVersionUID = 2L;
+
+	/** Resource attribute. */
+	private final String path, manifestAttribute;
+
+	/** Resource file names. */
+	private final ArrayList<String> fileNames;
+
+	/** Platform and archive format of the resource. */
+	private final String platform, archiveFormat;
+
+	/** Resource options. */
+	private final boolean librarySet, onDemand, bootCritical, runFromArchive, encrypted;
+
+	/**
+	 * Creates encrypted version of application resource.
+	 *
+	 * @param appResource
+	 *            Application resource.
+	 */
+	public EncryptedApplicationResource(ApplicationResource appResource) {
+		path = EncryptedSettings.encrypt(appResource.getPath());
+		manifestAttribute = appResource.getManifestAttribute();
+		fileNames = appResource.getFileNames();
+		platform = appResource.getPlatform();
+		archiveFormat = appResource.getArchiveFormat();
+		librarySet = appResource.isLibrarySet();
+		onDemand = appResource.isOnDemand();
+		bootCritical = appResource.isBootCritical();
+		runFromArchive = appResource.isRunFromArchive();
+		encrypted = appResource.isEncrypted();
+	}
+
+	/**
+	 * Creates and returns application resource.
+	 *
+	 * @return application resource.
+	 */
+	public ApplicationResource createApplicationResource() {
+		ApplicationResource appResource = new ApplicationResource();
+		appResource.setPath(EncryptedSettings.decrypt(path));
+		appResource.setManifestAttribute(manifestAttribute);
+		appResource.setFileNames(fileNames);
+		appResource.setPlatform(platform);
+		appResource.setArchiveFormat(archiveFormat);
+		appResource.setLibrarySet(librarySet);
+		appResource.setOnDemand(onDemand);
+		appResource.setBootCritical(bootCritical);
+		appResource.setRunFromArchive(runFromArchive);
+		appResource.setEncrypted(encrypted);
+		return appResource;
+	}
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package container.data;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map.Entry;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import container.utility.ResourceCipher;
+
+/**
+ * Class for encrypted version of application settings. This is the form in which settings are saved to the settings file. Secret settings (SFTP password and resource key) and resource paths are encrypted with the container key, so that they are not readable from the settings file. Note that the container key is part of the container itself; this protects the secrets against casual inspection only.
+ *
+ * @author Murat Artim
+ * @date 19 May 2018
+ * @time 11:54:15
+ */
+public class EncryptedSettings implements Serializable {
+
+	/** Serial id. */
+	private static final long serialVersionUID = 8L;
+
+	/** Indices of secret settings. */
+	private static final int[] SECRETS = { Settings.SFTP_PASSWORD, Settings.RESOURCE_KEY };
+
+	/** Settings mapping. */
+	private final HashMap<Integer, Object> mapping;
+
+	/**
+	 * Creates encrypted version of application settings.
+	 *
+	 * @param settings
+	 *            Application settings.
+	 */
+	public EncryptedSettings(Settings settings) {
+
+		// create mapping
+		mapping = new HashMap<>();
+
+		// loop over settings
+		for (Entry<Integer, Object> entry : settings.getSettings().entrySet()) {
+
+			// secret setting
+			Object value = entry.getValue();
+			if (value instanceof String && isSecret(entry.getKey())) {
+				mapping.put(entry.getKey(), encrypt((String) value));
+			}
+
+			// application resources
+			else if (entry.getKey() == Settings.APP_RESOURCES && value != null) {
+				ArrayList<EncryptedApplicationResource> resources = new ArrayList<>();
+				for (Object resource : (ArrayList<?>) value) {
+					resources.add(new EncryptedApplicationResource((ApplicationResource) resource));
+				}
+				mapping.put(entry.getKey(), resources);
+			}
+
+			// other setting
+			else {
+				mapping.put(entry.getKey(), value);
+			}
+		}
+	}
+
+	/**
+	 * Creates and returns settings from this object.
+	 *
+	 * @return Application settings.
+	 */
+	public Settings createSettings() {
+
+		// create settings
+		Settings settings = new Settings();
+		settings.getSettings().clear();
+
+		// loop over mapping
+		for (Entry<Integer, Object> entry : mapping.entrySet()) {
+
+			// secret setting
+			Object value = entry.getValue();
+			if (value instanceof String && isSecret(entry.getKey())) {
+				settings.put(entry.getKey(), decrypt((String) value));
+			}
+
+			// application resources
+			else if (entry.getKey() == Settings.APP_RESOURCES && value != null) {
+				ArrayList<ApplicationResource> resources = new ArrayList<>();
+				for (Object resource : (ArrayList<?>) value) {
+					resources.add(((EncryptedApplicationResource) resource).createApplicationResource());
+				}
+				settings.put(entry.getKey(), resources);
+			}
+
+			// other setting
+			else {
+				settings.put(entry.getKey(), value);
+			}
+		}
+
+		// return settings
+		return settings;
+	}
+
+	/**
+	 * Encrypts the given value with the container key.
+	 *
+	 * @param value
+	 *            Value to encrypt. Can be null.
+	 * @return Base64 encoded encrypted value, or null if the value is null.
+	 */
+	static String encrypt(String value) {
+		try {
+			return value == null ? null : Base64.getEncoder().encodeToString(ResourceCipher.seal(value.getBytes(StandardCharsets.UTF_8), getContainerKey()));
+		}
+		catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Setting could not be encrypted.", e);
+		}
+	}
+
+	/**
+	 * Decrypts the given value with the container key.
+	 *
+	 * @param value
+	 *            Base64 encoded encrypted value. Can be null.
+	 * @return The decrypted value, or null if the value is null.
+	 */
+	static String decrypt(String value) {
+		try {
+			return value == null ? null : new String(ResourceCipher.open(Base64.getDecoder().decode(value), getContainerKey()), StandardCharsets.UTF_8);
+		}
+		catch (GeneralSecurityException | IllegalArgumentException e) {
+			throw new IllegalStateException("Setting could not be decrypted.", e);
+		}
+	}
+
+	/**
+	 * Returns true if the setting with the given index is secret.
+	 *
+	 * @param index
+	 *            Setting index.
+	 * @return True if the setting with the given index is secret.
+	 */
+	private static boolean isSecret(int index) {
+		for (int secret : SECRETS) {
+			if (secret == index)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the container key.
+	 *
+	 * @return The container key.
+	 * @throws GeneralSecurityException
+	 *             If SHA-256 is not available.
+	 */
+	private static SecretKey getContainerKey() throws GeneralSecurityException {
+		byte[] key = MessageDigest.getInstance("SHA-256").digest("container.data.EncryptedSettings".getBytes(StandardCharsets.UTF_8));
+		return new SecretKeySpec(key, "AES");
+	}
+}
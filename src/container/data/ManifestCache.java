@@ -0,0 +1,235 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package container.data;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.logging.Level;
+
+import container.AppContainer;
+
+/**
+ * Class for manifest freshness cache. It records the validators of the last downloaded remote manifest (<code>ETag</code> and <code>Last-Modified</code> headers for web hosting, modification time and size for SFTP hosting) together with the hash of the manifest they describe, and the time of the last successful update check. The validators are used to revalidate the manifest with conditional requests, and the check time is used to skip the update check within the time to live given in the settings (see {@link Settings#MANIFEST_CACHE_TTL}).
+ *
+ * @author Murat Artim
+ * @date 18 Oct 2026
+ * @time 22:24:07
+ */
+public final class ManifestCache {
+
+	/** Name of the cache file (in cache directory). */
+	public static final String FILE_NAME = "manifest.properties";
+
+	/** Cache properties. */
+	private static final String HASH = "SHA-256", ETAG = "ETag", LAST_MODIFIED = "Last-Modified", SFTP_MTIME = "SFTP-MTime", SFTP_SIZE = "SFTP-Size", CHECKED = "Checked";
+
+	/** Cache properties. */
+	private final Properties properties;
+
+	/**
+	 * Creates manifest cache.
+	 *
+	 * @param properties
+	 *            Cache properties.
+	 */
+	private ManifestCache(Properties properties) {
+		this.properties = properties;
+	}
+
+	/**
+	 * Loads the manifest cache from the cache directory, or returns an empty cache if the cache file doesn't exist or cannot be read.
+	 *
+	 * @return The manifest cache.
+	 */
+	public static ManifestCache load() {
+
+		// create properties
+		Properties properties = new Properties();
+
+		// read cache file
+		Path file = AppContainer.CACHE_DIR.resolve(FILE_NAME);
+		if (Files.exists(file)) {
+			try (InputStream input = Files.newInputStream(file)) {
+				properties.load(input);
+			}
+			catch (Exception e) {
+				AppContainer.LOGGER.log(Level.WARNING, "Exception occurred during loading manifest cache.", e);
+				properties.clear();
+			}
+		}
+
+		// return cache
+		return new ManifestCache(properties);
+	}
+
+	/**
+	 * Saves this cache to the cache directory. Failure to save the cache is not an error; the manifest is then downloaded unconditionally by the next update check.
+	 */
+	public void save() {
+		try (OutputStream output = Files.newOutputStream(AppContainer.CACHE_DIR.resolve(FILE_NAME))) {
+			properties.store(output, "Validators of the last downloaded application manifest");
+		}
+		catch (Exception e) {
+			AppContainer.LOGGER.log(Level.WARNING, "Exception occurred during saving manifest cache.", e);
+		}
+	}
+
+	/**
+	 * Returns true if the validators of this cache describe the given manifest. Conditional requests can only be made for the manifest described by the validators.
+	 *
+	 * @param manifest
+	 *            Application manifest. Can be null.
+	 * @return True if the validators of this cache describe the given manifest.
+	 */
+	public boolean describes(AppManifest manifest) {
+		return manifest != null && manifest.getSHA256().equals(properties.getProperty(HASH));
+	}
+
+	/**
+	 * Returns the <code>ETag</code> of the last downloaded manifest, or null if it is not known.
+	 *
+	 * @return The <code>ETag</code> of the last downloaded manifest, or null if it is not known.
+	 */
+	public String getETag() {
+		return properties.getProperty(ETAG);
+	}
+
+	/**
+	 * Returns the <code>Last-Modified</code> date of the last downloaded manifest, or null if it is not known.
+	 *
+	 * @return The <code>Last-Modified</code> date of the last downloaded manifest, or null if it is not known.
+	 */
+	public String getLastModified() {
+		return properties.getProperty(LAST_MODIFIED);
+	}
+
+	/**
+	 * Returns the modification time (in seconds) of the last downloaded manifest on the SFTP server, or -1 if it is not known.
+	 *
+	 * @return The modification time of the last downloaded manifest on the SFTP server, or -1 if it is not known.
+	 */
+	public long getSftpMTime() {
+		return Long.parseLong(properties.getProperty(SFTP_MTIME, "-1"));
+	}
+
+	/**
+	 * Returns the size of the last downloaded manifest on the SFTP server, or -1 if it is not known.
+	 *
+	 * @return The size of the last downloaded manifest on the SFTP server, or -1 if it is not known.
+	 */
+	public long getSftpSize() {
+		return Long.parseLong(properties.getProperty(SFTP_SIZE, "-1"));
+	}
+
+	/**
+	 * Records the web server validators of the given downloaded manifest. Previously recorded validators are removed.
+	 *
+	 * @param manifest
+	 *            Downloaded manifest.
+	 * @param eTag
+	 *            <code>ETag</code> header of the response. Can be null.
+	 * @param lastModified
+	 *            <code>Last-Modified</code> header of the response. Can be null.
+	 */
+	public void setWebValidators(AppManifest manifest, String eTag, String lastModified) {
+		clearValidators(manifest);
+		if (eTag != null) {
+			properties.setProperty(ETAG, eTag);
+		}
+		if (lastModified != null) {
+			properties.setProperty(LAST_MODIFIED, lastModified);
+		}
+	}
+
+	/**
+	 * Records the SFTP server validators of the given downloaded manifest. Previously recorded validators are removed.
+	 *
+	 * @param manifest
+	 *            Downloaded manifest.
+	 * @param mtime
+	 *            Modification time of the manifest (in seconds).
+	 * @param size
+	 *            Size of the manifest.
+	 */
+	public void setSftpValidators(AppManifest manifest, long mtime, long size) {
+		clearValidators(manifest);
+		properties.setProperty(SFTP_MTIME, Long.toString(mtime));
+		properties.setProperty(SFTP_SIZE, Long.toString(size));
+	}
+
+	/**
+	 * Records the time of the last update check which found the application up to date.
+	 *
+	 * @param time
+	 *            Check time in milliseconds.
+	 */
+	public void setChecked(long time) {
+		properties.setProperty(CHECKED, Long.toString(time));
+	}
+
+	/**
+	 * Removes the time of the last update check, so that the next launch checks for updates regardless of the time to live. This is called when a new release is announced.
+	 */
+	public void clearChecked() {
+		properties.remove(CHECKED);
+	}
+
+	/**
+	 * Returns true if the application was found up to date within the time to live given in the settings. The update check can then be skipped.
+	 *
+	 * @param settings
+	 *            Application settings.
+	 * @return True if the application was found up to date within the time to live given in the settings.
+	 */
+	public boolean isFresh(Settings settings) {
+
+		// no time to live given
+		String ttl = (String) settings.getSetting(Settings.MANIFEST_CACHE_TTL);
+		if (ttl == null || ttl.trim().isEmpty())
+			return false;
+
+		// never checked
+		String checked = properties.getProperty(CHECKED);
+		if (checked == null)
+			return false;
+
+		// compare elapsed time (clock set back is not fresh)
+		try {
+			long elapsed = System.currentTimeMillis() - Long.parseLong(checked);
+			return elapsed >= 0 && elapsed < Long.parseLong(ttl.trim()) * 1000L;
+		}
+
+		// invalid values
+		catch (NumberFormatException e) {
+			AppContainer.LOGGER.log(Level.WARNING, "Invalid manifest cache time to live: " + ttl, e);
+			return false;
+		}
+	}
+
+	/**
+	 * Removes all validators and the check time, and records the hash of the given manifest.
+	 *
+	 * @param manifest
+	 *            Manifest described by the new validators.
+	 */
+	private void clearValidators(AppManifest manifest) {
+		properties.clear();
+		properties.setProperty(HASH, manifest.getSHA256());
+	}
+}
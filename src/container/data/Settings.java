@@ -48,7 +48,8 @@ public class Settings implements Serializable {
 	/** Setting index. */
 	// @formatter:off
 	public static final int HOSTING_TYPE = 0, APP_NAME = 1, VERSION_DESC_URL = 2, MANIFEST_LOCATION = 3, CONNECTION_TIMEOUT = 4, SFTP_HOSTNAME = 5,
-			SFTP_PORT = 6, SFTP_USERNAME = 7, SFTP_PASSWORD = 8, APP_RESOURCES = 9, MANIFEST_ATTRIBUTE_FOR_UPDATE_NOTIFICATION = 10, MANIFEST_ATTRIBUTE_FOR_IGNORE_UPDATE_ALLOWANCE = 11;
+			SFTP_PORT = 6, SFTP_USERNAME = 7, SFTP_PASSWORD = 8, APP_RESOURCES = 9, MANIFEST_ATTRIBUTE_FOR_UPDATE_NOTIFICATION = 10, MANIFEST_ATTRIBUTE_FOR_IGNORE_UPDATE_ALLOWANCE = 11,
+			FILE_INDEX_LOCATION = 12, MANIFEST_CACHE_TTL = 13, UPDATE_CHANNEL_LOCATION = 14, RESOURCE_KEY = 15;
 	// @formatter:on
 
 	/** Settings mapping. */
@@ -129,7 +130,7 @@ public class Settings implements Serializable {
 	 */
 	public void saveSettings(Path settingsFile) {
 		try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(settingsFile.toFile())))) {
-			out.writeObject(this);
+			out.writeObject(new EncryptedSettings(this));
 		}
 		catch (Exception e) {
 			AppContainer.LOGGER.log(Level.WARNING, "Exception occurred during saving App Launcher settings.", e);
@@ -149,7 +150,8 @@ public class Settings implements Serializable {
 
 		// read settings file
 		try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(AppContainer.SETTINGS_FILE.toFile())))) {
-			return (Settings) in.readObject();
+			Object settings = in.readObject();
+			return settings instanceof EncryptedSettings ? ((EncryptedSettings) settings).createSettings() : (Settings) settings;
 		}
 
 		// exception occurred during reading
@@ -175,6 +177,7 @@ public class Settings implements Serializable {
 		settings.put(Settings.CONNECTION_TIMEOUT, "3000");
 		settings.put(Settings.MANIFEST_ATTRIBUTE_FOR_UPDATE_NOTIFICATION, "Notify-Update");
 		settings.put(Settings.MANIFEST_ATTRIBUTE_FOR_IGNORE_UPDATE_ALLOWANCE, "Allow-Ignore-Update");
+		settings.put(Settings.FILE_INDEX_LOCATION, rootPath.concat("INDEX"));
 
 		// set application resources
 		ArrayList<ApplicationResource> appResources = new ArrayList<>();
@@ -187,11 +190,13 @@ public class Settings implements Serializable {
 		libs.setPath(rootPath.concat("libs.zip"));
 		libs.setManifestAttribute("Lib-Version");
 		libs.setFileNames(new ArrayList<>(Arrays.asList("libs")));
+		libs.setLibrarySet(true);
 		appResources.add(libs);
 		ApplicationResource resources = new ApplicationResource();
 		resources.setPath(rootPath.concat("resources.zip"));
 		resources.setManifestAttribute("Resource-Version");
 		resources.setFileNames(new ArrayList<>(Arrays.asList("resources")));
+		resources.setBootCritical(false);
 		appResources.add(resources);
 		settings.put(Settings.APP_RESOURCES, appResources);
 	}
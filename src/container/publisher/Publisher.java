@@ -0,0 +1,239 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package container.publisher;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Base64;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import container.utility.BinaryDelta;
+import container.utility.BlockMap;
+import container.utility.FileIndex;
+import container.utility.JarDelta;
+import container.utility.ResourceCipher;
+import container.utility.Utility;
+
+/**
+ * Command line tool of publishers. Generates the files to be uploaded alongside the application resources, such as the file index, binary patches, block maps, jar entry indices and encrypted resources. This tool is not used by the container at runtime.
+ *
+ * @author Murat Artim
+ * @date 19 Oct 2026
+ * @time 00:24:12
+ */
+public final class Publisher {
+
+	/** Usage of commands. */
+	private static final String[] USAGE = { "fileindex <application directory> <index file>", "patch create <old file> <new file> <patch file>", "patch apply <old file> <patch file> <new file>", "blockmap <archive> [block size]", "entryindex <jar>", "keygen", "encrypt <key> <input> <output>", "decrypt <key> <input> <output>" };
+
+	/**
+	 * No implementation.
+	 */
+	private Publisher() {
+		// no implementation
+	}
+
+	/**
+	 * Runs the given publisher command.
+	 *
+	 * @param args
+	 *            Command name followed by the command arguments (see {@link #USAGE}).
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public static void main(String[] args) throws Exception {
+
+		// run command
+		boolean valid = false;
+		if (args.length > 0) {
+			switch (args[0]) {
+				case "fileindex":
+					valid = fileIndex(args);
+					break;
+				case "patch":
+					valid = patch(args);
+					break;
+				case "blockmap":
+					valid = blockMap(args);
+					break;
+				case "entryindex":
+					valid = entryIndex(args);
+					break;
+				case "keygen":
+					valid = keygen(args);
+					break;
+				case "encrypt":
+				case "decrypt":
+					valid = cipher(args);
+					break;
+				default:
+					break;
+			}
+		}
+
+		// invalid arguments
+		if (!valid) {
+			System.out.println("Usage:");
+			for (String usage : USAGE) {
+				System.out.println("  Publisher " + usage);
+			}
+		}
+	}
+
+	/**
+	 * Creates the file index of the given application directory, to be uploaded alongside the manifest file.
+	 *
+	 * @param args
+	 *            Command arguments.
+	 * @return True if the arguments are valid.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private static boolean fileIndex(String[] args) throws Exception {
+		if (args.length != 3)
+			return false;
+		FileIndex.create(Paths.get(args[1]), null, Paths.get(args[2]));
+		return true;
+	}
+
+	/**
+	 * Creates or applies a binary delta patch. Patches are created from older versions of files to the current version; the hash of the current version is printed, to be listed in the manifest.
+	 *
+	 * @param args
+	 *            Command arguments.
+	 * @return True if the arguments are valid.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private static boolean patch(String[] args) throws Exception {
+
+		// invalid arguments
+		if (args.length != 5)
+			return false;
+
+		// create patch
+		if (args[1].equals("create")) {
+			BinaryDelta.create(Paths.get(args[2]), Paths.get(args[3]), Paths.get(args[4]));
+			System.out.println("Patch created. SHA-256 of new file: " + Utility.getSHA256(Paths.get(args[3])));
+			return true;
+		}
+
+		// apply patch
+		if (args[1].equals("apply")) {
+			try (InputStream patch = new BufferedInputStream(Files.newInputStream(Paths.get(args[3]))); OutputStream output = new BufferedOutputStream(Files.newOutputStream(Paths.get(args[4])))) {
+				BinaryDelta.apply(Paths.get(args[2]), patch, output);
+			}
+			catch (EOFException e) {
+				throw new IOException("Truncated patch file.", e);
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Creates the block map of the given archive, next to the archive (to be uploaded alongside it).
+	 *
+	 * @param args
+	 *            Command arguments.
+	 * @return True if the arguments are valid.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private static boolean blockMap(String[] args) throws Exception {
+		if (args.length < 2 || args.length > 3)
+			return false;
+		Path archive = Paths.get(args[1]);
+		int blockSize = args.length == 3 ? Integer.parseInt(args[2]) : BlockMap.DEFAULT_BLOCK_SIZE;
+		BlockMap.create(archive, Paths.get(archive.toString() + BlockMap.EXTENSION), blockSize);
+		return true;
+	}
+
+	/**
+	 * Creates the entry index of the given jar, next to the jar (to be uploaded alongside it).
+	 *
+	 * @param args
+	 *            Command arguments.
+	 * @return True if the arguments are valid.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private static boolean entryIndex(String[] args) throws Exception {
+		if (args.length != 2)
+			return false;
+		Path jar = Paths.get(args[1]);
+		JarDelta.create(jar, Paths.get(jar.toString() + JarDelta.EXTENSION));
+		return true;
+	}
+
+	/**
+	 * Generates a new resource key, to be set as the resource key setting of the container.
+	 *
+	 * @param args
+	 *            Command arguments.
+	 * @return True if the arguments are valid.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private static boolean keygen(String[] args) throws Exception {
+		if (args.length != 1)
+			return false;
+		System.out.println(ResourceCipher.generateKey());
+		return true;
+	}
+
+	/**
+	 * Encrypts or decrypts the given resource file with the given resource key.
+	 *
+	 * @param args
+	 *            Command arguments.
+	 * @return True if the arguments are valid.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private static boolean cipher(String[] args) throws Exception {
+
+		// invalid arguments
+		if (args.length != 4)
+			return false;
+
+		// encrypt or decrypt file
+		SecretKey key = new SecretKeySpec(Base64.getDecoder().decode(args[1]), "AES");
+		try (InputStream input = new BufferedInputStream(Files.newInputStream(Paths.get(args[2]))); OutputStream output = new BufferedOutputStream(Files.newOutputStream(Paths.get(args[3])))) {
+			if (args[0].equals("encrypt")) {
+				ResourceCipher.encrypt(input, output, key);
+			}
+			else {
+				byte[] buffer = new byte[64 * 1024];
+				InputStream decrypted = ResourceCipher.decrypt(input, key);
+				int len;
+				while ((len = decrypted.read(buffer)) > 0) {
+					output.write(buffer, 0, len);
+				}
+			}
+		}
+		return true;
+	}
+}
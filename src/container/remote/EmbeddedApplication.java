@@ -19,8 +19,13 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
 
 import container.AppContainer;
+import container.task.InstallOnDemandResource;
 import container.utility.Utility;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
@@ -40,6 +45,9 @@ public abstract class EmbeddedApplication extends Application {
 	/** Application parameters. */
 	private final Parameters parameters;
 
+	/** Names of resources being installed in the background. */
+	private final Set<String> pendingResources = ConcurrentHashMap.newKeySet();
+
 	/**
 	 * No argument constructor. This constructor should be used when the application is not wrapped inside the <code>AppContainer</code> (i.e. no auto-update mechanism is employed).
 	 */
@@ -151,6 +159,107 @@ public abstract class EmbeddedApplication extends Application {
 		return Paths.get(new URI(codeBase)).resolve(appDir);
 	}
 
+	/**
+	 * Returns true if the given resource is installed. Resources which are not required to start the application are installed in the background after the application is started; {@link #onResourceReady(String)} is called when such a resource becomes ready.
+	 *
+	 * @param resourceName
+	 *            Name of resource (i.e. file name of resource, such as <code>resources.zip</code>).
+	 * @return True if the given resource is installed.
+	 */
+	public boolean isResourceReady(String resourceName) {
+		return !pendingResources.contains(resourceName);
+	}
+
+	/**
+	 * Marks the given resource as being installed in the background. This is called by the container before the application is initialized.
+	 *
+	 * @param resourceName
+	 *            Name of resource.
+	 */
+	public final void resourcePending(String resourceName) {
+		pendingResources.add(resourceName);
+	}
+
+	/**
+	 * Called by the container (on JavaFX application thread) when the given resource is installed in the background.
+	 *
+	 * @param resourceName
+	 *            Name of resource.
+	 * @param exception
+	 *            Exception, or null if the resource was successfully installed.
+	 */
+	public final void resourceInstalled(String resourceName, Throwable exception) {
+		if (exception == null) {
+			pendingResources.remove(resourceName);
+			onResourceReady(resourceName);
+		}
+		else {
+			onResourceFailed(resourceName, exception);
+		}
+	}
+
+	/**
+	 * Called on JavaFX application thread when a resource installed in the background becomes ready. Default implementation does nothing; applications can override this method to enable features depending on the resource.
+	 *
+	 * @param resourceName
+	 *            Name of resource (i.e. file name of resource, such as <code>resources.zip</code>).
+	 */
+	protected void onResourceReady(String resourceName) {
+		// no implementation
+	}
+
+	/**
+	 * Called on JavaFX application thread when a resource couldn't be installed in the background. Default implementation does nothing. The resource will be installed again with the next update check.
+	 *
+	 * @param resourceName
+	 *            Name of resource.
+	 * @param exception
+	 *            Exception occurred during installation.
+	 */
+	protected void onResourceFailed(String resourceName, Throwable exception) {
+		// no implementation
+	}
+
+	/**
+	 * Called by the container (on JavaFX application thread) when a new release is announced through the update notification channel.
+	 *
+	 * @param message
+	 *            Data of the update event (such as the new version).
+	 */
+	public final void updatePublished(String message) {
+		onUpdateAvailable(message);
+	}
+
+	/**
+	 * Called on JavaFX application thread when a new release is announced while the application is running. Default implementation does nothing; applications can override this method to inform the user, and call {@link #restartContainer()} to apply the update.
+	 *
+	 * @param message
+	 *            Data of the update event (such as the new version).
+	 */
+	protected void onUpdateAvailable(String message) {
+		// no implementation
+	}
+
+	/**
+	 * Requests the given on-demand resource. On-demand resources are not installed with the application; they are downloaded, cached and extracted in the background when they are first requested (and again when their version changes).
+	 *
+	 * @param resourceName
+	 *            Name of on-demand resource (i.e. file name of resource, such as <code>samples.zip</code>).
+	 * @return Future returning the path to the installed resource. The future fails if the application is not wrapped inside the <code>AppContainer</code>, or the resource couldn't be installed.
+	 */
+	public Future<Path> requestResource(String resourceName) {
+
+		// not wrapped inside the container
+		if (appDir == null) {
+			CompletableFuture<Path> future = new CompletableFuture<>();
+			future.completeExceptionally(new IllegalStateException("Application is not wrapped inside the AppContainer."));
+			return future;
+		}
+
+		// request resource from container
+		return InstallOnDemandResource.request(resourceName);
+	}
+
 	/**
 	 * Restarts App container.
 	 *
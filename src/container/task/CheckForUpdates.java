@@ -15,20 +15,27 @@
  */
 package container.task;
 
+import java.io.IOException;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.TreeMap;
 import java.util.logging.Level;
 
 import com.jcraft.jsch.SftpProgressMonitor;
 
 import container.AppContainer;
 import container.controller.MainPanel;
+import container.data.AppManifest;
 import container.data.ApplicationResource;
+import container.data.ManifestCache;
 import container.data.Settings;
+import container.utility.ClassDataSharing;
 import container.utility.DownloadListener;
+import container.utility.FileIndex;
+import container.utility.LibrarySet;
 import container.utility.RBCWrapper;
 import container.utility.SFTPConnection;
 import container.utility.Utility;
@@ -89,7 +96,6 @@ public class CheckForUpdates extends Task<ArrayList<ApplicationResource>> implem
 		this.max = max;
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	protected ArrayList<ApplicationResource> call() throws Exception {
 
@@ -100,54 +106,60 @@ public class CheckForUpdates extends Task<ArrayList<ApplicationResource>> implem
 		// get application settings
 		Settings settings = owner.getOwner().getSettings();
 
-		// get local manifest file
-		Path localManifest = Utility.getPathToAppManifest(AppContainer.APP_DIR);
-		if (localManifest == null || !Files.exists(localManifest))
-			return (ArrayList<ApplicationResource>) settings.getSetting(Settings.APP_RESOURCES);
+		// read local manifest
+		AppManifest localManifest = AppManifest.read(Utility.getPathToAppManifest(AppContainer.APP_DIR));
+		owner.setInstalledManifest(localManifest);
+		if (localManifest == null)
+			return Utility.getPlatformResources(settings, false);
 		localManifestExists = true;
 
-		// get resource versions from local manifest file
-		HashMap<String, String> localResourceVersions = Utility.getResourceVersionsFromManifest(localManifest, settings);
-		if (localResourceVersions == null || localResourceVersions.isEmpty())
-			return (ArrayList<ApplicationResource>) settings.getSetting(Settings.APP_RESOURCES);
+		// get resource versions from local manifest
+		HashMap<String, String> localResourceVersions = localManifest.getResourceVersions(Utility.getPlatformResources(settings, true));
+		if (localResourceVersions.isEmpty())
+			return Utility.getPlatformResources(settings, false);
 
-		// download remote manifest file
+		// download remote manifest (into memory, revalidating the local manifest)
 		updateMessage("Downloading application manifest file from server. This may take a few seconds.");
-		Path remoteManifest = AppContainer.TEMP_DIR.resolve("MANIFEST.MF");
-
-		// download from SFTP server
-		if (settings.getSetting(Settings.HOSTING_TYPE).equals(Settings.SFTP_HOSTING)) {
-			try (SFTPConnection connection = Utility.createSFTPConnection(settings)) {
-				connection.getSftpChannel().get((String) settings.getSetting(Settings.MANIFEST_LOCATION), remoteManifest.toString(), this);
-			}
-		}
-
-		// download from web server
-		else if (settings.getSetting(Settings.HOSTING_TYPE).equals(Settings.WEB_HOSTING)) {
-			Utility.download(remoteManifest.toString(), new URL((String) settings.getSetting(Settings.MANIFEST_LOCATION)), this);
-		}
-
-		// remote manifest file doesn't exist
-		if (!Files.exists(remoteManifest))
+		ManifestCache cache = ManifestCache.load();
+		AppManifest remoteManifest = AppManifest.download(settings, cache, localManifest);
+		owner.setRemoteManifest(remoteManifest);
+
+		// remote manifest not modified (no update)
+		if (remoteManifest == localManifest) {
+			cache.setChecked(System.currentTimeMillis());
+			cache.save();
 			return null;
+		}
 
 		// get update notification attribute from manifest
-		String notify = Utility.getManifestAttributeValueFromManifest(remoteManifest, (String) settings.getSetting(Settings.MANIFEST_ATTRIBUTE_FOR_UPDATE_NOTIFICATION));
+		String notify = remoteManifest.getMainAttribute((String) settings.getSetting(Settings.MANIFEST_ATTRIBUTE_FOR_UPDATE_NOTIFICATION));
 		notifyUpdate = notify == null ? false : Boolean.parseBoolean(notify);
 
 		// get ignore update allowance attribute from manifest
-		String skip = Utility.getManifestAttributeValueFromManifest(remoteManifest, (String) settings.getSetting(Settings.MANIFEST_ATTRIBUTE_FOR_IGNORE_UPDATE_ALLOWANCE));
+		String skip = remoteManifest.getMainAttribute((String) settings.getSetting(Settings.MANIFEST_ATTRIBUTE_FOR_IGNORE_UPDATE_ALLOWANCE));
 		allowSkippingUpdate = skip == null ? false : Boolean.parseBoolean(skip);
 
-		// get resource versions from remote manifest file
-		HashMap<String, String> remoteResourceVersions = Utility.getResourceVersionsFromManifest(remoteManifest, settings);
-		if (remoteResourceVersions == null || remoteResourceVersions.isEmpty())
+		// get resource versions from remote manifest
+		HashMap<String, String> remoteResourceVersions = remoteManifest.getResourceVersions(Utility.getPlatformResources(settings, true));
+		if (remoteResourceVersions.isEmpty())
 			return null;
 
 		// compare resource versions
 		ArrayList<ApplicationResource> toBeUpdated = new ArrayList<>();
-		ArrayList<ApplicationResource> resources = (ArrayList<ApplicationResource>) settings.getSetting(Settings.APP_RESOURCES);
+		ArrayList<ApplicationResource> resources = Utility.getPlatformResources(settings, false);
 		for (ApplicationResource resource : resources) {
+
+			// library set (compare libraries one by one)
+			TreeMap<String, String> remoteHashes = LibrarySet.getHashes(remoteManifest, resource);
+			if (!remoteHashes.isEmpty()) {
+				TreeMap<String, String> localHashes = LibrarySet.getHashes(localManifest, resource);
+				if (!LibrarySet.getChanged(remoteHashes, localHashes, AppContainer.APP_DIR).isEmpty() || !LibrarySet.getRemoved(resource, remoteHashes, AppContainer.APP_DIR).isEmpty()) {
+					toBeUpdated.add(resource);
+				}
+				continue;
+			}
+
+			// compare resource versions
 			String manifestAttribute = resource.getManifestAttribute();
 			String localValue = localResourceVersions.get(manifestAttribute);
 			String remoteValue = remoteResourceVersions.get(manifestAttribute);
@@ -156,8 +168,68 @@ public class CheckForUpdates extends Task<ArrayList<ApplicationResource>> implem
 			}
 		}
 
+		// no update
+		if (toBeUpdated.isEmpty()) {
+			cache.setChecked(System.currentTimeMillis());
+			cache.save();
+			return null;
+		}
+
+		// save validators of remote manifest
+		cache.save();
+
+		// stop using class data sharing archive of installed version (it's replaced after the update)
+		ClassDataSharing.invalidate();
+
+		// download file index (if any)
+		downloadFileIndex(settings);
+
 		// return application resources to be updated
-		return toBeUpdated.isEmpty() ? null : toBeUpdated;
+		return toBeUpdated;
+	}
+
+	/**
+	 * Downloads the per-file content index from the server (if it is specified in the settings). Resources covered by the index will be updated file by file. Missing index is not an error; the resources are then updated as a whole.
+	 *
+	 * @param settings
+	 *            Application settings.
+	 */
+	private void downloadFileIndex(Settings settings) {
+
+		// no index location specified
+		String indexLocation = (String) settings.getSetting(Settings.FILE_INDEX_LOCATION);
+		if (indexLocation == null || indexLocation.trim().isEmpty())
+			return;
+
+		// update info
+		updateMessage("Downloading application file index from server. This may take a few seconds.");
+		Path remoteIndex = AppContainer.TEMP_DIR.resolve(FileIndex.FILE_NAME);
+
+		try {
+
+			// download from SFTP server
+			if (settings.getSetting(Settings.HOSTING_TYPE).equals(Settings.SFTP_HOSTING)) {
+				try (SFTPConnection connection = Utility.createSFTPConnection(settings)) {
+					connection.getSftpChannel().get(indexLocation, remoteIndex.toString(), this);
+				}
+			}
+
+			// download from web server
+			else if (settings.getSetting(Settings.HOSTING_TYPE).equals(Settings.WEB_HOSTING)) {
+				Utility.download(remoteIndex.toString(), new URL(indexLocation), this);
+			}
+		}
+
+		// exception occurred
+		catch (Exception e) {
+			AppContainer.LOGGER.log(Level.INFO, "File index could not be downloaded. Resources will be updated as a whole.", e);
+			try {
+				Files.deleteIfExists(remoteIndex);
+			}
+			catch (IOException e1) {
+				AppContainer.LOGGER.log(Level.WARNING, "Exception occurred during deleting partial file index.", e1);
+			}
+		}
 	}
 
 	@Override
@@ -15,23 +15,28 @@
  */
 package container.task;
 
-import java.io.IOException;
-import java.nio.file.DirectoryNotEmptyException;
-import java.nio.file.DirectoryStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.logging.Level;
 
 import container.AppContainer;
 import container.controller.MainPanel;
+import container.data.AppManifest;
 import container.data.ApplicationResource;
+import container.utility.AppSlots;
+import container.utility.BinaryDelta;
+import container.utility.ClassPreloader;
+import container.utility.FileIndex;
+import container.utility.InstalledFileIndex;
+import container.utility.InstalledState;
+import container.utility.JarDelta;
+import container.utility.LibrarySet;
+import container.utility.UpdateJournal;
 import container.utility.Utility;
 import javafx.concurrent.Task;
 
 /**
- * Class for delete application resources task.
+ * Class for delete application resources task. Files of the resources to be replaced are not deleted from the installed version; the update is staged in a new application slot without them (see {@link AppSlots}).
  *
  * @author Murat Artim
  * @date 6 May 2018
@@ -64,19 +69,98 @@ public class DeleteAppResources extends Task<Void> {
 		// update info
 		updateTitle("Deleting Application Resources");
 
+		// download remote manifest (if it wasn't downloaded while checking for updates, it identifies the update in the journal)
+		if (owner.getRemoteManifest() == null) {
+			owner.setRemoteManifest(AppManifest.download(owner.getOwner().getSettings()));
+		}
+
+		// get path to file index (if downloaded) and manifests
+		Path fileIndex = AppContainer.TEMP_DIR.resolve(FileIndex.FILE_NAME);
+		AppManifest installedManifest = owner.getInstalledManifest();
+		AppManifest remoteManifest = owner.getRemoteManifest();
+		InstalledFileIndex installedFiles = InstalledFileIndex.load();
+
+		// files of current version to exclude from staged slot
+		ArrayList<Path> excluded = new ArrayList<>();
+
 		// loop over resources
 		for (ApplicationResource resource : resources) {
 
+			// archive run from (installed as-is, files extracted by earlier installations are deleted as well)
+			if (resource.isRunFromArchive()) {
+				excluded.add(AppContainer.APP_DIR.resolve(resource.toString()));
+				for (String fileName : resource.getFileNames()) {
+					excluded.add(AppContainer.APP_DIR.resolve(fileName));
+				}
+				continue;
+			}
+
+			// resource is installed after the application is started (files of current version are kept until they are replaced, since the application runs from the staged slot)
+			if (isDeferred(resource)) {
+				continue;
+			}
+
+			// encrypted resource (always installed from the whole archive)
+			if (resource.isEncrypted()) {
+				for (String fileName : resource.getFileNames()) {
+					excluded.add(AppContainer.APP_DIR.resolve(fileName));
+				}
+				continue;
+			}
+
+			// library set (removed libraries will be deleted after download)
+			if (!LibrarySet.getHashes(remoteManifest, resource).isEmpty()) {
+				continue;
+			}
+
+			// resource is covered by file index (removed files will be deleted after download)
+			if (FileIndex.covers(fileIndex, resource.getFileNames())) {
+				continue;
+			}
+
+			// resource can be patched (installed files are needed to apply patches)
+			if (BinaryDelta.findPatches(resource, installedManifest, remoteManifest) != null) {
+				continue;
+			}
+
+			// jars of resource can be assembled from changed entries (installed jars are needed to assemble new jars)
+			if (JarDelta.findEntryIndices(resource, AppContainer.APP_DIR, remoteManifest) != null) {
+				continue;
+			}
+
+			// installed files of resource are indexed (unchanged files are kept and removed files are deleted during extraction)
+			if (installedFiles.covers(resource.toString())) {
+				continue;
+			}
+
 			// loop over file names
 			for (String fileName : resource.getFileNames()) {
-
-				// delete files recursively
-				deleteFiles(AppContainer.APP_DIR.resolve(fileName), AppContainer.APP_DIR);
+				excluded.add(AppContainer.APP_DIR.resolve(fileName));
 			}
 		}
 
-		// delete manifest file
-		deleteFiles(Utility.getPathToAppManifest(AppContainer.APP_DIR), AppContainer.APP_DIR);
+		// exclude manifest file (installed versions are kept in memory to select patches)
+		Path manifestFile = Utility.getPathToAppManifest(AppContainer.APP_DIR);
+		if (manifestFile != null) {
+			excluded.add(manifestFile);
+		}
+
+		// exclude installed state (it's rewritten by the update, and it may be memory-mapped)
+		excluded.add(AppContainer.APP_DIR.resolve(InstalledState.FILE_NAME));
+
+		// exclude preloaded class list (it's recorded again for the new version)
+		excluded.add(AppContainer.APP_DIR.resolve(ClassPreloader.FILE_NAME));
+
+		// resume interrupted update to the same version
+		Path staged = UpdateJournal.resume(AppContainer.APP_DIR, remoteManifest, resources);
+
+		// stage update in a new slot (current version is kept intact, excluded files don't need to be deleted)
+		if (staged == null) {
+			updateMessage("Staging update in a new application slot");
+			staged = AppSlots.stage(AppContainer.APP_DIR, excluded);
+			UpdateJournal.begin(AppContainer.APP_DIR, remoteManifest, staged);
+		}
+		AppContainer.APP_DIR = staged;
 		return null;
 	}
 
@@ -90,8 +174,14 @@ public class DeleteAppResources extends Task<Void> {
 		// update info
 		updateMessage("Task completed.");
 
+		// separate boot critical resources (others are installed after the application is started, except archives run from, which are mapped by the running application)
+		ArrayList<ApplicationResource> critical = new ArrayList<>(), deferred = new ArrayList<>();
+		for (ApplicationResource resource : resources) {
+			(isDeferred(resource) ? deferred : critical).add(resource);
+		}
+
 		// start download app archive task
-		owner.startTask(new DownloadAppResources(owner, resources));
+		owner.startTask(new DownloadAppResources(owner, critical, deferred, false));
 	}
 
 	@Override
@@ -112,74 +202,13 @@ public class DeleteAppResources extends Task<Void> {
 	}
 
 	/**
-	 * Deletes given file recursively.
-	 *
-	 * @param path
-	 *            Path to file or directory to delete.
-	 * @param keep
-	 *            Files to keep.
-	 * @throws IOException
-	 *             If exception occurs during process.
-	 */
-	public void deleteFiles(Path path, Path... keep) throws IOException {
-
-		// null path
-		if (path == null || !Files.exists(path))
-			return;
-
-		// directory
-		if (Files.isDirectory(path)) {
-
-			// create directory stream
-			try (DirectoryStream<Path> dirStream = Files.newDirectoryStream(path)) {
-
-				// get iterator
-				Iterator<Path> iterator = dirStream.iterator();
-
-				// loop over files
-				while (iterator.hasNext()) {
-					deleteFiles(iterator.next(), keep);
-				}
-			}
-
-			// delete directory (if not to be kept)
-			try {
-				if (!containsFile(path, keep)) {
-					Files.delete(path);
-					updateMessage("Deleting directory '" + path.getFileName().toString() + "'");
-				}
-			}
-
-			// directory not empty
-			catch (DirectoryNotEmptyException e) {
-				// ignore
-			}
-		}
-
-		// file
-		else {
-
-			// delete file (if not to be kept)
-			if (!containsFile(path, keep)) {
-				Files.delete(path);
-				updateMessage("Deleting file '" + path.getFileName().toString() + "'");
-			}
-		}
-	}
-
-	/**
-	 * Returns true if given target file is contained within the given files array.
+	 * Returns true if the given resource is installed after the application is started (i.e. it's not boot critical). Archives run from are always installed before, since they are mapped by the running application.
 	 *
-	 * @param target
-	 *            Target file to search for.
-	 * @param files
-	 *            Array of files to search the target file.
-	 * @return True if given target file is contained within the given files array.
+	 * @param resource
+	 *            Application resource.
+	 * @return True if the given resource is installed after the application is started.
 	 */
-	public static boolean containsFile(Path target, Path... files) {
-		for (Path file : files)
-			if (file.equals(target))
-				return true;
-		return false;
+	private static boolean isDeferred(ApplicationResource resource) {
+		return !resource.isBootCritical() && !resource.isRunFromArchive();
 	}
 }
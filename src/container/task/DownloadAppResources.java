@@ -15,22 +15,56 @@
  */
 package container.task;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URL;
+import java.net.URLConnection;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 import com.jcraft.jsch.SftpProgressMonitor;
 
 import container.AppContainer;
 import container.controller.MainPanel;
+import container.data.AppManifest;
 import container.data.ApplicationResource;
 import container.data.Settings;
+import container.utility.ArchiveFormat;
+import container.utility.ArchiveFormats;
+import container.utility.BinaryDelta;
+import container.utility.BlockMap;
 import container.utility.DownloadListener;
+import container.utility.FileIndex;
+import container.utility.JarDelta;
+import container.utility.LibrarySet;
 import container.utility.RBCWrapper;
 import container.utility.SFTPConnection;
+import container.utility.Trash;
+import container.utility.UpdateJournal;
 import container.utility.Utility;
+import container.utility.ZipArchiveFormat;
 import javafx.concurrent.Task;
 
 /**
@@ -45,8 +79,23 @@ public class DownloadAppResources extends Task<ArrayList<Path>> implements Downl
 	/** The owner panel. */
 	private final MainPanel owner;
 
-	/** Application resources to delete. */
-	private final ArrayList<ApplicationResource> resources;
+	/** Application resources to download, and resources to install after the application is started. */
+	private final ArrayList<ApplicationResource> resources, deferredResources;
+
+	/** True if the resources are installed in the background (after the application is started). */
+	private final boolean background;
+
+	/** Extension of delta directories, containing only the changed files of resources. */
+	public static final String DELTA_EXTENSION = ".delta";
+
+	/** Name of file listing the removed files of a resource within its delta directory. */
+	public static final String REMOVED_FILES = ".removed";
+
+	/** Maximum number of reusable blocks between missing blocks to be fetched in a single range request. */
+	private static final int MAX_GAP_BLOCKS = 2;
+
+	/** Maximum number of libraries to be downloaded in parallel. */
+	private static final int MAX_PARALLEL_DOWNLOADS = 4;
 
 	/** Download progress parameters. */
 	private long count = 0, max = 0, percent = -1;
@@ -57,11 +106,17 @@ public class DownloadAppResources extends Task<ArrayList<Path>> implements Downl
 	 * @param owner
 	 *            The owner panel.
 	 * @param resources
-	 *            Application resources to delete from local application directory.
+	 *            Application resources to download.
+	 * @param deferredResources
+	 *            Application resources to install after the application is started.
+	 * @param background
+	 *            True if the resources are installed in the background (after the application is started).
 	 */
-	public DownloadAppResources(MainPanel owner, ArrayList<ApplicationResource> resources) {
+	public DownloadAppResources(MainPanel owner, ArrayList<ApplicationResource> resources, ArrayList<ApplicationResource> deferredResources, boolean background) {
 		this.owner = owner;
 		this.resources = resources;
+		this.deferredResources = deferredResources;
+		this.background = background;
 	}
 
 	@Override
@@ -104,6 +159,16 @@ public class DownloadAppResources extends Task<ArrayList<Path>> implements Downl
 		// get settings
 		Settings settings = owner.getOwner().getSettings();
 
+		// download remote manifest (if it wasn't downloaded while checking for updates)
+		if (owner.getRemoteManifest() == null) {
+			owner.setRemoteManifest(AppManifest.download(settings));
+		}
+
+		// get path to file index (if downloaded) and manifests
+		Path fileIndex = AppContainer.TEMP_DIR.resolve(FileIndex.FILE_NAME);
+		AppManifest installedManifest = owner.getInstalledManifest();
+		AppManifest remoteManifest = owner.getRemoteManifest();
+
 		// download from SFTP server
 		if (settings.getSetting(Settings.HOSTING_TYPE).equals(Settings.SFTP_HOSTING)) {
 
@@ -117,24 +182,70 @@ public class DownloadAppResources extends Task<ArrayList<Path>> implements Downl
 					String resourceName = resource.toString();
 					updateMessage("Downloading application resource '" + resourceName + "'. This may take a few seconds.");
 
+					// resource extracted or downloaded by interrupted update (see UpdateJournal)
+					if (UpdateJournal.isExtracted(resourceName))
+						continue;
+					Path journaled = UpdateJournal.getDownload(resourceName);
+					if (journaled != null) {
+						downloadedResources.add(journaled);
+						continue;
+					}
+
+					// download changed libraries of resource (archives run from and encrypted resources are only updated as a whole)
+					TreeMap<String, String> libraries = isUpdatedAsWhole(resource) ? new TreeMap<>() : LibrarySet.getHashes(remoteManifest, resource);
+					Path updatedLibraries = libraries.isEmpty() ? null : downloadLibraries(resource, libraries, settings);
+					if (updatedLibraries != null) {
+						downloadedResources.add(UpdateJournal.downloaded(resourceName, updatedLibraries));
+						continue;
+					}
+
+					// download changed files of resource
+					if (!isUpdatedAsWhole(resource) && FileIndex.covers(fileIndex, resource.getFileNames())) {
+						downloadedResources.add(UpdateJournal.downloaded(resourceName, downloadChangedFiles(resource, settings, connection)));
+						continue;
+					}
+
+					// download and apply patches of resource
+					HashMap<String, String> patches = isUpdatedAsWhole(resource) ? null : BinaryDelta.findPatches(resource, installedManifest, remoteManifest);
+					Path patched = patches == null ? null : patchFiles(resource, patches, settings, connection);
+					if (patched != null) {
+						downloadedResources.add(UpdateJournal.downloaded(resourceName, patched));
+						continue;
+					}
+
+					// assemble jars of resource from changed entries
+					HashMap<String, String> entryIndices = isUpdatedAsWhole(resource) ? null : JarDelta.findEntryIndices(resource, AppContainer.APP_DIR, remoteManifest);
+					Path assembled = entryIndices == null ? null : assembleJars(resource, entryIndices, settings, connection);
+					if (assembled != null) {
+						downloadedResources.add(UpdateJournal.downloaded(resourceName, assembled));
+						continue;
+					}
+
+					// reuse blocks of cached archive
+					Path synced = syncArchive(resource, connection);
+					if (synced != null) {
+						downloadedResources.add(UpdateJournal.downloaded(resourceName, synced));
+						continue;
+					}
+
+					// extract archive while it's downloaded
+					if (isExtractedWhileDownloaded(resource)) {
+						downloadAndExtract(resource, connection);
+						continue;
+					}
+
 					// download resource
 					Path destination = AppContainer.TEMP_DIR.resolve(resourceName);
 					connection.getSftpChannel().get(resource.getPath(), destination.toString(), this);
 
 					// add to list
-					downloadedResources.add(destination);
+					downloadedResources.add(UpdateJournal.downloaded(resourceName, destination));
 
 					// reset progress
 					count = 0;
 					max = 0;
 					percent = -1;
 				}
-
-				// download manifest file (if it doesn't exist)
-				Path localManifest = AppContainer.TEMP_DIR.resolve("MANIFEST.MF");
-				if (!Files.exists(localManifest)) {
-					connection.getSftpChannel().get((String) settings.getSetting(Settings.MANIFEST_LOCATION), localManifest.toString(), this);
-				}
 			}
 		}
 
@@ -148,18 +259,64 @@ public class DownloadAppResources extends Task<ArrayList<Path>> implements Downl
 				String resourceName = resource.toString();
 				updateMessage("Downloading application resource '" + resourceName + "'. This may take a few seconds.");
 
+				// resource extracted or downloaded by interrupted update (see UpdateJournal)
+				if (UpdateJournal.isExtracted(resourceName))
+					continue;
+				Path journaled = UpdateJournal.getDownload(resourceName);
+				if (journaled != null) {
+					downloadedResources.add(journaled);
+					continue;
+				}
+
+				// download changed libraries of resource (archives run from and encrypted resources are only updated as a whole)
+				TreeMap<String, String> libraries = isUpdatedAsWhole(resource) ? new TreeMap<>() : LibrarySet.getHashes(remoteManifest, resource);
+				Path updatedLibraries = libraries.isEmpty() ? null : downloadLibraries(resource, libraries, settings);
+				if (updatedLibraries != null) {
+					downloadedResources.add(UpdateJournal.downloaded(resourceName, updatedLibraries));
+					continue;
+				}
+
+				// download changed files of resource
+				if (!isUpdatedAsWhole(resource) && FileIndex.covers(fileIndex, resource.getFileNames())) {
+					downloadedResources.add(UpdateJournal.downloaded(resourceName, downloadChangedFiles(resource, settings, null)));
+					continue;
+				}
+
+				// download and apply patches of resource
+				HashMap<String, String> patches = isUpdatedAsWhole(resource) ? null : BinaryDelta.findPatches(resource, installedManifest, remoteManifest);
+				Path patched = patches == null ? null : patchFiles(resource, patches, settings, null);
+				if (patched != null) {
+					downloadedResources.add(UpdateJournal.downloaded(resourceName, patched));
+					continue;
+				}
+
+				// assemble jars of resource from changed entries
+				HashMap<String, String> entryIndices = isUpdatedAsWhole(resource) ? null : JarDelta.findEntryIndices(resource, AppContainer.APP_DIR, remoteManifest);
+				Path assembled = entryIndices == null ? null : assembleJars(resource, entryIndices, settings, null);
+				if (assembled != null) {
+					downloadedResources.add(UpdateJournal.downloaded(resourceName, assembled));
+					continue;
+				}
+
+				// reuse blocks of cached archive
+				Path synced = syncArchive(resource, null);
+				if (synced != null) {
+					downloadedResources.add(UpdateJournal.downloaded(resourceName, synced));
+					continue;
+				}
+
+				// extract archive while it's downloaded
+				if (isExtractedWhileDownloaded(resource)) {
+					downloadAndExtract(resource, null);
+					continue;
+				}
+
 				// download resource
 				Path destination = AppContainer.TEMP_DIR.resolve(resourceName);
 				Utility.download(destination.toString(), new URL(resource.getPath()), this);
 
 				// add to list
-				downloadedResources.add(destination);
-			}
-
-			// download manifest file (if it doesn't exist)
-			Path localManifest = AppContainer.TEMP_DIR.resolve("MANIFEST.MF");
-			if (!Files.exists(localManifest)) {
-				Utility.download(localManifest.toString(), new URL((String) settings.getSetting(Settings.MANIFEST_LOCATION)), this);
+				downloadedResources.add(UpdateJournal.downloaded(resourceName, destination));
 			}
 		}
 
@@ -167,6 +324,608 @@ public class DownloadAppResources extends Task<ArrayList<Path>> implements Downl
 		return downloadedResources;
 	}
 
+	/**
+	 * Returns true if the given resource can only be updated as a whole. Archives run from are installed without extraction, and encrypted resources are only decrypted while they are extracted; so their files cannot be updated one by one.
+	 *
+	 * @param resource
+	 *            Application resource.
+	 * @return True if the given resource can only be updated as a whole.
+	 */
+	private static boolean isUpdatedAsWhole(ApplicationResource resource) {
+		return resource.isRunFromArchive() || resource.isEncrypted();
+	}
+
+	/**
+	 * Returns true if the given resource is extracted while it's downloaded. This applies to unencrypted archives in stream formats (such as <code>tar.gz</code>); zip archives are extracted from their central directory, so they need to be downloaded first.
+	 *
+	 * @param resource
+	 *            Application resource.
+	 * @return True if the given resource is extracted while it's downloaded.
+	 * @throws IOException
+	 *             If the archive format selected by the resource is not available.
+	 */
+	private static boolean isExtractedWhileDownloaded(ApplicationResource resource) throws IOException {
+		ArchiveFormat format = ArchiveFormats.forResource(resource);
+		return format != null && !format.getName().equals(ZipArchiveFormat.NAME) && !isUpdatedAsWhole(resource);
+	}
+
+	/**
+	 * Downloads the given archive resource and extracts it into the application directory as the archive data arrives, so download and extraction overlap. The downloaded archive is kept in the cache directory (blocks of it are reused by the next update).
+	 *
+	 * @param resource
+	 *            Application resource.
+	 * @param connection
+	 *            SFTP connection, or null if resources are hosted on web server.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private void downloadAndExtract(ApplicationResource resource, SFTPConnection connection) throws Exception {
+
+		// update info
+		String resourceName = resource.toString();
+		ArchiveFormat format = ArchiveFormats.forResource(resource);
+		updateMessage("Downloading and extracting '" + resourceName + "' (" + format.getName() + "). This may take a few seconds.");
+
+		// open remote stream and local copy
+		Path destination = AppContainer.TEMP_DIR.resolve(resourceName);
+		try (InputStream remote = connection == null ? Utility.openStream(new URL(resource.getPath()), this) : connection.getSftpChannel().get(resource.getPath(), this);
+				OutputStream copy = new BufferedOutputStream(Files.newOutputStream(destination), 64 * 1024);
+				InputStream input = new BufferedInputStream(new CopyingInputStream(remote, copy), 64 * 1024)) {
+
+			// extract archive
+			format.extract(input, AppContainer.APP_DIR, null);
+
+			// copy remaining data (such as end of archive padding)
+			byte[] buffer = new byte[8192];
+			while (input.read(buffer) != -1) {
+				// no implementation
+			}
+		}
+
+		// reset progress
+		count = 0;
+		max = 0;
+		percent = -1;
+
+		// journal extracted files
+		ArrayList<Path> files = new ArrayList<>();
+		files.add(AppContainer.APP_DIR.resolve(resourceName));
+		for (String fileName : resource.getFileNames()) {
+			files.add(AppContainer.APP_DIR.resolve(fileName));
+		}
+		UpdateJournal.extracted(resourceName, files.toArray(new Path[files.size()]));
+
+		// keep archive in cache
+		Files.move(destination, AppContainer.CACHE_DIR.resolve(resourceName), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Downloads the new and changed libraries of the given library set resource in parallel. Downloaded libraries are stored in a delta directory under the temporary directory, together with a list of removed libraries (see {@link #REMOVED_FILES}).
+	 *
+	 * @param resource
+	 *            Application resource.
+	 * @param libraries
+	 *            Library hashes from the remote manifest.
+	 * @param settings
+	 *            Application settings.
+	 * @return Path to delta directory, or null if libraries could not be downloaded (the resource should then be downloaded as a whole).
+	 */
+	private Path downloadLibraries(ApplicationResource resource, TreeMap<String, String> libraries, Settings settings) {
+
+		// create path to delta directory
+		Path deltaDir = AppContainer.TEMP_DIR.resolve(resource.toString() + DELTA_EXTENSION).toAbsolutePath().normalize();
+		ExecutorService executor = null;
+
+		try {
+
+			// compute set difference
+			TreeMap<String, String> installed = LibrarySet.getHashes(owner.getInstalledManifest(), resource);
+			ArrayList<String> changed = LibrarySet.getChanged(libraries, installed, AppContainer.APP_DIR);
+			ArrayList<String> removed = LibrarySet.getRemoved(resource, libraries, AppContainer.APP_DIR);
+
+			// write removed libraries
+			Files.createDirectories(deltaDir);
+			Files.write(deltaDir.resolve(REMOVED_FILES), removed, StandardCharsets.UTF_8);
+
+			// update info
+			updateMessage("Downloading " + changed.size() + " changed libraries of '" + resource.toString() + "'.");
+			updateProgress(0, changed.size());
+
+			// start download workers (each worker has its own connection)
+			String manifestLocation = (String) settings.getSetting(Settings.MANIFEST_LOCATION);
+			int timeout = Integer.parseInt((String) settings.getSetting(Settings.CONNECTION_TIMEOUT));
+			ConcurrentLinkedQueue<String> queue = new ConcurrentLinkedQueue<>(changed);
+			AtomicInteger completed = new AtomicInteger();
+			int workers = Math.max(1, Math.min(changed.size(), MAX_PARALLEL_DOWNLOADS));
+			executor = Executors.newFixedThreadPool(workers);
+			ArrayList<Future<Void>> futures = new ArrayList<>();
+			for (int i = 0; i < workers; i++) {
+				futures.add(executor.submit(() -> {
+					try (SFTPConnection connection = settings.getSetting(Settings.HOSTING_TYPE).equals(Settings.SFTP_HOSTING) ? Utility.createSFTPConnection(settings) : null) {
+						String library;
+						while ((library = queue.poll()) != null && !isCancelled()) {
+
+							// download library (paths escaping the delta directory are rejected)
+							Path destination = ArchiveFormats.resolveEntry(deltaDir, library);
+							Files.createDirectories(destination.getParent());
+							String source = Utility.getSiblingLocation(settings, manifestLocation, library);
+							if (connection != null) {
+								connection.getSftpChannel().get(source, destination.toString());
+							}
+							else {
+								URLConnection urlConnection = new URL(source).openConnection();
+								urlConnection.setConnectTimeout(timeout);
+								urlConnection.setReadTimeout(timeout);
+								try (InputStream input = urlConnection.getInputStream()) {
+									Files.copy(input, destination, StandardCopyOption.REPLACE_EXISTING);
+								}
+							}
+
+							// verify library
+							if (!Utility.getSHA256(destination).equals(libraries.get(library)))
+								throw new Exception("Downloaded library '" + library + "' doesn't match the hash given in the manifest.");
+
+							// update progress
+							updateProgress(completed.incrementAndGet(), changed.size());
+						}
+					}
+					return null;
+				}));
+			}
+
+			// wait for workers
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+
+			// return delta directory
+			AppContainer.LOGGER.info("Library set '" + resource.toString() + "' updated. Downloaded " + changed.size() + " of " + libraries.size() + " libraries, removed " + removed.size() + ".");
+			return deltaDir;
+		}
+
+		// exception occurred (fall back to downloading the whole resource)
+		catch (Exception e) {
+			AppContainer.LOGGER.log(Level.WARNING, "Libraries of resource '" + resource.toString() + "' could not be downloaded. Downloading the whole resource.", e);
+			if (executor != null) {
+				executor.shutdownNow();
+			}
+			try {
+
+				// delete delta directory
+				if (Files.exists(deltaDir)) {
+					Trash.delete(deltaDir);
+				}
+
+				// delete installed files of resource (they were kept for the library update)
+				for (String fileName : resource.getFileNames()) {
+					Path installedFile = AppContainer.APP_DIR.resolve(fileName);
+					if (Files.exists(installedFile)) {
+						Trash.delete(installedFile);
+					}
+				}
+			}
+			catch (IOException e1) {
+				AppContainer.LOGGER.log(Level.WARNING, "Exception occurred during deleting library files.", e1);
+			}
+			return null;
+		}
+
+		// shutdown workers
+		finally {
+			if (executor != null) {
+				Utility.shutdownThreadExecutor(executor);
+			}
+		}
+	}
+
+	/**
+	 * Downloads only the new and changed files of the given resource by comparing the installed file index against the remote one. Downloaded files are stored in a delta directory under the temporary directory, together with a list of removed files (see {@link #REMOVED_FILES}).
+	 *
+	 * @param resource
+	 *            Application resource.
+	 * @param settings
+	 *            Application settings.
+	 * @param connection
+	 *            SFTP connection, or null if resources are hosted on web server.
+	 * @return Path to delta directory.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private Path downloadChangedFiles(ApplicationResource resource, Settings settings, SFTPConnection connection) throws Exception {
+
+		// get paths to remote and installed indices
+		Path remoteIndex = AppContainer.TEMP_DIR.resolve(FileIndex.FILE_NAME);
+		Path installedIndex = AppContainer.APP_DIR.resolve(FileIndex.FILE_NAME);
+
+		// installed index doesn't cover resource (build it from installed files)
+		if (!FileIndex.covers(installedIndex, resource.getFileNames())) {
+			updateMessage("Indexing installed files of '" + resource.toString() + "'.");
+			installedIndex = AppContainer.TEMP_DIR.resolve(resource.toString() + ".index");
+			FileIndex.create(AppContainer.APP_DIR, resource.getFileNames(), installedIndex);
+		}
+
+		// create delta directory
+		Path deltaDir = Files.createDirectories(AppContainer.TEMP_DIR.resolve(resource.toString() + DELTA_EXTENSION)).toAbsolutePath().normalize();
+		String indexLocation = (String) settings.getSetting(Settings.FILE_INDEX_LOCATION);
+
+		// compare indices
+		try (BufferedWriter removedFiles = Files.newBufferedWriter(deltaDir.resolve(REMOVED_FILES), StandardCharsets.UTF_8)) {
+			FileIndex.diff(installedIndex, remoteIndex, resource.getFileNames(), new FileIndex.DiffListener() {
+
+				@Override
+				public void changed(FileIndex.Entry entry) throws Exception {
+
+					// update info
+					updateMessage("Downloading file '" + entry.getPath() + "'.");
+
+					// create parent directories (paths escaping the delta directory are rejected)
+					Path destination = ArchiveFormats.resolveEntry(deltaDir, entry.getPath());
+					Files.createDirectories(destination.getParent());
+
+					// download from SFTP server
+					String source = Utility.getSiblingLocation(settings, indexLocation, entry.getPath());
+					if (connection != null) {
+						connection.getSftpChannel().get(source, destination.toString(), DownloadAppResources.this);
+						count = 0;
+						max = 0;
+						percent = -1;
+					}
+
+					// download from web server
+					else {
+						Utility.download(destination.toString(), new URL(source), DownloadAppResources.this);
+					}
+
+					// verify file
+					if (Files.size(destination) != entry.getSize() || !Utility.getSHA256(destination).equals(entry.getHash()))
+						throw new Exception("Downloaded file '" + entry.getPath() + "' doesn't match the file index.");
+				}
+
+				@Override
+				public void removed(FileIndex.Entry entry) throws Exception {
+					ArchiveFormats.resolveEntry(AppContainer.APP_DIR.toAbsolutePath().normalize(), entry.getPath());
+					removedFiles.write(entry.getPath());
+					removedFiles.newLine();
+				}
+			});
+		}
+
+		// return delta directory
+		return deltaDir;
+	}
+
+	/**
+	 * Downloads and applies the given patches to the installed files of the resource. Patches are applied while being downloaded, and the patched files are written to a delta directory under the temporary directory. Patched files are verified against the hashes given in the remote manifest.
+	 *
+	 * @param resource
+	 *            Application resource.
+	 * @param patches
+	 *            Mapping of file names to relative patch paths.
+	 * @param settings
+	 *            Application settings.
+	 * @param connection
+	 *            SFTP connection, or null if resources are hosted on web server.
+	 * @return Path to delta directory, or null if patches could not be applied (the resource should then be downloaded as a whole).
+	 */
+	private Path patchFiles(ApplicationResource resource, HashMap<String, String> patches, Settings settings, SFTPConnection connection) {
+
+		// create path to delta directory
+		Path deltaDir = AppContainer.TEMP_DIR.resolve(resource.toString() + DELTA_EXTENSION);
+
+		try {
+
+			// loop over files
+			String manifestLocation = (String) settings.getSetting(Settings.MANIFEST_LOCATION);
+			for (Entry<String, String> patch : patches.entrySet()) {
+
+				// update info
+				String fileName = patch.getKey();
+				updateMessage("Patching file '" + fileName + "'. This may take a few seconds.");
+				updateProgress(-1, 100);
+
+				// create output file
+				Path oldFile = AppContainer.APP_DIR.resolve(fileName);
+				Path newFile = deltaDir.resolve(fileName);
+				Files.createDirectories(newFile.getParent());
+
+				// download and apply patch
+				String source = Utility.getSiblingLocation(settings, manifestLocation, patch.getValue());
+				try (InputStream patchStream = new BufferedInputStream(connection == null ? new URL(source).openStream() : connection.getSftpChannel().get(source))) {
+					try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(newFile))) {
+						BinaryDelta.apply(oldFile, patchStream, output);
+					}
+				}
+
+				// verify patched file
+				String expectedHash = BinaryDelta.getExpectedHash(owner.getRemoteManifest(), fileName);
+				if (!Utility.getSHA256(newFile).equals(expectedHash))
+					throw new Exception("Patched file '" + fileName + "' doesn't match the hash given in the manifest.");
+			}
+
+			// return delta directory
+			return deltaDir;
+		}
+
+		// exception occurred (fall back to downloading the whole resource)
+		catch (Exception e) {
+			AppContainer.LOGGER.log(Level.WARNING, "Resource '" + resource.toString() + "' could not be patched. Downloading the whole resource.", e);
+			try {
+				if (Files.exists(deltaDir)) {
+					Trash.delete(deltaDir);
+				}
+			}
+			catch (IOException e1) {
+				AppContainer.LOGGER.log(Level.WARNING, "Exception occurred during deleting delta directory.", e1);
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Assembles the jars of the resource from the unchanged entries of the installed jars and the changed entries of the published jars (see {@link JarDelta}). Assembled jars are written to a delta directory under the temporary directory, and verified against the hashes given in their entry indices.
+	 *
+	 * @param resource
+	 *            Application resource.
+	 * @param entryIndices
+	 *            Mapping of file names to relative entry index paths.
+	 * @param settings
+	 *            Application settings.
+	 * @param connection
+	 *            SFTP connection, or null if resources are hosted on web server.
+	 * @return Path to delta directory, or null if jars could not be assembled (the resource should then be downloaded as a whole).
+	 */
+	private Path assembleJars(ApplicationResource resource, HashMap<String, String> entryIndices, Settings settings, SFTPConnection connection) {
+
+		// create path to delta directory
+		Path deltaDir = AppContainer.TEMP_DIR.resolve(resource.toString() + DELTA_EXTENSION);
+
+		try {
+
+			// loop over files
+			String manifestLocation = (String) settings.getSetting(Settings.MANIFEST_LOCATION);
+			for (Entry<String, String> entryIndex : entryIndices.entrySet()) {
+
+				// update info
+				String fileName = entryIndex.getKey();
+				updateMessage("Downloading changed entries of '" + fileName + "'. This may take a few seconds.");
+				updateProgress(-1, 100);
+
+				// create output file
+				Path newFile = deltaDir.resolve(fileName);
+				Files.createDirectories(newFile.getParent());
+
+				// download entry index
+				String indexLocation = Utility.getSiblingLocation(settings, manifestLocation, entryIndex.getValue());
+				Path indexFile = AppContainer.TEMP_DIR.resolve(newFile.getFileName().toString() + JarDelta.EXTENSION);
+				if (connection != null) {
+					connection.getSftpChannel().get(indexLocation, indexFile.toString(), this);
+					count = 0;
+					max = 0;
+					percent = -1;
+				}
+				else {
+					Utility.download(indexFile.toString(), new URL(indexLocation), this);
+				}
+
+				// assemble jar
+				String jarLocation = indexLocation.substring(0, indexLocation.length() - JarDelta.EXTENSION.length());
+				long fetched = JarDelta.assemble(AppContainer.APP_DIR.resolve(fileName), indexFile, (offset, length) -> Utility.openRange(jarLocation, offset, length, connection), newFile);
+				Files.delete(indexFile);
+				AppContainer.LOGGER.info("Jar '" + fileName + "' assembled. Fetched " + fetched + " of " + Files.size(newFile) + " bytes.");
+			}
+
+			// return delta directory
+			return deltaDir;
+		}
+
+		// exception occurred (fall back to downloading the whole resource)
+		catch (Exception e) {
+			AppContainer.LOGGER.log(Level.WARNING, "Jars of resource '" + resource.toString() + "' could not be assembled. Downloading the whole resource.", e);
+			try {
+				if (Files.exists(deltaDir)) {
+					Trash.delete(deltaDir);
+				}
+			}
+			catch (IOException e1) {
+				AppContainer.LOGGER.log(Level.WARNING, "Exception occurred during deleting delta directory.", e1);
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Builds the resource archive from the blocks of its cached copy (from a previous update) and fetches only the missing blocks from the server. This requires a block map (see {@link BlockMap}) to be published next to the archive.
+	 *
+	 * @param resource
+	 *            Application resource.
+	 * @param connection
+	 *            SFTP connection, or null if resources are hosted on web server.
+	 * @return Path to downloaded archive, or null if the archive could not be synchronized (the resource should then be downloaded as a whole).
+	 */
+	private Path syncArchive(ApplicationResource resource, SFTPConnection connection) {
+
+		// no cached copy of archive
+		String resourceName = resource.toString();
+		Path cachedArchive = AppContainer.CACHE_DIR.resolve(resourceName);
+		if (!Files.exists(cachedArchive))
+			return null;
+
+		// create paths
+		Path mapFile = AppContainer.TEMP_DIR.resolve(resourceName + BlockMap.EXTENSION);
+		Path destination = AppContainer.TEMP_DIR.resolve(resourceName);
+
+		try {
+
+			// download block map
+			updateMessage("Downloading block map of '" + resourceName + "'.");
+			String mapLocation = resource.getPath() + BlockMap.EXTENSION;
+			if (connection != null) {
+				connection.getSftpChannel().get(mapLocation, mapFile.toString(), this);
+				count = 0;
+				max = 0;
+				percent = -1;
+			}
+			else {
+				Utility.download(mapFile.toString(), new URL(mapLocation), this);
+			}
+			BlockMap blockMap = BlockMap.read(mapFile);
+
+			// scan cached archive for matching blocks
+			updateMessage("Scanning local copy of '" + resourceName + "' for reusable blocks.");
+			updateProgress(-1, 100);
+			long[] offsets = blockMap.match(cachedArchive);
+
+			// assemble archive
+			updateMessage("Downloading missing blocks of '" + resourceName + "'.");
+			long reused = 0, fetched = 0;
+			try (FileChannel output = FileChannel.open(destination, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+					FileChannel old = FileChannel.open(cachedArchive, StandardOpenOption.READ)) {
+
+				// loop over blocks
+				int blocks = blockMap.getBlockCount();
+				for (int i = 0; i < blocks;) {
+
+					// update progress
+					updateProgress(i, blocks);
+
+					// reuse block
+					if (offsets[i] != -1L) {
+						long length = blockMap.getBlockLength(i);
+						for (long done = 0; done < length;) {
+							done += old.transferTo(offsets[i] + done, length - done, output);
+						}
+						reused += length;
+						i++;
+						continue;
+					}
+
+					// find range of missing blocks (small gaps of reusable blocks are fetched as well to save requests)
+					int j = i + 1;
+					while (j < blocks) {
+						if (offsets[j] == -1L) {
+							j++;
+							continue;
+						}
+						int k = j;
+						while (k < blocks && offsets[k] != -1L) {
+							k++;
+						}
+						if (k < blocks && k - j <= MAX_GAP_BLOCKS) {
+							j = k;
+							continue;
+						}
+						break;
+					}
+
+					// fetch range
+					long offset = blockMap.getBlockOffset(i);
+					long length = blockMap.getBlockOffset(j - 1) + blockMap.getBlockLength(j - 1) - offset;
+					try (ReadableByteChannel range = Channels.newChannel(Utility.openRange(resource.getPath(), offset, length, connection))) {
+						long position = output.position();
+						for (long done = 0; done < length;) {
+							long n = output.transferFrom(range, position + done, length - done);
+							if (n <= 0)
+								throw new EOFException("Unexpected end of range for '" + resourceName + "'.");
+							done += n;
+						}
+						output.position(position + length);
+					}
+					fetched += length;
+					i = j;
+				}
+			}
+
+			// verify archive
+			if (!Utility.getSHA256(destination).equals(blockMap.getFileHash()))
+				throw new Exception("Synchronized archive '" + resourceName + "' doesn't match the block map.");
+
+			// return archive
+			AppContainer.LOGGER.info("Archive '" + resourceName + "' synchronized. Reused " + reused + " bytes, fetched " + fetched + " bytes.");
+			return destination;
+		}
+
+		// exception occurred (fall back to downloading the whole resource)
+		catch (Exception e) {
+			AppContainer.LOGGER.log(Level.WARNING, "Archive '" + resourceName + "' could not be synchronized. Downloading the whole resource.", e);
+			return null;
+		}
+
+		// delete block map
+		finally {
+			try {
+				Files.deleteIfExists(mapFile);
+			}
+			catch (IOException e) {
+				AppContainer.LOGGER.log(Level.WARNING, "Exception occurred during deleting block map.", e);
+			}
+		}
+	}
+
+	/**
+	 * Input stream copying the data read from the underlying stream to an output stream.
+	 *
+	 * @author Murat Artim
+	 * @date 19 Oct 2026
+	 * @time 00:08:31
+	 */
+	private static class CopyingInputStream extends FilterInputStream {
+
+		/** Output stream. */
+		private final OutputStream output;
+
+		/**
+		 * Creates copying input stream.
+		 *
+		 * @param input
+		 *            Underlying stream.
+		 * @param output
+		 *            Output stream.
+		 */
+		CopyingInputStream(InputStream input, OutputStream output) {
+			super(input);
+			this.output = output;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = in.read();
+			if (b != -1) {
+				output.write(b);
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = in.read(b, off, len);
+			if (n > 0) {
+				output.write(b, off, n);
+			}
+			return n;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+
+			// read skipped data (so that it's copied as well)
+			byte[] buffer = new byte[(int) Math.min(8192, Math.max(n, 0))];
+			long skipped = 0;
+			while (skipped < n) {
+				int k = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+				if (k == -1) {
+					break;
+				}
+				skipped += k;
+			}
+			return skipped;
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+	}
+
 	@Override
 	protected void succeeded() {
 
@@ -182,13 +941,26 @@ public class DownloadAppResources extends Task<ArrayList<Path>> implements Downl
 			// get downloaded resources
 			ArrayList<Path> downloadedResources = get();
 
-			// start load application task
-			owner.startTask(new ExtractAppResources(owner, downloadedResources));
+			// start extract resources task
+			ExtractAppResources extract = new ExtractAppResources(owner, downloadedResources, resources, deferredResources, background);
+			if (background) {
+				owner.startBackgroundTask(extract);
+			}
+			else {
+				owner.startTask(extract);
+			}
 		}
 
 		// exception occurred
 		catch (Exception e) {
 
+			// background installation failed (notify application)
+			if (background) {
+				owner.notifyResourcesInstalled(resources, e);
+				AppContainer.LOGGER.log(Level.SEVERE, getClass().getSimpleName() + " has failed.", e);
+				return;
+			}
+
 			// update progress
 			updateProgress(0, 100);
 
@@ -207,6 +979,13 @@ public class DownloadAppResources extends Task<ArrayList<Path>> implements Downl
 		super.failed();
 		updateProgress(0, 100);
 
+		// background installation failed (notify application)
+		if (background) {
+			owner.notifyResourcesInstalled(resources, getException());
+			AppContainer.LOGGER.log(Level.SEVERE, getClass().getSimpleName() + " has failed.", getException());
+			return;
+		}
+
 		// update info
 		updateMessage("Task failed. Click on 'Details' to see a detailed description of the problem.");
 
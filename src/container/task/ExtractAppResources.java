@@ -15,21 +15,37 @@
  */
 package container.task;
 
-import java.io.BufferedOutputStream;
-import java.io.FileOutputStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
-import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
 import java.util.logging.Level;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
+import java.util.stream.Stream;
+
+import javax.crypto.SecretKey;
 
 import container.AppContainer;
 import container.controller.MainPanel;
+import container.data.ApplicationResource;
+import container.utility.AppSlots;
+import container.utility.ArchiveFormat;
+import container.utility.ArchiveFormats;
+import container.utility.FileIndex;
+import container.utility.IndexedClassLoader;
+import container.utility.InstalledFileIndex;
+import container.utility.InstalledState;
+import container.utility.ResourceCipher;
+import container.utility.UpdateJournal;
+import container.utility.Utility;
+import container.utility.ZipArchiveFormat;
+import container.utility.ZipExtractor;
 import javafx.concurrent.Task;
 
 /**
@@ -41,15 +57,18 @@ import javafx.concurrent.Task;
  */
 public class ExtractAppResources extends Task<Void> {
 
-	/** Buffer size for extracting zipped files. */
-	private static final int BUFSIZE = 2048;
-
 	/** The owner panel. */
 	private final MainPanel owner;
 
 	/** Paths to application resources. */
 	private final ArrayList<Path> appResources;
 
+	/** Application resources to extract, and resources to install after the application is started. */
+	private final ArrayList<ApplicationResource> resources, deferredResources;
+
+	/** True if the resources are installed in the background (after the application is started). */
+	private final boolean background;
+
 	/**
 	 * Creates extract application resources task.
 	 *
@@ -57,10 +76,19 @@ public class ExtractAppResources extends Task<Void> {
 	 *            The owner panel.
 	 * @param appResources
 	 *            Paths to application resources.
+	 * @param resources
+	 *            Application resources to extract.
+	 * @param deferredResources
+	 *            Application resources to install after the application is started.
+	 * @param background
+	 *            True if the resources are installed in the background (after the application is started).
 	 */
-	public ExtractAppResources(MainPanel owner, ArrayList<Path> appResources) {
+	public ExtractAppResources(MainPanel owner, ArrayList<Path> appResources, ArrayList<ApplicationResource> resources, ArrayList<ApplicationResource> deferredResources, boolean background) {
 		this.owner = owner;
 		this.appResources = appResources;
+		this.resources = resources;
+		this.deferredResources = deferredResources;
+		this.background = background;
 	}
 
 	@Override
@@ -69,22 +97,111 @@ public class ExtractAppResources extends Task<Void> {
 		// update info
 		updateTitle("Extracting Application Resources");
 
+		// map resources to their file names
+		HashMap<String, ApplicationResource> resourcesByName = new HashMap<>();
+		for (ApplicationResource resource : resources) {
+			resourcesByName.put(resource.toString(), resource);
+		}
+
 		// loop over application resources
+		ArrayList<Path> archives = new ArrayList<>(), installedArchives = new ArrayList<>();
 		for (Path resource : appResources) {
 
-			// zip archive
-			if (resource.getFileName().toString().toLowerCase().endsWith(".zip")) {
-				extractAllFilesFromZIP(resource, AppContainer.APP_DIR);
+			// get resource and its archive format
+			String resourceName = getResourceName(resource);
+			ApplicationResource appResource = resourcesByName.get(resourceName);
+			ArchiveFormat format = appResource == null ? ArchiveFormats.detect(resource.getFileName().toString()) : ArchiveFormats.forResource(appResource);
+
+			// delta directory
+			if (Files.isDirectory(resource) && resource.getFileName().toString().endsWith(DownloadAppResources.DELTA_EXTENSION)) {
+				applyDelta(resource, AppContainer.APP_DIR);
+				UpdateJournal.extracted(resourceName, getInstalledFiles(resource, appResource));
+			}
+
+			// archive run from (installed as-is)
+			else if (appResource != null && appResource.isRunFromArchive()) {
+				copy(resource, appResource);
+				UpdateJournal.extracted(resourceName, getInstalledFiles(resource, appResource));
+				installedArchives.add(resource);
+			}
+
+			// zip archive (extracted below)
+			else if (format != null && format.getName().equals(ZipArchiveFormat.NAME) && (appResource == null || !appResource.isEncrypted())) {
+				archives.add(resource);
 			}
 
-			// not zip archive
+			// encrypted archive (decrypted and extracted as stream)
+			else if (format != null && appResource != null && appResource.isEncrypted()) {
+				updateMessage("Decrypting and extracting '" + resource.getFileName() + "' (" + format.getName() + ")");
+				try (InputStream input = decrypt(resource)) {
+					format.extract(input, AppContainer.APP_DIR, (entryName, processed, total) -> updateMessage(entryName));
+				}
+				UpdateJournal.extracted(resourceName, getInstalledFiles(resource, appResource));
+				installedArchives.add(resource);
+			}
+
+			// other archive format (extracted as stream)
+			else if (format != null) {
+				updateMessage("Extracting '" + resource.getFileName() + "' (" + format.getName() + ")");
+				format.extract(resource, AppContainer.APP_DIR, (entryName, processed, total) -> updateMessage(entryName));
+				UpdateJournal.extracted(resourceName, getInstalledFiles(resource, appResource));
+				installedArchives.add(resource);
+			}
+
+			// not archive
 			else {
-				Files.copy(resource, AppContainer.APP_DIR.resolve(resource.getFileName().toString()), StandardCopyOption.REPLACE_EXISTING);
+				copy(resource, appResource);
+				UpdateJournal.extracted(resourceName, getInstalledFiles(resource, appResource));
 			}
 		}
 
-		// copy manifest file
-		Files.copy(AppContainer.TEMP_DIR.resolve("MANIFEST.MF"), AppContainer.APP_DIR.resolve("MANIFEST.MF"), StandardCopyOption.REPLACE_EXISTING);
+		// extract zip archives in parallel
+		if (!archives.isEmpty()) {
+			extractAllFilesFromZIP(archives, AppContainer.APP_DIR);
+
+			// keep archives in cache (blocks of them are reused by the next update)
+			for (Path archive : archives) {
+				UpdateJournal.extracted(getResourceName(archive), getInstalledFiles(archive, resourcesByName.get(getResourceName(archive))));
+				Files.move(archive, AppContainer.CACHE_DIR.resolve(archive.getFileName().toString()), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+
+		// keep installed and stream extracted archives in cache
+		for (Path archive : installedArchives) {
+			Files.move(archive, AppContainer.CACHE_DIR.resolve(archive.getFileName().toString()), StandardCopyOption.REPLACE_EXISTING);
+		}
+
+		// resources remain to be installed (installation is completed after the deferred resources)
+		if (!deferredResources.isEmpty())
+			return null;
+
+		// copy file index (or remove outdated one)
+		Path fileIndex = AppContainer.TEMP_DIR.resolve(FileIndex.FILE_NAME);
+		if (Files.exists(fileIndex)) {
+			Files.copy(fileIndex, AppContainer.APP_DIR.resolve(FileIndex.FILE_NAME), StandardCopyOption.REPLACE_EXISTING);
+		}
+		else {
+			Files.deleteIfExists(AppContainer.APP_DIR.resolve(FileIndex.FILE_NAME));
+		}
+
+		// write installed state (installed files are checked against it at startup)
+		updateMessage("Recording installed state.");
+		ArrayList<String> installedFiles = new ArrayList<>();
+		for (ApplicationResource resource : Utility.getPlatformResources(owner.getOwner().getSettings(), false)) {
+			installedFiles.add(resource.toString());
+			installedFiles.addAll(resource.getFileNames());
+		}
+		InstalledState.write(AppContainer.APP_DIR, installedFiles, AppSlots.getCurrent());
+
+		// write class index of application jar and libraries
+		IndexedClassLoader.writeIndex(AppContainer.APP_DIR);
+
+		// write manifest file and make staged slot the current one (this commits the update)
+		Path manifestFile = AppContainer.APP_DIR.resolve("MANIFEST.MF");
+		owner.getRemoteManifest().write(manifestFile);
+		UpdateJournal.sync(manifestFile, AppContainer.APP_DIR.resolve(FileIndex.FILE_NAME), AppContainer.APP_DIR.resolve(InstalledState.FILE_NAME), AppContainer.APP_DIR.resolve(IndexedClassLoader.FILE_NAME));
+		AppSlots.commit(AppContainer.APP_DIR);
+		UpdateJournal.committed();
 		return null;
 	}
 
@@ -98,8 +215,14 @@ public class ExtractAppResources extends Task<Void> {
 		// update info
 		updateMessage("Task completed.");
 
+		// background installation completed (notify application)
+		if (background) {
+			owner.notifyResourcesInstalled(resources, null);
+			return;
+		}
+
 		// start load application task
-		owner.startTask(new StartApplication(owner));
+		owner.startTask(new StartApplication(owner, deferredResources));
 	}
 
 	@Override
@@ -109,6 +232,13 @@ public class ExtractAppResources extends Task<Void> {
 		super.failed();
 		updateProgress(0, 100);
 
+		// background installation failed (notify application)
+		if (background) {
+			owner.notifyResourcesInstalled(resources, getException());
+			AppContainer.LOGGER.log(Level.SEVERE, getClass().getSimpleName() + " has failed.", getException());
+			return;
+		}
+
 		// update info
 		updateMessage("Task failed. Click on 'Details' to see a detailed description of the problem.");
 
@@ -120,75 +250,149 @@ public class ExtractAppResources extends Task<Void> {
 	}
 
 	/**
-	 * Extracts and returns all files from the given ZIP file.
+	 * Copies the given resource file into the application directory. Encrypted resources are decrypted while they are copied.
 	 *
-	 * @param zipPath
-	 *            Path to ZIP file.
-	 * @param outputDir
-	 *            Output directory.
+	 * @param resource
+	 *            Path to resource file.
+	 * @param appResource
+	 *            Application resource (can be null).
 	 * @throws IOException
 	 *             If exception occurs during process.
 	 */
-	public void extractAllFilesFromZIP(Path zipPath, Path outputDir) throws IOException {
-
-		// open zip file
-		try (ZipFile zipFile = new ZipFile(zipPath.toFile())) {
+	private void copy(Path resource, ApplicationResource appResource) throws IOException {
 
-			// get number of entries
-			int numEntries = zipFile.size();
-
-			// get entries
-			Enumeration<? extends ZipEntry> entries = zipFile.entries();
-
-			// loop over zip entries
-			int entryCount = 0;
-			while (entries.hasMoreElements()) {
-
-				// get entry
-				ZipEntry ze = entries.nextElement();
-
-				// progress info
-				updateProgress(entryCount, numEntries);
-				entryCount++;
+		// not encrypted
+		Path target = AppContainer.APP_DIR.resolve(resource.getFileName().toString());
+		if (appResource == null || !appResource.isEncrypted()) {
+			Files.copy(resource, target, StandardCopyOption.REPLACE_EXISTING);
+			return;
+		}
 
-				// not directory
-				if (!ze.isDirectory()) {
+		// decrypt
+		updateMessage("Decrypting '" + resource.getFileName() + "'");
+		try (InputStream input = decrypt(resource)) {
+			Files.copy(input, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
 
-					// progress info
-					updateMessage(ze.getName());
+	/**
+	 * Returns the name of the application resource of the given downloaded file or delta directory.
+	 *
+	 * @param resource
+	 *            Path to downloaded file or delta directory.
+	 * @return The name of the application resource.
+	 */
+	private static String getResourceName(Path resource) {
+		String fileName = resource.getFileName().toString();
+		return fileName.endsWith(DownloadAppResources.DELTA_EXTENSION) ? fileName.substring(0, fileName.length() - DownloadAppResources.DELTA_EXTENSION.length()) : fileName;
+	}
 
-					// create temporary output file
-					Path file = outputDir.resolve(ze.getName());
+	/**
+	 * Returns the installed files and directories of the given resource (in application directory).
+	 *
+	 * @param resource
+	 *            Path to downloaded file or delta directory.
+	 * @param appResource
+	 *            Application resource (can be null).
+	 * @return The installed files and directories of the given resource.
+	 */
+	private static Path[] getInstalledFiles(Path resource, ApplicationResource appResource) {
+		ArrayList<Path> files = new ArrayList<>();
+		files.add(AppContainer.APP_DIR.resolve(getResourceName(resource)));
+		if (appResource != null) {
+			for (String fileName : appResource.getFileNames()) {
+				files.add(AppContainer.APP_DIR.resolve(fileName));
+			}
+		}
+		return files.toArray(new Path[files.size()]);
+	}
 
-					// create all necessary directories
-					Path fileParentDir = file.getParent();
-					if (fileParentDir != null) {
-						Files.createDirectories(fileParentDir);
-					}
+	/**
+	 * Opens a decrypting stream to the given encrypted resource file (see {@link ResourceCipher}). The resource is decrypted with the resource key given in the settings.
+	 *
+	 * @param resource
+	 *            Path to encrypted resource file.
+	 * @return The decrypting stream.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	private InputStream decrypt(Path resource) throws IOException {
+		SecretKey key = ResourceCipher.getKey(owner.getOwner().getSettings());
+		InputStream input = new BufferedInputStream(Files.newInputStream(resource), 64 * 1024);
+		try {
+			return ResourceCipher.decrypt(input, key);
+		}
+		catch (IOException e) {
+			input.close();
+			throw e;
+		}
+	}
 
-					// create output stream
-					try (BufferedOutputStream bos = new BufferedOutputStream(new FileOutputStream(file.toString()))) {
+	/**
+	 * Applies the given delta directory to the output directory. Changed files are moved into the output directory, and removed files are deleted from it. Paths escaping the output directory are rejected.
+	 *
+	 * @param deltaDir
+	 *            Delta directory.
+	 * @param outputDir
+	 *            Output directory.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	public void applyDelta(Path deltaDir, Path outputDir) throws IOException {
+
+		// get changed files
+		Path root = outputDir.toAbsolutePath().normalize();
+		Path removedFiles = deltaDir.resolve(DownloadAppResources.REMOVED_FILES);
+		ArrayList<Path> changedFiles = new ArrayList<>();
+		try (Stream<Path> files = Files.walk(deltaDir)) {
+			files.filter(x -> Files.isRegularFile(x) && !x.equals(removedFiles)).forEach(changedFiles::add);
+		}
 
-						// create new buffer
-						byte[] buffer = new byte[BUFSIZE];
+		// move changed files
+		for (int i = 0; i < changedFiles.size(); i++) {
 
-						// open zip input stream
-						try (InputStream zis = zipFile.getInputStream(ze)) {
+			// progress info
+			Path file = changedFiles.get(i);
+			String relativePath = deltaDir.relativize(file).toString();
+			updateProgress(i, changedFiles.size());
+			updateMessage(relativePath);
 
-							// write to output stream
-							int len;
-							while ((len = zis.read(buffer, 0, BUFSIZE)) != -1) {
-								bos.write(buffer, 0, len);
-							}
-						}
-					}
+			// move file
+			Path target = ArchiveFormats.resolveEntry(root, relativePath);
+			Files.createDirectories(target.getParent());
+			Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+		}
 
-					// file is directory, doesn't exist or hidden
-					if (!Files.exists(file) || Files.isDirectory(file) || Files.isHidden(file) || !Files.isRegularFile(file)) {
-						continue;
+		// delete removed files
+		if (Files.exists(removedFiles)) {
+			try (BufferedReader reader = Files.newBufferedReader(removedFiles, StandardCharsets.UTF_8)) {
+				String relativePath;
+				while ((relativePath = reader.readLine()) != null) {
+					if (!relativePath.isEmpty()) {
+						updateMessage("Deleting file '" + relativePath + "'");
+						Files.deleteIfExists(ArchiveFormats.resolveEntry(root, relativePath));
 					}
 				}
 			}
 		}
 	}
+
+	/**
+	 * Extracts all files from the given ZIP files. Archives (and entries of large archives) are extracted in parallel. Files installed unchanged (according to the installed file index) are not rewritten.
+	 *
+	 * @param zipPaths
+	 *            Paths to ZIP files.
+	 * @param outputDir
+	 *            Output directory.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	public void extractAllFilesFromZIP(List<Path> zipPaths, Path outputDir) throws IOException {
+		InstalledFileIndex index = InstalledFileIndex.load(AppContainer.CACHE_DIR.resolve(InstalledFileIndex.FILE_NAME), outputDir);
+		new ZipExtractor(outputDir, (entryName, processed, total) -> {
+			updateProgress(processed, total);
+			updateMessage(entryName);
+		}, index).extract(zipPaths);
+		index.save();
+	}
 }
@@ -0,0 +1,318 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package container.task;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+
+import javax.crypto.SecretKey;
+
+import com.jcraft.jsch.SftpProgressMonitor;
+
+import container.AppContainer;
+import container.data.AppManifest;
+import container.data.ApplicationResource;
+import container.data.Settings;
+import container.utility.ArchiveFormat;
+import container.utility.ArchiveFormats;
+import container.utility.DownloadListener;
+import container.utility.RBCWrapper;
+import container.utility.ResourceCipher;
+import container.utility.SFTPConnection;
+import container.utility.Trash;
+import container.utility.Utility;
+import javafx.concurrent.Task;
+
+/**
+ * Class for install on-demand resource task. On-demand resources are not installed by the container; they are downloaded, cached and extracted in the background when they are first requested by the embedded application (see {@link container.remote.EmbeddedApplication#requestResource(String)}). Installed versions of on-demand resources are recorded, so that they are downloaded again only when their version in the application manifest changes.
+ *
+ * @author Murat Artim
+ * @date 18 Oct 2026
+ * @time 22:18:09
+ */
+public class InstallOnDemandResource extends Task<Path> implements DownloadListener, SftpProgressMonitor {
+
+	/** Name of the file recording installed versions of on-demand resources (in application directory). */
+	public static final String INSTALLED_VERSIONS = "ondemand.properties";
+
+	/** Application settings. */
+	private static volatile Settings settings;
+
+	/** Running install tasks, mapped to resource names. */
+	private static final ConcurrentHashMap<String, InstallOnDemandResource> TASKS = new ConcurrentHashMap<>();
+
+	/** Thread executor for install tasks. */
+	private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "OnDemandResourceInstaller");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/** On-demand resource to install. */
+	private final ApplicationResource resource;
+
+	/** Download progress parameters. */
+	private long count = 0, max = 0, percent = -1;
+
+	/**
+	 * Creates install on-demand resource task.
+	 *
+	 * @param resource
+	 *            On-demand resource to install.
+	 */
+	private InstallOnDemandResource(ApplicationResource resource) {
+		this.resource = resource;
+	}
+
+	/**
+	 * Sets the application settings to be used for installing on-demand resources. This is called by the container before the embedded application is started.
+	 *
+	 * @param settings
+	 *            Application settings.
+	 */
+	public static void setSettings(Settings settings) {
+		InstallOnDemandResource.settings = settings;
+	}
+
+	/**
+	 * Requests the given on-demand resource. The resource is installed in the background (if it is not installed yet or outdated). Concurrent requests for the same resource share the same install task.
+	 *
+	 * @param resourceName
+	 *            Name of on-demand resource (i.e. file name of resource, such as <code>samples.zip</code>).
+	 * @return Future returning the path to the first file of the installed resource.
+	 */
+	public static Future<Path> request(String resourceName) {
+
+		// search for resource
+		ApplicationResource resource = null;
+		if (settings != null) {
+			for (ApplicationResource platformResource : Utility.getPlatformResources(settings, true)) {
+				if (platformResource.isOnDemand() && resourceName.equals(platformResource.toString())) {
+					resource = platformResource;
+					break;
+				}
+			}
+		}
+
+		// resource not found
+		if (resource == null) {
+			CompletableFuture<Path> future = new CompletableFuture<>();
+			future.completeExceptionally(new IllegalArgumentException("No on-demand resource found with name '" + resourceName + "'."));
+			return future;
+		}
+
+		// join running install task
+		InstallOnDemandResource task = new InstallOnDemandResource(resource);
+		InstallOnDemandResource running = TASKS.putIfAbsent(resourceName, task);
+		if (running != null)
+			return running;
+
+		// submit install task (it's registered before it's started, so that it can't complete before it's registered)
+		EXECUTOR.execute(task);
+		return task;
+	}
+
+	@Override
+	public void setDownloadProgress(RBCWrapper rbc, double progress) {
+		updateProgress(progress, 100.0);
+	}
+
+	@Override
+	public boolean count(long count) {
+		this.count += count;
+		if (percent >= this.count * 100 / max)
+			return true;
+		percent = this.count * 100 / max;
+		updateProgress(percent, 100);
+		return true;
+	}
+
+	@Override
+	public void end() {
+		// no implementation
+	}
+
+	@Override
+	public void init(int op, String src, String dest, long max) {
+		count = 0;
+		percent = -1;
+		this.max = max;
+	}
+
+	@Override
+	protected Path call() throws Exception {
+
+		// update info
+		String resourceName = resource.toString();
+		updateTitle("Installing On-Demand Resource");
+		updateMessage("Checking version of '" + resourceName + "'.");
+
+		// get required version from installed application manifest
+		AppManifest manifest = AppManifest.read(Utility.getPathToAppManifest(AppContainer.APP_DIR));
+		String version = manifest == null ? null : manifest.getResourceVersion(resource);
+
+		// already installed (resources without version are installed once)
+		Path installedResource = AppContainer.APP_DIR.resolve(resource.getFileNames().get(0));
+		if ((version == null || version.equals(getInstalledVersion())) && resource.getFileNames().stream().allMatch(x -> Files.exists(AppContainer.APP_DIR.resolve(x))))
+			return installedResource;
+
+		// download resource to cache
+		updateMessage("Downloading on-demand resource '" + resourceName + "'.");
+		Path cached = AppContainer.CACHE_DIR.resolve(resourceName);
+		if (settings.getSetting(Settings.HOSTING_TYPE).equals(Settings.SFTP_HOSTING)) {
+			try (SFTPConnection connection = Utility.createSFTPConnection(settings)) {
+				connection.getSftpChannel().get(resource.getPath(), cached.toString(), this);
+			}
+		}
+		else if (settings.getSetting(Settings.HOSTING_TYPE).equals(Settings.WEB_HOSTING)) {
+			Utility.download(cached.toString(), new URL(resource.getPath()), this);
+		}
+
+		// delete outdated files
+		for (String fileName : resource.getFileNames()) {
+			Path file = AppContainer.APP_DIR.resolve(fileName);
+			if (Files.exists(file)) {
+				Trash.delete(file);
+			}
+		}
+
+		// extract resource
+		updateMessage("Extracting on-demand resource '" + resourceName + "'.");
+		ArchiveFormat format = ArchiveFormats.forResource(resource);
+		if (format != null) {
+			extract(cached, format);
+		}
+		else if (resource.isEncrypted()) {
+			SecretKey key = ResourceCipher.getKey(settings);
+			try (InputStream file = Files.newInputStream(cached); InputStream input = ResourceCipher.decrypt(new BufferedInputStream(file), key)) {
+				Files.copy(input, AppContainer.APP_DIR.resolve(resourceName), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		else {
+			Files.copy(cached, AppContainer.APP_DIR.resolve(resourceName), StandardCopyOption.REPLACE_EXISTING);
+		}
+
+		// record installed version
+		if (version != null) {
+			setInstalledVersion(version);
+		}
+
+		// return path to installed resource
+		AppContainer.LOGGER.info("On-demand resource '" + resourceName + "' installed.");
+		return installedResource;
+	}
+
+	@Override
+	protected void done() {
+
+		// remove from running tasks (after the future is completed, so that new requests start a new task)
+		TASKS.remove(resource.toString(), this);
+	}
+
+	@Override
+	protected void failed() {
+		super.failed();
+		AppContainer.LOGGER.log(Level.WARNING, "On-demand resource '" + resource.toString() + "' could not be installed.", getException());
+	}
+
+	/**
+	 * Extracts the given archive into application directory. Encrypted archives are decrypted as a stream while they are extracted.
+	 *
+	 * @param archive
+	 *            Path to archive.
+	 * @param format
+	 *            Archive format.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private void extract(Path archive, ArchiveFormat format) throws Exception {
+
+		// not encrypted
+		if (!resource.isEncrypted()) {
+			format.extract(archive, AppContainer.APP_DIR, (entryName, processed, total) -> updateProgress(processed, total));
+			return;
+		}
+
+		// decrypt and extract
+		SecretKey key = ResourceCipher.getKey(settings);
+		try (InputStream file = Files.newInputStream(archive); InputStream input = ResourceCipher.decrypt(new BufferedInputStream(file), key)) {
+			format.extract(input, AppContainer.APP_DIR, (entryName, processed, total) -> updateProgress(processed, total));
+		}
+	}
+
+	/**
+	 * Returns the installed version of the resource, or null if the resource is not installed.
+	 *
+	 * @return The installed version of the resource, or null if the resource is not installed.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private String getInstalledVersion() throws Exception {
+		synchronized (TASKS) {
+			return loadInstalledVersions().getProperty(resource.getManifestAttribute());
+		}
+	}
+
+	/**
+	 * Records the installed version of the resource.
+	 *
+	 * @param version
+	 *            Installed version.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private void setInstalledVersion(String version) throws Exception {
+		synchronized (TASKS) {
+			Properties versions = loadInstalledVersions();
+			versions.setProperty(resource.getManifestAttribute(), version);
+			Path temp = AppContainer.TEMP_DIR.resolve(INSTALLED_VERSIONS);
+			try (OutputStream output = Files.newOutputStream(temp)) {
+				versions.store(output, "Installed versions of on-demand resources");
+			}
+			Files.move(temp, AppContainer.APP_DIR.resolve(INSTALLED_VERSIONS), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Loads installed versions of on-demand resources.
+	 *
+	 * @return Installed versions of on-demand resources.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private static Properties loadInstalledVersions() throws Exception {
+		Properties versions = new Properties();
+		Path file = AppContainer.APP_DIR.resolve(INSTALLED_VERSIONS);
+		if (Files.exists(file)) {
+			try (InputStream input = Files.newInputStream(file)) {
+				versions.load(input);
+			}
+		}
+		return versions;
+	}
+}
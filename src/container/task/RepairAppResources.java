@@ -0,0 +1,456 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package container.task;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.crypto.SecretKey;
+
+import com.jcraft.jsch.SftpProgressMonitor;
+
+import container.AppContainer;
+import container.controller.MainPanel;
+import container.data.ApplicationResource;
+import container.data.Settings;
+import container.utility.ArchiveFormat;
+import container.utility.ArchiveFormats;
+import container.utility.DownloadListener;
+import container.utility.FileIndex;
+import container.utility.InstalledState;
+import container.utility.RBCWrapper;
+import container.utility.ResourceCipher;
+import container.utility.SFTPConnection;
+import container.utility.Trash;
+import container.utility.Utility;
+import container.utility.ZipArchiveFormat;
+import javafx.concurrent.Task;
+
+/**
+ * Class for repair application resources task. Installed files are checked against the installed state (see {@link InstalledState}) before the application is started; by comparing sizes and modification times, or hashes when the container is launched with the {@link AppContainer#VERIFY} parameter. Only the damaged (i.e. deleted or modified) files are replaced. Replacements are taken from individual files on the server (for resources covered by the file index), from cached resource archives, or from downloaded resource archives, in this order. Only the damaged entries of archives are extracted (encrypted resources are decrypted on the fly), into replacement files next to the damaged files; replacements are verified against the installed state, and then moved into place atomically. So, no decrypted content is written to the temporary directory.
+ *
+ * @author Murat Artim
+ * @date 18 Oct 2026
+ * @time 23:00:47
+ */
+public class RepairAppResources extends Task<Void> implements DownloadListener, SftpProgressMonitor {
+
+	/** Name of the repair directory (in temporary directory). */
+	private static final String REPAIR_DIR = "repair";
+
+	/** Extension of replacement files (written next to the damaged files). */
+	private static final String REPLACEMENT_EXTENSION = ".repair";
+
+	/** The owner panel. */
+	private final MainPanel owner;
+
+	/** True to check for updates after repair, false to start the application. */
+	private final boolean checkForUpdates;
+
+	/** SFTP connection (opened at first download). */
+	private SFTPConnection connection;
+
+	/** Download progress parameters. */
+	private long count = 0, max = 0, percent = -1;
+
+	/**
+	 * Creates repair application resources task.
+	 *
+	 * @param owner
+	 *            The owner panel.
+	 * @param checkForUpdates
+	 *            True to check for updates after repair, false to start the application.
+	 */
+	public RepairAppResources(MainPanel owner, boolean checkForUpdates) {
+		this.owner = owner;
+		this.checkForUpdates = checkForUpdates;
+	}
+
+	@Override
+	public void setDownloadProgress(RBCWrapper rbc, double progress) {
+		updateProgress(progress, 100.0);
+	}
+
+	@Override
+	public boolean count(long count) {
+		this.count += count;
+		if (percent >= this.count * 100 / max)
+			return true;
+		percent = this.count * 100 / max;
+		updateProgress(percent, 100);
+		return true;
+	}
+
+	@Override
+	public void end() {
+		// no implementation
+	}
+
+	@Override
+	public void init(int op, String src, String dest, long max) {
+		count = 0;
+		percent = -1;
+		this.max = max;
+	}
+
+	@Override
+	protected Void call() throws Exception {
+
+		// update info
+		updateTitle("Verifying Application Files");
+
+		// no installed state (application is not installed, or installed by an earlier version of the container)
+		InstalledState state = InstalledState.load(AppContainer.APP_DIR);
+		if (state == null)
+			return null;
+
+		// check installed files
+		boolean verify = owner.getOwner().getParameters().getRaw().contains(AppContainer.VERIFY);
+		updateMessage(verify ? "Verifying hashes of installed files." : "Checking installed files.");
+		List<String> damaged = verify ? state.verify(AppContainer.APP_DIR) : state.sweep(AppContainer.APP_DIR);
+		if (damaged.isEmpty())
+			return null;
+		AppContainer.LOGGER.warning(damaged.size() + " damaged installed files found: " + damaged);
+
+		// repair resources with damaged files
+		Settings settings = owner.getOwner().getSettings();
+		Path repairDir = Files.createDirectories(AppContainer.TEMP_DIR.resolve(REPAIR_DIR));
+		try {
+			for (ApplicationResource resource : Utility.getPlatformResources(settings, false)) {
+				ArrayList<String> files = new ArrayList<>();
+				for (String file : damaged) {
+					if (belongsTo(file, resource)) {
+						files.add(file);
+					}
+				}
+				if (!files.isEmpty()) {
+					repair(state, resource, files, settings, repairDir);
+				}
+			}
+		}
+
+		// close connection and delete repair directory
+		finally {
+			if (connection != null) {
+				connection.close();
+			}
+			Trash.delete(repairDir);
+		}
+
+		// return
+		AppContainer.LOGGER.info(damaged.size() + " damaged installed files repaired.");
+		return null;
+	}
+
+	@Override
+	protected void succeeded() {
+
+		// call ancestor
+		super.succeeded();
+		updateProgress(0, 100);
+
+		// update info
+		updateMessage("Task completed.");
+
+		// continue
+		startNextTask();
+	}
+
+	@Override
+	protected void failed() {
+
+		// call ancestor
+		super.failed();
+		updateProgress(0, 100);
+
+		// log exception (the update check may still replace damaged files)
+		AppContainer.LOGGER.log(Level.SEVERE, getClass().getSimpleName() + " has failed.", getException());
+
+		// continue
+		startNextTask();
+	}
+
+	/**
+	 * Starts the update check or the application.
+	 */
+	private void startNextTask() {
+		if (checkForUpdates) {
+			owner.startTask(new PingConnection(owner));
+		}
+		else {
+			owner.startTask(new StartApplication(owner));
+		}
+	}
+
+	/**
+	 * Repairs the given damaged files of the given resource.
+	 *
+	 * @param state
+	 *            Installed state.
+	 * @param resource
+	 *            Application resource.
+	 * @param files
+	 *            Damaged files of the resource (relative to application directory).
+	 * @param settings
+	 *            Application settings.
+	 * @param repairDir
+	 *            Repair directory (for downloaded resource archives).
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private void repair(InstalledState state, ApplicationResource resource, ArrayList<String> files, Settings settings, Path repairDir) throws Exception {
+
+		// update info
+		updateMessage("Repairing '" + resource.toString() + "'.");
+
+		// download individual files (files are served next to the file index)
+		if (!resource.isEncrypted() && !resource.isRunFromArchive() && FileIndex.covers(AppContainer.APP_DIR.resolve(FileIndex.FILE_NAME), resource.getFileNames())) {
+			String indexLocation = (String) settings.getSetting(Settings.FILE_INDEX_LOCATION);
+			Iterator<String> iterator = files.iterator();
+			while (iterator.hasNext()) {
+				String file = iterator.next();
+				Path replacement = getReplacement(file);
+				try {
+					download(Utility.getSiblingLocation(settings, indexLocation, file), replacement, settings);
+					if (install(state, replacement, file)) {
+						iterator.remove();
+					}
+				}
+				catch (Exception e) {
+					Files.deleteIfExists(replacement);
+					AppContainer.LOGGER.log(Level.FINE, "File '" + file + "' could not be downloaded for repair.", e);
+				}
+			}
+		}
+
+		// unpack files from cached archive, then from downloaded archive
+		for (int i = 0; i < 2 && !files.isEmpty(); i++) {
+
+			// get archive
+			Path archive = AppContainer.CACHE_DIR.resolve(resource.toString());
+			if (i == 1) {
+				archive = repairDir.resolve(resource.toString());
+				updateMessage("Downloading '" + resource.toString() + "' for repair.");
+				download(resource.getPath(), archive, settings);
+			}
+			else if (!Files.exists(archive)) {
+				continue;
+			}
+
+			// unpack and install files (replacements which are not installed are deleted)
+			try {
+				unpack(resource, archive, files, settings);
+				Iterator<String> iterator = files.iterator();
+				while (iterator.hasNext()) {
+					String file = iterator.next();
+					if (install(state, getReplacement(file), file)) {
+						iterator.remove();
+					}
+				}
+			}
+			finally {
+				for (String file : files) {
+					Files.deleteIfExists(getReplacement(file));
+				}
+			}
+		}
+
+		// files could not be repaired
+		if (!files.isEmpty())
+			throw new Exception("Damaged files of '" + resource.toString() + "' could not be repaired: " + files);
+	}
+
+	/**
+	 * Unpacks the given files of the given resource archive (or resource file) into their replacements (see {@link #getReplacement(String)}). Only the given files are unpacked, and encrypted resources are decrypted directly into the replacements.
+	 *
+	 * @param resource
+	 *            Application resource.
+	 * @param archive
+	 *            Resource archive (or resource file).
+	 * @param files
+	 *            Files to unpack (relative to application directory).
+	 * @param settings
+	 *            Application settings.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private void unpack(ApplicationResource resource, Path archive, List<String> files, Settings settings) throws Exception {
+
+		// get archive format
+		ArchiveFormat format = ArchiveFormats.forResource(resource);
+
+		// installed as-is (archive run from, or not archive)
+		if (resource.isRunFromArchive() || format == null) {
+			if (files.contains(resource.toString())) {
+				try (InputStream input = open(resource, archive, settings)) {
+					Files.copy(input, getReplacement(resource.toString()), StandardCopyOption.REPLACE_EXISTING);
+				}
+			}
+		}
+
+		// zip archive (damaged entries are looked up in the central directory)
+		else if (format.getName().equals(ZipArchiveFormat.NAME) && !resource.isEncrypted()) {
+			try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+				for (String file : files) {
+					ZipEntry entry = zipFile.getEntry(file);
+					if (entry == null)
+						continue;
+					try (InputStream input = zipFile.getInputStream(entry)) {
+						Files.copy(input, getReplacement(file), StandardCopyOption.REPLACE_EXISTING);
+					}
+				}
+			}
+		}
+
+		// other archive (damaged entries are extracted from stream, others are skipped)
+		else {
+			Path root = AppContainer.APP_DIR.toAbsolutePath().normalize();
+			HashSet<String> damaged = new HashSet<>(files);
+			try (InputStream input = open(resource, archive, settings)) {
+				format.extract(input, (entryName, directory) -> {
+					String file = root.relativize(ArchiveFormats.resolveEntry(root, entryName)).toString().replace('\\', '/');
+					return !directory && damaged.contains(file) ? getReplacement(file) : null;
+				}, (entryName, processed, total) -> updateMessage(entryName));
+			}
+		}
+	}
+
+	/**
+	 * Opens a stream to the given resource archive (or resource file). Encrypted resources are decrypted as a stream.
+	 *
+	 * @param resource
+	 *            Application resource.
+	 * @param archive
+	 *            Resource archive (or resource file).
+	 * @param settings
+	 *            Application settings.
+	 * @return The stream.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private static InputStream open(ApplicationResource resource, Path archive, Settings settings) throws Exception {
+		InputStream input = new BufferedInputStream(Files.newInputStream(archive), 64 * 1024);
+		if (!resource.isEncrypted())
+			return input;
+		try {
+			SecretKey key = ResourceCipher.getKey(settings);
+			return ResourceCipher.decrypt(input, key);
+		}
+		catch (Exception e) {
+			input.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns the path to the replacement of the given damaged file. Replacements are written next to the damaged files (within the application directory), so that they can be moved into place atomically. Parent directories are created.
+	 *
+	 * @param file
+	 *            Damaged file (relative to application directory).
+	 * @return The path to the replacement.
+	 * @throws IOException
+	 *             If the parent directories cannot be created.
+	 */
+	private static Path getReplacement(String file) throws IOException {
+		Path target = AppContainer.APP_DIR.resolve(file);
+		Files.createDirectories(target.getParent());
+		return target.resolveSibling(target.getFileName().toString() + REPLACEMENT_EXTENSION);
+	}
+
+	/**
+	 * Installs the given replacement of the damaged file, if it matches the installed state (otherwise, the replacement is deleted). The damaged file is replaced atomically (not modified in place, since it may be linked to other application slots), and the recorded modification time is restored.
+	 *
+	 * @param state
+	 *            Installed state.
+	 * @param replacement
+	 *            Replacement file (next to the damaged file).
+	 * @param file
+	 *            Damaged file (relative to application directory).
+	 * @return True if the replacement is installed.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private static boolean install(InstalledState state, Path replacement, String file) throws Exception {
+		int index = state.find(file);
+		if (index < 0 || !Files.exists(replacement) || Files.size(replacement) != state.getSize(index) || !Utility.getSHA256(replacement).equals(state.getHash(index))) {
+			Files.deleteIfExists(replacement);
+			return false;
+		}
+		Files.setLastModifiedTime(replacement, FileTime.fromMillis(state.getModified(index)));
+		Files.move(replacement, AppContainer.APP_DIR.resolve(file), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		return true;
+	}
+
+	/**
+	 * Downloads the given remote file.
+	 *
+	 * @param source
+	 *            Remote location (URL for web hosting, file path for SFTP hosting).
+	 * @param destination
+	 *            Local path to downloaded file.
+	 * @param settings
+	 *            Application settings.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private void download(String source, Path destination, Settings settings) throws Exception {
+
+		// download from SFTP server
+		if (settings.getSetting(Settings.HOSTING_TYPE).equals(Settings.SFTP_HOSTING)) {
+			if (connection == null) {
+				connection = Utility.createSFTPConnection(settings);
+			}
+			connection.getSftpChannel().get(source, destination.toString(), this);
+		}
+
+		// download from web server
+		else if (settings.getSetting(Settings.HOSTING_TYPE).equals(Settings.WEB_HOSTING)) {
+			Utility.download(destination.toString(), new URL(source), this);
+		}
+	}
+
+	/**
+	 * Returns true if the given installed file belongs to the given resource.
+	 *
+	 * @param file
+	 *            Installed file (relative to application directory).
+	 * @param resource
+	 *            Application resource.
+	 * @return True if the given installed file belongs to the given resource.
+	 */
+	private static boolean belongsTo(String file, ApplicationResource resource) {
+		if (file.equals(resource.toString()))
+			return true;
+		for (String fileName : resource.getFileNames()) {
+			if (file.equals(fileName) || file.startsWith(fileName + "/"))
+				return true;
+		}
+		return false;
+	}
+}
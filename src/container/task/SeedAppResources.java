@@ -0,0 +1,239 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package container.task;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.logging.Level;
+
+import javax.crypto.SecretKey;
+
+import container.AppContainer;
+import container.controller.MainPanel;
+import container.data.AppManifest;
+import container.data.ApplicationResource;
+import container.data.Settings;
+import container.utility.AppSlots;
+import container.utility.ArchiveFormat;
+import container.utility.ArchiveFormats;
+import container.utility.FileIndex;
+import container.utility.IndexedClassLoader;
+import container.utility.InstalledState;
+import container.utility.ResourceCipher;
+import container.utility.Trash;
+import container.utility.UpdateJournal;
+import container.utility.Utility;
+import javafx.concurrent.Task;
+
+/**
+ * Class for seed application resources task. Installers may bundle a seed payload (i.e. the application resources of a version, together with their manifest file and optionally the file index) in the seed directory next to the default settings file. On first run, the application is installed from the seed payload at disk speed, instead of downloading all resources. The update check that follows downloads only what has changed since the seeded version.
+ * <p>
+ * The seed payload is installed like an update: into a staged slot, which is committed after the manifest file is written (see {@link AppSlots}).
+ *
+ * @author Murat Artim
+ * @date 18 Oct 2026
+ * @time 23:02:20
+ */
+public class SeedAppResources extends Task<Void> {
+
+	/** Name of the seed manifest file (in seed directory). */
+	public static final String MANIFEST = "MANIFEST.MF";
+
+	/** The owner panel. */
+	private final MainPanel owner;
+
+	/**
+	 * Creates seed application resources task.
+	 *
+	 * @param owner
+	 *            The owner panel.
+	 */
+	public SeedAppResources(MainPanel owner) {
+		this.owner = owner;
+	}
+
+	/**
+	 * Returns true if the application is not installed and a seed payload is available.
+	 *
+	 * @return True if the application is not installed and a seed payload is available.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public static boolean isSeedable() throws Exception {
+		return Utility.getPathToAppManifest(AppContainer.APP_DIR) == null && Files.exists(AppContainer.SEED_DIR.resolve(MANIFEST));
+	}
+
+	@Override
+	protected Void call() throws Exception {
+
+		// update info
+		updateTitle("Installing Bundled Application");
+
+		// get resources (all of them must be in the seed payload, since the seed manifest declares their versions)
+		Settings settings = owner.getOwner().getSettings();
+		ArrayList<ApplicationResource> resources = Utility.getPlatformResources(settings, false);
+		for (ApplicationResource resource : resources) {
+			if (!Files.exists(AppContainer.SEED_DIR.resolve(resource.toString())))
+				throw new Exception("Seed payload doesn't contain resource '" + resource.toString() + "'.");
+		}
+
+		// stage installation in a new slot
+		Path staged = AppSlots.stage(AppContainer.APP_DIR, Collections.emptyList());
+		try {
+
+			// install resources
+			ArrayList<String> installedFiles = new ArrayList<>();
+			for (ApplicationResource resource : resources) {
+				updateMessage("Installing '" + resource.toString() + "' from bundled payload.");
+				install(resource, staged, settings);
+				installedFiles.add(resource.toString());
+				installedFiles.addAll(resource.getFileNames());
+			}
+
+			// copy file index
+			Path fileIndex = AppContainer.SEED_DIR.resolve(FileIndex.FILE_NAME);
+			if (Files.exists(fileIndex)) {
+				Files.copy(fileIndex, staged.resolve(FileIndex.FILE_NAME), StandardCopyOption.REPLACE_EXISTING);
+			}
+
+			// write installed state
+			updateMessage("Recording installed state.");
+			InstalledState.write(staged, installedFiles, null);
+
+			// write class index of application jar and libraries
+			IndexedClassLoader.writeIndex(staged);
+
+			// write manifest file, synchronize installed files and make staged slot the current one
+			AppManifest.read(AppContainer.SEED_DIR.resolve(MANIFEST)).write(staged.resolve(MANIFEST));
+			UpdateJournal.sync(staged);
+			AppSlots.commit(staged);
+			AppContainer.APP_DIR = staged;
+		}
+
+		// delete staged slot
+		catch (Exception e) {
+			Trash.delete(staged);
+			throw e;
+		}
+
+		// return
+		AppContainer.LOGGER.info("Application installed from bundled seed payload.");
+		return null;
+	}
+
+	@Override
+	protected void succeeded() {
+
+		// call ancestor
+		super.succeeded();
+		updateProgress(0, 100);
+
+		// update info
+		updateMessage("Task completed.");
+
+		// check for updates (beyond the seeded version)
+		owner.startTask(new PingConnection(owner));
+	}
+
+	@Override
+	protected void failed() {
+
+		// call ancestor
+		super.failed();
+		updateProgress(0, 100);
+
+		// log exception (application is downloaded instead)
+		AppContainer.LOGGER.log(Level.SEVERE, getClass().getSimpleName() + " has failed.", getException());
+
+		// check for updates
+		owner.startTask(new PingConnection(owner));
+	}
+
+	/**
+	 * Installs the given resource from the seed payload into the given slot. Archives are extracted, and kept in the archive cache (blocks of them are reused by the next update). Encrypted resources are decrypted as a stream.
+	 *
+	 * @param resource
+	 *            Application resource.
+	 * @param slot
+	 *            Slot to install into.
+	 * @param settings
+	 *            Application settings.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private void install(ApplicationResource resource, Path slot, Settings settings) throws Exception {
+
+		// get seeded resource and archive format
+		Path seeded = AppContainer.SEED_DIR.resolve(resource.toString());
+		ArchiveFormat format = ArchiveFormats.forResource(resource);
+
+		// installed as-is (archive run from, or not archive)
+		if (resource.isRunFromArchive() || format == null) {
+			try (InputStream input = open(resource, seeded, settings)) {
+				Files.copy(input, slot.resolve(resource.toString()), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+
+		// not encrypted archive
+		else if (!resource.isEncrypted()) {
+			format.extract(seeded, slot, (entryName, processed, total) -> updateProgress(processed, total));
+		}
+
+		// encrypted archive (decrypted and extracted as stream)
+		else {
+			try (InputStream input = open(resource, seeded, settings)) {
+				format.extract(input, slot, (entryName, processed, total) -> updateMessage(entryName));
+			}
+		}
+
+		// keep archive in cache
+		if (format != null) {
+			Files.copy(seeded, AppContainer.CACHE_DIR.resolve(resource.toString()), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Opens a stream to the given seeded resource. Encrypted resources are decrypted as a stream.
+	 *
+	 * @param resource
+	 *            Application resource.
+	 * @param seeded
+	 *            Seeded resource file.
+	 * @param settings
+	 *            Application settings.
+	 * @return The stream.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private static InputStream open(ApplicationResource resource, Path seeded, Settings settings) throws Exception {
+		InputStream input = new BufferedInputStream(Files.newInputStream(seeded), 64 * 1024);
+		if (!resource.isEncrypted())
+			return input;
+		try {
+			SecretKey key = ResourceCipher.getKey(settings);
+			return ResourceCipher.decrypt(input, key);
+		}
+		catch (Exception e) {
+			input.close();
+			throw e;
+		}
+	}
+}
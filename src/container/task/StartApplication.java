@@ -18,15 +18,21 @@ package container.task;
 import java.io.FileNotFoundException;
 import java.lang.reflect.Constructor;
 import java.net.URL;
-import java.net.URLClassLoader;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.logging.Level;
 
 import container.AppContainer;
 import container.controller.MainPanel;
+import container.data.AppManifest;
+import container.data.ApplicationResource;
 import container.data.Settings;
 import container.remote.EmbeddedApplication;
+import container.utility.ArchiveClassLoader;
+import container.utility.ClassDataSharing;
+import container.utility.ClassPreloader;
+import container.utility.IndexedClassLoader;
 import container.utility.Utility;
 import javafx.application.Application.Parameters;
 import javafx.application.Platform;
@@ -45,6 +51,9 @@ public class StartApplication extends Task<EmbeddedApplication> {
 	/** The owner panel. */
 	private final MainPanel owner;
 
+	/** Application resources to install in the background after the application is started. */
+	private final ArrayList<ApplicationResource> deferredResources;
+
 	/**
 	 * Creates start application task.
 	 *
@@ -52,7 +61,20 @@ public class StartApplication extends Task<EmbeddedApplication> {
 	 *            The owner panel.
 	 */
 	public StartApplication(MainPanel owner) {
+		this(owner, new ArrayList<>());
+	}
+
+	/**
+	 * Creates start application task.
+	 *
+	 * @param owner
+	 *            The owner panel.
+	 * @param deferredResources
+	 *            Application resources to install in the background after the application is started.
+	 */
+	public StartApplication(MainPanel owner, ArrayList<ApplicationResource> deferredResources) {
 		this.owner = owner;
+		this.deferredResources = deferredResources;
 	}
 
 	@Override
@@ -70,9 +92,26 @@ public class StartApplication extends Task<EmbeddedApplication> {
 		updateMessage("Building URL to jar path");
 		URL[] urls = { jarFile.toUri().toURL() };
 
-		// create class loader
+		// get installed archives to run from
+		ArrayList<Path> archives = new ArrayList<>();
+		for (ApplicationResource resource : Utility.getPlatformResources(owner.getOwner().getSettings(), false)) {
+			Path archive = AppContainer.APP_DIR.resolve(resource.toString());
+			if (resource.isRunFromArchive() && Files.exists(archive)) {
+				archives.add(archive);
+			}
+		}
+
+		// create class loader (jars of archives are read without extraction, libraries are looked up in the class index)
 		updateMessage("Creating class loader");
-		ClassLoader classLoader = URLClassLoader.newInstance(urls, getClass().getClassLoader());
+		ClassLoader classLoader = archives.isEmpty() ? new IndexedClassLoader(AppContainer.APP_DIR, jarFile, getClass().getClassLoader()) : new ArchiveClassLoader(urls, archives, getClass().getClassLoader());
+
+		// preload classes recorded at previous start in the background (or record them)
+		if (classLoader instanceof IndexedClassLoader) {
+			ClassPreloader.start((IndexedClassLoader) classLoader, AppContainer.APP_DIR);
+		}
+
+		// configure class data sharing of installed version (for next launches)
+		ClassDataSharing.configure(AppManifest.read(Utility.getPathToAppManifest(AppContainer.APP_DIR)));
 
 		// get application main class name retrieve
 		updateMessage("Retrieving application main class name");
@@ -84,6 +123,9 @@ public class StartApplication extends Task<EmbeddedApplication> {
 		Class<? extends EmbeddedApplication> applicationClass = implClass.asSubclass(EmbeddedApplication.class);
 		Constructor<? extends EmbeddedApplication> applicationConstructor = applicationClass.getConstructor(String.class, String.class, String.class, Parameters.class, ClassLoader.class);
 
+		// register settings for on-demand resources
+		InstallOnDemandResource.setSettings(owner.getOwner().getSettings());
+
 		// create application instance
 		String appName = (String) owner.getOwner().getSettings().getSetting(Settings.APP_NAME);
 		String codeBase = AppContainer.APP_DIR.toString();
@@ -91,6 +133,11 @@ public class StartApplication extends Task<EmbeddedApplication> {
 		Parameters params = owner.getOwner().getParameters();
 		EmbeddedApplication application = applicationConstructor.newInstance(appName, codeBase, configFile, params, classLoader);
 
+		// mark resources to be installed in the background
+		for (ApplicationResource resource : deferredResources) {
+			application.resourcePending(resource.toString());
+		}
+
 		// set application to App launcher
 		owner.setApplication(application);
 
@@ -122,6 +169,12 @@ public class StartApplication extends Task<EmbeddedApplication> {
 
 					// start application
 					application.start(new Stage());
+
+					// stop recording classes (first frame is shown)
+					ClassLoader classLoader = application.getClass().getClassLoader();
+					if (classLoader instanceof IndexedClassLoader) {
+						ClassPreloader.stop((IndexedClassLoader) classLoader, AppContainer.APP_DIR);
+					}
 				}
 
 				// exception occurred
@@ -137,6 +190,14 @@ public class StartApplication extends Task<EmbeddedApplication> {
 
 			// hide launcher stage
 			owner.getOwner().getStage().close();
+
+			// subscribe to update notifications
+			owner.subscribeToUpdates();
+
+			// install remaining resources in the background
+			if (!deferredResources.isEmpty()) {
+				owner.startBackgroundTask(new DownloadAppResources(owner, deferredResources, new ArrayList<>(), true));
+			}
 		}
 
 		// exception occurred
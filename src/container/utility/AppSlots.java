@@ -0,0 +1,381 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package container.utility;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import container.AppContainer;
+
+/**
+ * Class for application slots. Each installed version of the application is kept in its own slot directory (<code>slot-1</code>, <code>slot-2</code>, ...) under the application root directory, and the current slot is recorded in a pointer file. Updates are staged into a new slot, which starts as a copy of the current slot (made of hard links where the file system supports them), and committed by atomically replacing the pointer file. So, the current version is never modified by an update; a failed or interrupted update leaves the current version intact, and the previous version stays available for rollback.
+ * <p>
+ * Files of staged slots may be hard links to files of other slots. Therefore, installed files must never be modified in place; they must be replaced (i.e. deleted and written again, or moved over).
+ *
+ * @author Murat Artim
+ * @date 18 Oct 2026
+ * @time 22:48:22
+ */
+public final class AppSlots {
+
+	/** Name of the pointer file. */
+	public static final String POINTER = "CURRENT";
+
+	/** Name prefix of slot directories. */
+	private static final String PREFIX = "slot-";
+
+	/** Number of previous versions kept for rollback. */
+	private static final int RETAINED_SLOTS = 1;
+
+	/** Application root directory. */
+	private static Path rootDir;
+
+	/** Slot being staged (null if no update is in progress). */
+	private static Path staging;
+
+	/**
+	 * No instantiation allowed.
+	 */
+	private AppSlots() {
+		// no implementation
+	}
+
+	/**
+	 * Initializes application slots and returns the current slot. Applications installed directly into the root directory (by earlier versions of the container) are moved into a slot. Outdated slots are deleted in the background.
+	 *
+	 * @param root
+	 *            Application root directory.
+	 * @param rollback
+	 *            True to roll back to the previous version.
+	 * @param staged
+	 *            Name of the staged slot of an interrupted update to keep (see {@link UpdateJournal}), or null.
+	 * @return The current slot.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	public static synchronized Path init(Path root, boolean rollback, String staged) throws IOException {
+
+		// set root directory
+		rootDir = root;
+
+		// get current slot
+		Path current = readPointer();
+
+		// no current slot (fresh or legacy installation)
+		if (current == null) {
+
+			// get newest complete slot (slots without manifest were left by interrupted updates)
+			TreeMap<Integer, Path> slots = getSlots();
+			for (Path slot : slots.descendingMap().values()) {
+				if (isComplete(slot)) {
+					current = slot;
+					break;
+				}
+			}
+
+			// no complete slot (create new one)
+			if (current == null) {
+				current = Files.createDirectory(rootDir.resolve(PREFIX + (slots.isEmpty() ? 1 : slots.lastKey() + 1)));
+			}
+
+			// move legacy installation into the slot (renaming files doesn't copy them)
+			try (DirectoryStream<Path> dirStream = Files.newDirectoryStream(rootDir)) {
+				for (Path path : dirStream) {
+					String name = path.getFileName().toString();
+					if (getNumber(name) < 0 && !name.startsWith(POINTER)) {
+						Files.move(path, current.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+					}
+				}
+			}
+			writePointer(current);
+		}
+
+		// roll back to previous version
+		if (rollback) {
+			Path previous = getPrevious(current);
+			if (previous == null) {
+				AppContainer.LOGGER.warning("No previous application version to roll back to.");
+			}
+			else {
+				writePointer(previous);
+				current = previous;
+				AppContainer.LOGGER.info("Rolled back to application version in '" + previous.getFileName() + "'.");
+			}
+		}
+
+		// keep staged slot of interrupted update (it may be resumed)
+		if (staged != null && !rollback && Files.isDirectory(rootDir.resolve(staged)) && !rootDir.resolve(staged).equals(current)) {
+			staging = rootDir.resolve(staged);
+		}
+
+		// delete outdated slots in the background
+		cleanUpInBackground();
+		return current;
+	}
+
+	/**
+	 * Returns the current (committed) slot.
+	 *
+	 * @return The current slot, or null if there is no current slot.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	public static synchronized Path getCurrent() throws IOException {
+		return readPointer();
+	}
+
+	/**
+	 * Creates a new slot for staging an update, as a copy of the given current slot. Files are hard linked into the new slot where the file system supports it, and copied (with their attributes) otherwise. Excluded files (i.e. files to be replaced by the update) are not copied; so they don't need to be deleted.
+	 *
+	 * @param current
+	 *            Current slot.
+	 * @param excluded
+	 *            Files and directories of the current slot to exclude.
+	 * @return The staged slot.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	public static Path stage(Path current, Collection<Path> excluded) throws IOException {
+
+		// create slot
+		Path slot;
+		synchronized (AppSlots.class) {
+			TreeMap<Integer, Path> slots = getSlots();
+			slot = Files.createDirectory(rootDir.resolve(PREFIX + (slots.isEmpty() ? 1 : slots.lastKey() + 1)));
+			staging = slot;
+		}
+
+		// copy current slot
+		List<Path> paths;
+		try (Stream<Path> files = Files.walk(current)) {
+			paths = files.filter(x -> !x.equals(current) && excluded.stream().noneMatch(y -> !y.equals(current) && x.startsWith(y))).collect(Collectors.toList());
+		}
+		boolean link = true;
+		for (Path path : paths) {
+			Path target = slot.resolve(current.relativize(path).toString());
+			if (Files.isDirectory(path)) {
+				Files.createDirectories(target);
+				continue;
+			}
+			if (link) {
+				try {
+					Files.createLink(target, path);
+					continue;
+				}
+				catch (UnsupportedOperationException | FileSystemException e) {
+					AppContainer.LOGGER.log(Level.INFO, "Hard links are not supported. Installed files will be copied into staged slot.", e);
+					link = false;
+				}
+			}
+			Files.copy(path, target, StandardCopyOption.COPY_ATTRIBUTES);
+		}
+
+		// return slot
+		AppContainer.LOGGER.info("Staging update in '" + slot.getFileName() + "'.");
+		return slot;
+	}
+
+	/**
+	 * Makes the given slot the current one. The pointer file is replaced atomically; so the application is either at the previous or at the new version, even if the process is interrupted. Outdated slots are then deleted in the background.
+	 *
+	 * @param slot
+	 *            Slot to commit.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	public static void commit(Path slot) throws IOException {
+		synchronized (AppSlots.class) {
+			writePointer(slot);
+			if (slot.equals(staging)) {
+				staging = null;
+			}
+		}
+		AppContainer.LOGGER.info("Application version in '" + slot.getFileName() + "' committed.");
+		cleanUpInBackground();
+	}
+
+	/**
+	 * Deletes outdated slots. These are the slots older than the retained previous versions, the slots newer than the current one (rolled back versions) and the abandoned (uncommitted) staged slots.
+	 */
+	public static void cleanUp() {
+
+		// get outdated slots
+		ArrayList<Path> outdated = new ArrayList<>();
+		synchronized (AppSlots.class) {
+			try {
+				Path current = readPointer();
+				if (current == null)
+					return;
+				int retained = 0;
+				ArrayList<Path> slots = new ArrayList<>(getSlots().values());
+				Collections.reverse(slots);
+				for (Path slot : slots) {
+					if (slot.equals(current) || slot.equals(staging)) {
+						continue;
+					}
+					if (getNumber(slot.getFileName().toString()) < getNumber(current.getFileName().toString()) && isComplete(slot) && retained < RETAINED_SLOTS) {
+						retained++;
+						continue;
+					}
+					outdated.add(slot);
+				}
+			}
+			catch (IOException e) {
+				AppContainer.LOGGER.log(Level.WARNING, "Application slots could not be listed.", e);
+				return;
+			}
+		}
+
+		// move outdated slots into trash (slots with files in use are deleted by a later clean up)
+		for (Path slot : outdated) {
+			try {
+				Trash.delete(slot);
+				AppContainer.LOGGER.info("Outdated application slot '" + slot.getFileName() + "' deleted.");
+			}
+			catch (IOException e) {
+				AppContainer.LOGGER.log(Level.FINE, "Outdated application slot '" + slot.getFileName() + "' could not be deleted.", e);
+			}
+		}
+	}
+
+	/**
+	 * Deletes outdated slots on a background thread.
+	 */
+	private static void cleanUpInBackground() {
+		Thread thread = new Thread(AppSlots::cleanUp, "AppSlotCleaner");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+	}
+
+	/**
+	 * Returns the newest complete slot older than the given slot, or null if there is no such slot.
+	 *
+	 * @param current
+	 *            Current slot.
+	 * @return The newest complete slot older than the given slot, or null if there is no such slot.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	private static Path getPrevious(Path current) throws IOException {
+		int number = getNumber(current.getFileName().toString());
+		for (Path slot : getSlots().headMap(number, false).descendingMap().values()) {
+			if (isComplete(slot))
+				return slot;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns true if the given slot contains a complete installation (i.e. the application manifest, which is written last).
+	 *
+	 * @param slot
+	 *            Slot directory.
+	 * @return True if the given slot contains a complete installation.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	private static boolean isComplete(Path slot) throws IOException {
+		return Utility.getPathToAppManifest(slot) != null;
+	}
+
+	/**
+	 * Returns slot directories mapped to their numbers.
+	 *
+	 * @return Slot directories mapped to their numbers.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	private static TreeMap<Integer, Path> getSlots() throws IOException {
+		TreeMap<Integer, Path> slots = new TreeMap<>();
+		try (DirectoryStream<Path> dirStream = Files.newDirectoryStream(rootDir)) {
+			for (Path path : dirStream) {
+				int number = getNumber(path.getFileName().toString());
+				if (number >= 0 && Files.isDirectory(path)) {
+					slots.put(number, path);
+				}
+			}
+		}
+		return slots;
+	}
+
+	/**
+	 * Returns the number of the slot with the given directory name, or -1 if the name is not a slot name.
+	 *
+	 * @param name
+	 *            Directory name.
+	 * @return The number of the slot, or -1 if the name is not a slot name.
+	 */
+	private static int getNumber(String name) {
+		if (!name.startsWith(PREFIX))
+			return -1;
+		try {
+			return Integer.parseInt(name.substring(PREFIX.length()));
+		}
+		catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Reads the pointer file.
+	 *
+	 * @return The current slot, or null if the pointer file doesn't exist or points to a missing slot.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	private static Path readPointer() throws IOException {
+		Path pointer = rootDir.resolve(POINTER);
+		if (!Files.exists(pointer))
+			return null;
+		String name = new String(Files.readAllBytes(pointer), StandardCharsets.UTF_8).trim();
+		Path slot = rootDir.resolve(name);
+		if (getNumber(name) < 0 || !Files.isDirectory(slot)) {
+			AppContainer.LOGGER.warning("Application slot pointer is invalid: " + name);
+			return null;
+		}
+		return slot;
+	}
+
+	/**
+	 * Atomically replaces the pointer file. The new pointer file is synchronized with the disk before it replaces the current one.
+	 *
+	 * @param slot
+	 *            Slot to point to.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	private static void writePointer(Path slot) throws IOException {
+		Path temp = rootDir.resolve(POINTER + ".tmp");
+		Files.write(temp, slot.getFileName().toString().getBytes(StandardCharsets.UTF_8));
+		UpdateJournal.sync(temp);
+		Files.move(temp, rootDir.resolve(POINTER), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		UpdateJournal.syncDirectory(rootDir);
+	}
+}
@@ -0,0 +1,531 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package container.utility;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.CodeSigner;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Class loader for running applications directly from installed resource archives (see {@link container.data.ApplicationResource#isRunFromArchive()}). Classes and resources are first searched in the given URLs (i.e. the application jar), and then in the jars contained in the given archives.
+ * <p>
+ * Archives are memory-mapped, and the central directories of the archives and of their nested jars are indexed once when the class loader is created. Entries of nested jars are then read straight out of the mapped archives. Nested jars should be stored uncompressed in the archives (i.e. <code>zip -0</code>); compressed nested jars are inflated into memory once.
+ * <p>
+ * Classes of nested jars are defined with the code source <code>jar:file:/path/to/archive!/path/to/nested.jar</code>, and their packages with the attributes of the manifest of the nested jar. Signatures of nested jars are not verified.
+ *
+ * @author Murat Artim
+ * @date 18 Oct 2026
+ * @time 22:35:59
+ */
+public class ArchiveClassLoader extends URLClassLoader {
+
+	/** Central directory signatures. */
+	private static final int END_OF_CENTRAL_DIR = 0x06054b50, CENTRAL_DIR_HEADER = 0x02014b50;
+
+	/** Compression methods. */
+	private static final int STORED = 0, DEFLATED = 8;
+
+	/** URL protocol of nested entries. */
+	private static final String PROTOCOL = "archive";
+
+	/** Locations of nested entries, mapped to entry names. */
+	private final HashMap<String, Location> index = new HashMap<>();
+
+	/** URL handler for nested entries. */
+	private final URLStreamHandler handler = new URLStreamHandler() {
+
+		@Override
+		protected URLConnection openConnection(URL url) throws IOException {
+			return new URLConnection(url) {
+
+				@Override
+				public void connect() {
+					// no implementation
+				}
+
+				@Override
+				public InputStream getInputStream() throws IOException {
+					String path = url.getPath();
+					Location location = index.get(path.substring(path.lastIndexOf("!/") + 2));
+					if (location == null)
+						throw new IOException("Entry not found: " + url);
+					return new ByteArrayInputStream(read(location));
+				}
+			};
+		}
+	};
+
+	static {
+		registerAsParallelCapable();
+	}
+
+	/**
+	 * Creates archive class loader.
+	 *
+	 * @param urls
+	 *            URLs to search first (such as the application jar).
+	 * @param archives
+	 *            Paths to installed archives containing jars.
+	 * @param parent
+	 *            Parent class loader.
+	 * @throws IOException
+	 *             If an archive cannot be read.
+	 */
+	public ArchiveClassLoader(URL[] urls, List<Path> archives, ClassLoader parent) throws IOException {
+
+		// create class loader
+		super(urls, parent);
+
+		// index archives
+		for (Path archive : archives) {
+			indexArchive(archive);
+		}
+	}
+
+	@Override
+	protected Class<?> findClass(String name) throws ClassNotFoundException {
+
+		// search URLs
+		try {
+			return super.findClass(name);
+		}
+
+		// search archives
+		catch (ClassNotFoundException e) {
+
+			// not found
+			Location location = index.get(name.replace('.', '/').concat(".class"));
+			if (location == null)
+				throw e;
+
+			// define package
+			int lastDot = name.lastIndexOf('.');
+			if (lastDot > 0) {
+				definePackage(name.substring(0, lastDot), location.jar);
+			}
+
+			// define class
+			try {
+				byte[] bytes = read(location);
+				return defineClass(name, bytes, 0, bytes.length, location.jar.codeSource);
+			}
+			catch (IOException e1) {
+				throw new ClassNotFoundException(name, e1);
+			}
+		}
+	}
+
+	@Override
+	public URL findResource(String name) {
+
+		// search URLs
+		URL url = super.findResource(name);
+		if (url != null)
+			return url;
+
+		// search archives
+		Location location = index.get(name);
+		return location == null ? null : createURL(location, name);
+	}
+
+	@Override
+	public Enumeration<URL> findResources(String name) throws IOException {
+		ArrayList<URL> urls = Collections.list(super.findResources(name));
+		Location location = index.get(name);
+		if (location != null) {
+			urls.add(createURL(location, name));
+		}
+		return Collections.enumeration(urls);
+	}
+
+	/**
+	 * Defines the given package (if it's not defined yet), with the attributes of the manifest of the given nested jar.
+	 *
+	 * @param packageName
+	 *            Package name.
+	 * @param jar
+	 *            Nested jar.
+	 */
+	private void definePackage(String packageName, NestedJar jar) {
+		if (getPackage(packageName) != null)
+			return;
+		try {
+			if (jar.manifest != null) {
+				definePackage(packageName, jar.manifest, jar.url);
+			}
+			else {
+				definePackage(packageName, null, null, null, null, null, null, null);
+			}
+		}
+		catch (IllegalArgumentException e) {
+			// defined concurrently
+		}
+	}
+
+	/**
+	 * Creates URL to the given nested entry.
+	 *
+	 * @param location
+	 *            Location of entry.
+	 * @param name
+	 *            Entry name.
+	 * @return URL to the given nested entry.
+	 */
+	private URL createURL(Location location, String name) {
+		try {
+			return new URL(PROTOCOL, null, -1, "/" + location.jar.name + "!/" + name, handler);
+		}
+		catch (MalformedURLException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Maps the given archive into memory and indexes the entries of its nested jars. Entries of archives and jars indexed earlier take precedence.
+	 *
+	 * @param archive
+	 *            Path to archive.
+	 * @throws IOException
+	 *             If the archive cannot be read.
+	 */
+	private void indexArchive(Path archive) throws IOException {
+
+		// map archive
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ)) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+		}
+
+		// get nested jars (in name order)
+		ArrayList<Record> jars = new ArrayList<>();
+		for (Record record : readCentralDirectory(buffer)) {
+			if (record.name.toLowerCase().endsWith(".jar")) {
+				jars.add(record);
+			}
+		}
+		jars.sort(Comparator.comparing(record -> record.name));
+
+		// index entries of nested jars
+		String archiveURL = archive.toAbsolutePath().toUri().toURL().toString();
+		for (Record jarRecord : jars) {
+
+			// get jar content (stored jars are sliced from the mapped archive)
+			ByteBuffer jar = jarRecord.method == STORED ? slice(buffer, dataOffset(buffer, jarRecord.offset), jarRecord.compressedSize) : ByteBuffer.wrap(read(buffer, jarRecord));
+			jar.order(ByteOrder.LITTLE_ENDIAN);
+
+			// read entries and manifest of jar
+			ArrayList<Record> records = readCentralDirectory(jar);
+			Manifest manifest = null;
+			for (Record record : records) {
+				if (record.name.equalsIgnoreCase(JarFile.MANIFEST_NAME)) {
+					manifest = new Manifest(new ByteArrayInputStream(read(jar, record)));
+					break;
+				}
+			}
+
+			// index entries
+			NestedJar nestedJar = new NestedJar(archive.getFileName() + "!/" + jarRecord.name, new URL("jar:" + archiveURL + "!/" + jarRecord.name), manifest);
+			for (Record record : records) {
+				if (!record.name.endsWith("/")) {
+					index.putIfAbsent(record.name, new Location(nestedJar, jar, record));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the data of the entry at the given location.
+	 *
+	 * @param location
+	 *            Entry location.
+	 * @return Entry data.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	private static byte[] read(Location location) throws IOException {
+		return read(location.buffer, location.record);
+	}
+
+	/**
+	 * Reads the data of the given entry of the given ZIP content.
+	 *
+	 * @param zip
+	 *            ZIP content.
+	 * @param record
+	 *            Central directory record of the entry.
+	 * @return Entry data.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	private static byte[] read(ByteBuffer zip, Record record) throws IOException {
+
+		// read raw data
+		byte[] data = new byte[record.compressedSize];
+		ByteBuffer buffer = zip.duplicate();
+		buffer.position(dataOffset(zip, record.offset));
+		buffer.get(data);
+
+		// stored
+		if (record.method == STORED)
+			return data;
+
+		// unsupported compression
+		if (record.method != DEFLATED)
+			throw new IOException("Unsupported compression method for '" + record.name + "'.");
+
+		// inflate
+		Inflater inflater = new Inflater(true);
+		try {
+			inflater.setInput(data);
+			byte[] output = new byte[record.size];
+			int count = 0;
+			while (count < output.length) {
+				int len = inflater.inflate(output, count, output.length - count);
+				if (len == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary()))
+					break;
+				count += len;
+			}
+			if (count != output.length)
+				throw new IOException("Invalid compressed data for '" + record.name + "'.");
+			return output;
+		}
+		catch (DataFormatException e) {
+			throw new IOException("Invalid compressed data for '" + record.name + "'.", e);
+		}
+		finally {
+			inflater.end();
+		}
+	}
+
+	/**
+	 * Returns the offset of the data of the entry with the given local header offset.
+	 *
+	 * @param zip
+	 *            ZIP content.
+	 * @param offset
+	 *            Offset of local header.
+	 * @return Offset of entry data.
+	 */
+	private static int dataOffset(ByteBuffer zip, int offset) {
+		int nameLength = zip.getShort(offset + 26) & 0xffff;
+		int extraLength = zip.getShort(offset + 28) & 0xffff;
+		return offset + 30 + nameLength + extraLength;
+	}
+
+	/**
+	 * Returns a little endian slice of the given buffer.
+	 *
+	 * @param buffer
+	 *            Buffer.
+	 * @param offset
+	 *            Offset of slice.
+	 * @param length
+	 *            Length of slice.
+	 * @return The slice.
+	 */
+	private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+		ByteBuffer duplicate = buffer.duplicate();
+		duplicate.position(offset);
+		duplicate.limit(offset + length);
+		return duplicate.slice().order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Reads the central directory records of the given ZIP content.
+	 *
+	 * @param zip
+	 *            ZIP content (little endian).
+	 * @return Central directory records.
+	 * @throws IOException
+	 *             If the central directory cannot be read, or the content is a ZIP64 archive.
+	 */
+	private static ArrayList<Record> readCentralDirectory(ByteBuffer zip) throws IOException {
+
+		// find end of central directory record
+		int eocd = -1;
+		for (int i = zip.limit() - 22; i >= Math.max(0, zip.limit() - 22 - 0xffff); i--) {
+			if (zip.getInt(i) == END_OF_CENTRAL_DIR) {
+				eocd = i;
+				break;
+			}
+		}
+		if (eocd == -1)
+			throw new IOException("End of central directory not found.");
+
+		// read central directory location
+		int entryCount = zip.getShort(eocd + 10) & 0xffff;
+		long cdOffset = zip.getInt(eocd + 16) & 0xffffffffL;
+		if (entryCount == 0xffff || cdOffset == 0xffffffffL)
+			throw new IOException("ZIP64 archives are not supported.");
+
+		// read records
+		ArrayList<Record> records = new ArrayList<>();
+		int position = (int) cdOffset;
+		for (int i = 0; i < entryCount; i++) {
+			if (zip.getInt(position) != CENTRAL_DIR_HEADER)
+				throw new IOException("Invalid central directory.");
+			int method = zip.getShort(position + 10) & 0xffff;
+			int compressedSize = zip.getInt(position + 20);
+			int size = zip.getInt(position + 24);
+			int nameLength = zip.getShort(position + 28) & 0xffff;
+			int extraLength = zip.getShort(position + 30) & 0xffff;
+			int commentLength = zip.getShort(position + 32) & 0xffff;
+			int offset = zip.getInt(position + 42);
+			byte[] name = new byte[nameLength];
+			ByteBuffer duplicate = zip.duplicate();
+			duplicate.position(position + 46);
+			duplicate.get(name);
+			records.add(new Record(new String(name, StandardCharsets.UTF_8), method, compressedSize, size, offset));
+			position += 46 + nameLength + extraLength + commentLength;
+		}
+		return records;
+	}
+
+	/**
+	 * Inner class for central directory record.
+	 *
+	 * @author Murat Artim
+	 * @date 18 Oct 2026
+	 * @time 22:36:31
+	 */
+	private static class Record {
+
+		/** Entry name. */
+		private final String name;
+
+		/** Compression method, compressed size, uncompressed size and local header offset. */
+		private final int method, compressedSize, size, offset;
+
+		/**
+		 * Creates central directory record.
+		 *
+		 * @param name
+		 *            Entry name.
+		 * @param method
+		 *            Compression method.
+		 * @param compressedSize
+		 *            Compressed size.
+		 * @param size
+		 *            Uncompressed size.
+		 * @param offset
+		 *            Local header offset.
+		 */
+		public Record(String name, int method, int compressedSize, int size, int offset) {
+			this.name = name;
+			this.method = method;
+			this.compressedSize = compressedSize;
+			this.size = size;
+			this.offset = offset;
+		}
+	}
+
+	/**
+	 * Inner class for nested jar.
+	 *
+	 * @author Murat Artim
+	 * @date 18 Oct 2026
+	 * @time 23:42:22
+	 */
+	private static class NestedJar {
+
+		/** Name of the jar (prefixed with archive name). */
+		private final String name;
+
+		/** URL of the jar (inside the archive). */
+		private final URL url;
+
+		/** Code source of the classes of the jar. */
+		private final CodeSource codeSource;
+
+		/** Manifest of the jar (null if the jar has no manifest). */
+		private final Manifest manifest;
+
+		/**
+		 * Creates nested jar.
+		 *
+		 * @param name
+		 *            Name of the jar (prefixed with archive name).
+		 * @param url
+		 *            URL of the jar (inside the archive).
+		 * @param manifest
+		 *            Manifest of the jar (null if the jar has no manifest).
+		 */
+		public NestedJar(String name, URL url, Manifest manifest) {
+			this.name = name;
+			this.url = url;
+			this.manifest = manifest;
+			codeSource = new CodeSource(url, (CodeSigner[]) null);
+		}
+	}
+
+	/**
+	 * Inner class for location of an entry.
+	 *
+	 * @author Murat Artim
+	 * @date 18 Oct 2026
+	 * @time 22:37:14
+	 */
+	private static class Location {
+
+		/** Containing jar. */
+		private final NestedJar jar;
+
+		/** Content of the containing ZIP. */
+		private final ByteBuffer buffer;
+
+		/** Central directory record of the entry. */
+		private final Record record;
+
+		/**
+		 * Creates entry location.
+		 *
+		 * @param jar
+		 *            Containing jar.
+		 * @param buffer
+		 *            Content of the containing ZIP.
+		 * @param record
+		 *            Central directory record of the entry.
+		 */
+		public Location(NestedJar jar, ByteBuffer buffer, Record record) {
+			this.jar = jar;
+			this.buffer = buffer;
+			this.record = record;
+		}
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package container.utility;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import container.utility.ZipExtractor.ExtractionListener;
+
+/**
+ * Interface for archive formats of application resources. Archive formats are looked up with {@link ArchiveFormats}; besides the built-in formats, additional formats can be plugged in as service providers, by listing the implementing classes in a <code>META-INF/services/container.utility.ArchiveFormat</code> file on the class path.
+ * <p>
+ * Implementations must have a public no-argument constructor and be thread safe.
+ *
+ * @author Murat Artim
+ * @date 18 Oct 2026
+ * @time 22:40:33
+ */
+public interface ArchiveFormat {
+
+	/**
+	 * Returns the name of this format (such as <code>tar.gz</code>). Resources select formats by name (see {@link container.data.ApplicationResource#getArchiveFormat()}).
+	 *
+	 * @return The name of this format.
+	 */
+	String getName();
+
+	/**
+	 * Returns the file name extensions of this format (such as <code>.tar.gz</code> and <code>.tgz</code>). These are used to detect the format of resources which don't select a format.
+	 *
+	 * @return The file name extensions of this format (lower case).
+	 */
+	String[] getExtensions();
+
+	/**
+	 * Extracts the given archive stream into the given output directory. The stream is read once from start to end, so it may come directly from a network connection. The stream is not closed.
+	 *
+	 * @param input
+	 *            Archive stream.
+	 * @param outputDir
+	 *            Output directory.
+	 * @param listener
+	 *            Listener of extraction progress (can be null). The total number of entries is not known in advance, so it is passed as -1.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	void extract(InputStream input, Path outputDir, ExtractionListener listener) throws IOException;
+
+	/**
+	 * Extracts the given archive file into the given output directory. By default, the file is extracted as a stream; formats supporting random access may override this.
+	 *
+	 * @param archive
+	 *            Path to archive file.
+	 * @param outputDir
+	 *            Output directory.
+	 * @param listener
+	 *            Listener of extraction progress (can be null).
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	default void extract(Path archive, Path outputDir, ExtractionListener listener) throws IOException {
+		try (InputStream input = new BufferedInputStream(Files.newInputStream(archive), 64 * 1024)) {
+			extract(input, outputDir, listener);
+		}
+	}
+
+	/**
+	 * Extracts the selected entries of the given archive stream. Each entry is extracted to the path given by the entry target, and entries without target are skipped; so, only a few entries can be extracted (e.g. to repair damaged files) without writing the others anywhere. The stream is read once from start to end, and it's not closed.
+	 * <p>
+	 * By default, selecting entries is not supported (the built-in formats support it).
+	 *
+	 * @param input
+	 *            Archive stream.
+	 * @param target
+	 *            Target of entries.
+	 * @param listener
+	 *            Listener of extraction progress (can be null). It's called for extracted entries only.
+	 * @throws IOException
+	 *             If exception occurs during process, or this format doesn't support selecting entries.
+	 */
+	default void extract(InputStream input, EntryTarget target, ExtractionListener listener) throws IOException {
+		throw new IOException("Archive format '" + getName() + "' doesn't support extracting selected entries.");
+	}
+
+	/**
+	 * Interface for targets of archive entries.
+	 *
+	 * @author Murat Artim
+	 * @date 19 Oct 2026
+	 * @time 00:41:26
+	 */
+	@FunctionalInterface
+	interface EntryTarget {
+
+		/**
+		 * Returns the path to extract the given entry to.
+		 *
+		 * @param entryName
+		 *            Entry name.
+		 * @param directory
+		 *            True if the entry is a directory.
+		 * @return The path to extract the given entry to, or null to skip the entry.
+		 * @throws IOException
+		 *             If the entry name is invalid.
+		 */
+		Path getTarget(String entryName, boolean directory) throws IOException;
+	}
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package container.utility;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.logging.Level;
+
+import container.AppContainer;
+import container.data.ApplicationResource;
+
+/**
+ * Registry of archive formats. It contains the built-in formats (<code>zip</code>, <code>tar</code>, <code>tar.gz</code>, <code>tar.xz</code> and <code>tar.zst</code>), followed by the formats plugged in as service providers of {@link ArchiveFormat}.
+ *
+ * @author Murat Artim
+ * @date 18 Oct 2026
+ * @time 22:40:12
+ */
+public final class ArchiveFormats {
+
+	/** Available archive formats. */
+	private static final List<ArchiveFormat> FORMATS = loadFormats();
+
+	/**
+	 * No instantiation allowed.
+	 */
+	private ArchiveFormats() {
+		// no implementation
+	}
+
+	/**
+	 * Returns the available archive formats.
+	 *
+	 * @return The available archive formats.
+	 */
+	public static List<ArchiveFormat> getFormats() {
+		return FORMATS;
+	}
+
+	/**
+	 * Returns the archive format with the given name, or null if no such format is available.
+	 *
+	 * @param name
+	 *            Format name (case insensitive).
+	 * @return The archive format with the given name, or null if no such format is available.
+	 */
+	public static ArchiveFormat get(String name) {
+		for (ArchiveFormat format : FORMATS) {
+			if (format.getName().equalsIgnoreCase(name.trim()))
+				return format;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the archive format of the given file name (i.e. the format with the longest matching extension), or null if the file is not an archive.
+	 *
+	 * @param fileName
+	 *            File name.
+	 * @return The archive format of the given file name, or null if the file is not an archive.
+	 */
+	public static ArchiveFormat detect(String fileName) {
+		String name = fileName.toLowerCase();
+		ArchiveFormat detected = null;
+		int length = 0;
+		for (ArchiveFormat format : FORMATS) {
+			for (String extension : format.getExtensions()) {
+				if (name.endsWith(extension) && extension.length() > length) {
+					detected = format;
+					length = extension.length();
+				}
+			}
+		}
+		return detected;
+	}
+
+	/**
+	 * Returns the archive format of the given resource, or null if the resource is not an archive. The format selected by the resource takes precedence over the format detected from its file name.
+	 *
+	 * @param resource
+	 *            Application resource.
+	 * @return The archive format of the given resource, or null if the resource is not an archive.
+	 * @throws IOException
+	 *             If the format selected by the resource is not available.
+	 */
+	public static ArchiveFormat forResource(ApplicationResource resource) throws IOException {
+
+		// detect from file name
+		String name = resource.getArchiveFormat();
+		if (name == null || name.trim().isEmpty())
+			return detect(resource.toString());
+
+		// get selected format
+		ArchiveFormat format = get(name);
+		if (format == null)
+			throw new IOException("Archive format '" + name + "' of resource '" + resource.toString() + "' is not available.");
+		return format;
+	}
+
+	/**
+	 * Returns the given entry path resolved against the given output directory. Entries are not allowed to escape the output directory. This applies to all relative paths received from the server (such as archive entries, and paths in file indices and delta lists).
+	 *
+	 * @param outputDir
+	 *            Output directory (absolute and normalized).
+	 * @param entryName
+	 *            Entry name.
+	 * @return The resolved entry path.
+	 * @throws IOException
+	 *             If the entry escapes the output directory.
+	 */
+	public static Path resolveEntry(Path outputDir, String entryName) throws IOException {
+		Path file = outputDir.resolve(entryName).normalize();
+		if (!file.startsWith(outputDir))
+			throw new IOException("Invalid entry path '" + entryName + "'.");
+		return file;
+	}
+
+	/**
+	 * Loads the built-in archive formats and the formats plugged in as service providers.
+	 *
+	 * @return The available archive formats.
+	 */
+	private static List<ArchiveFormat> loadFormats() {
+
+		// built-in formats
+		ArrayList<ArchiveFormat> formats = new ArrayList<>();
+		formats.add(new ZipArchiveFormat());
+		formats.add(new TarArchiveFormat());
+		formats.add(new TarGzArchiveFormat());
+		formats.add(new TarXzArchiveFormat());
+		formats.add(new TarZstArchiveFormat());
+
+		// service providers
+		try {
+			for (ArchiveFormat format : ServiceLoader.load(ArchiveFormat.class, ArchiveFormat.class.getClassLoader())) {
+				formats.add(format);
+			}
+		}
+		catch (ServiceConfigurationError e) {
+			AppContainer.LOGGER.log(Level.WARNING, "Exception occurred during loading archive format providers.", e);
+		}
+
+		// return formats
+		return Collections.unmodifiableList(formats);
+	}
+}
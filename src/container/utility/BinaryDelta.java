@@ -0,0 +1,577 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package container.utility;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import container.data.AppManifest;
+import container.data.ApplicationResource;
+
+/**
+ * Utility class for bsdiff-style binary delta patches. Patches are created by publishers from older versions of large files to the current version, and are applied by the container in a single streaming pass over the patch data.
+ * <p>
+ * Patch format: 8 byte magic, new file size (long), followed by deflated records of the form <code>diffLength (long), extraLength (long), seek (long), diff bytes, extra bytes</code>. Diff bytes are added to the bytes of the old file at the current old file position, extra bytes are copied as they are, and the old file position is then moved by the seek value.
+ *
+ * @author Murat Artim
+ * @date 18 Oct 2026
+ * @time 22:08:56
+ */
+public class BinaryDelta {
+
+	/** Manifest section attribute names. */
+	public static final String PATCHES_ATTRIBUTE = "Patches", HASH_ATTRIBUTE = "SHA-256";
+
+	/** Patch file magic. */
+	private static final byte[] MAGIC = "ACBDIFF1".getBytes(StandardCharsets.US_ASCII);
+
+	/** Buffer size. */
+	private static final int BUFSIZE = 65536;
+
+	/**
+	 * Returns the patches to be applied for the given resource, or null if the resource cannot be updated by patches. A resource can be patched only if the remote manifest has a section for each of its files, listing a patch from the installed version of the resource.
+	 * <p>
+	 * Example manifest section: <code>Name: Equinox.jar</code>, <code>SHA-256: &lt;hash of new file&gt;</code>, <code>Patches: 1.4.2=patches/Equinox-1.4.2.patch 1.4.1=patches/Equinox-1.4.1.patch</code>. Patch paths are relative to the manifest location.
+	 *
+	 * @param resource
+	 *            Application resource.
+	 * @param installedManifest
+	 *            Manifest of the installed application.
+	 * @param remoteManifest
+	 *            Remote manifest.
+	 * @return Mapping of file names to relative patch paths, or null if the resource cannot be updated by patches.
+	 */
+	public static HashMap<String, String> findPatches(ApplicationResource resource, AppManifest installedManifest, AppManifest remoteManifest) {
+
+		// manifests don't exist
+		if (installedManifest == null || remoteManifest == null)
+			return null;
+
+		// get installed version of resource
+		String installedVersion = installedManifest.getResourceVersion(resource);
+		if (installedVersion == null)
+			return null;
+
+		// loop over files of resource
+		HashMap<String, String> patches = new HashMap<>();
+		for (String fileName : resource.getFileNames()) {
+
+			// no section or hash for file
+			String patchList = remoteManifest.getSectionAttribute(fileName, PATCHES_ATTRIBUTE);
+			if (remoteManifest.getSectionAttribute(fileName, HASH_ATTRIBUTE) == null || patchList == null)
+				return null;
+
+			// search for patch from installed version
+			String patch = null;
+			for (String item : patchList.trim().split("\\s+")) {
+				int index = item.indexOf('=');
+				if (index > 0 && item.substring(0, index).equals(installedVersion)) {
+					patch = item.substring(index + 1);
+					break;
+				}
+			}
+
+			// no patch
+			if (patch == null)
+				return null;
+			patches.put(fileName, patch);
+		}
+
+		// return patches
+		return patches.isEmpty() ? null : patches;
+	}
+
+	/**
+	 * Returns the expected SHA-256 hash of the given file from the remote manifest, or null if the manifest has no hash for the file.
+	 *
+	 * @param remoteManifest
+	 *            Remote manifest.
+	 * @param fileName
+	 *            File name (manifest section name).
+	 * @return The expected SHA-256 hash of the given file, or null if the manifest has no hash for the file.
+	 */
+	public static String getExpectedHash(AppManifest remoteManifest, String fileName) {
+		return remoteManifest.getSectionAttribute(fileName, HASH_ATTRIBUTE);
+	}
+
+	/**
+	 * Applies the given patch to the old file and writes the new file to the given output stream. The patch is read sequentially, so it can be applied directly while being downloaded.
+	 *
+	 * @param oldFile
+	 *            Path to old file.
+	 * @param patch
+	 *            Patch input stream. This stream is not closed by this method.
+	 * @param output
+	 *            Output stream for the new file. This stream is not closed by this method.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	public static void apply(Path oldFile, InputStream patch, OutputStream output) throws IOException {
+
+		// read header
+		DataInputStream header = new DataInputStream(patch);
+		byte[] magic = new byte[MAGIC.length];
+		header.readFully(magic);
+		if (!Arrays.equals(magic, MAGIC))
+			throw new IOException("Invalid patch file.");
+		long newSize = header.readLong();
+
+		// open old file and patch records
+		try (RandomAccessFile old = new RandomAccessFile(oldFile.toFile(), "r")) {
+			DataInputStream records = new DataInputStream(new BufferedInputStream(new InflaterInputStream(patch), BUFSIZE));
+			byte[] diff = new byte[BUFSIZE], source = new byte[BUFSIZE];
+			long oldLength = old.length(), oldPosition = 0, newPosition = 0;
+
+			// loop over records
+			while (newPosition < newSize) {
+
+				// read control values
+				long diffLength = records.readLong(), extraLength = records.readLong(), seek = records.readLong();
+				if (diffLength < 0 || extraLength < 0 || newPosition + diffLength + extraLength > newSize)
+					throw new IOException("Corrupt patch file.");
+
+				// add diff bytes to old bytes
+				old.seek(oldPosition);
+				for (long remaining = diffLength; remaining > 0;) {
+					int len = (int) Math.min(remaining, BUFSIZE);
+					records.readFully(diff, 0, len);
+					int read = 0;
+					if (oldPosition >= 0 && oldPosition < oldLength) {
+						read = (int) Math.min(len, oldLength - oldPosition);
+						old.readFully(source, 0, read);
+					}
+					for (int i = 0; i < len; i++) {
+						diff[i] += i < read ? source[i] : 0;
+					}
+					output.write(diff, 0, len);
+					oldPosition += len;
+					remaining -= len;
+				}
+
+				// copy extra bytes
+				for (long remaining = extraLength; remaining > 0;) {
+					int len = (int) Math.min(remaining, BUFSIZE);
+					records.readFully(diff, 0, len);
+					output.write(diff, 0, len);
+					remaining -= len;
+				}
+
+				// advance positions
+				newPosition += diffLength + extraLength;
+				oldPosition += seek;
+			}
+		}
+
+		// flush output
+		output.flush();
+	}
+
+	/**
+	 * Creates patch from the old file to the new file. Note that, both files are loaded into memory; this is intended to be run by publishers.
+	 *
+	 * @param oldFile
+	 *            Path to old file.
+	 * @param newFile
+	 *            Path to new file.
+	 * @param patchFile
+	 *            Path to output patch file.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	public static void create(Path oldFile, Path newFile, Path patchFile) throws IOException {
+
+		// read files
+		byte[] oldBytes = Files.readAllBytes(oldFile), newBytes = Files.readAllBytes(newFile);
+		int oldSize = oldBytes.length, newSize = newBytes.length;
+
+		// sort suffixes of old file
+		int[] I = new int[oldSize + 1];
+		qsufsort(I, new int[oldSize + 1], oldBytes);
+
+		// create output stream
+		try (OutputStream file = new BufferedOutputStream(Files.newOutputStream(patchFile), BUFSIZE)) {
+
+			// write header
+			DataOutputStream header = new DataOutputStream(file);
+			header.write(MAGIC);
+			header.writeLong(newSize);
+			header.flush();
+
+			// create records stream
+			Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+			try (DataOutputStream records = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(file, deflater), BUFSIZE))) {
+
+				// compute approximate matches
+				int scan = 0, len = 0, pos = 0, lastScan = 0, lastPos = 0, lastOffset = 0;
+				int[] position = new int[1];
+				while (scan < newSize) {
+					int oldScore = 0;
+					for (int scsc = scan += len; scan < newSize; scan++) {
+						len = search(I, oldBytes, newBytes, scan, 0, oldSize, position);
+						pos = position[0];
+						for (; scsc < scan + len; scsc++) {
+							if (scsc + lastOffset < oldSize && oldBytes[scsc + lastOffset] == newBytes[scsc]) {
+								oldScore++;
+							}
+						}
+						if (len == oldScore && len != 0 || len > oldScore + 8) {
+							break;
+						}
+						if (scan + lastOffset < oldSize && oldBytes[scan + lastOffset] == newBytes[scan]) {
+							oldScore--;
+						}
+					}
+
+					// no new match
+					if (len == oldScore && scan != newSize) {
+						continue;
+					}
+
+					// extend forwards
+					int s = 0, sf = 0, lenf = 0;
+					for (int i = 0; lastScan + i < scan && lastPos + i < oldSize;) {
+						if (oldBytes[lastPos + i] == newBytes[lastScan + i]) {
+							s++;
+						}
+						i++;
+						if (s * 2 - i > sf * 2 - lenf) {
+							sf = s;
+							lenf = i;
+						}
+					}
+
+					// extend backwards
+					int lenb = 0;
+					if (scan < newSize) {
+						s = 0;
+						int sb = 0;
+						for (int i = 1; scan >= lastScan + i && pos >= i; i++) {
+							if (oldBytes[pos - i] == newBytes[scan - i]) {
+								s++;
+							}
+							if (s * 2 - i > sb * 2 - lenb) {
+								sb = s;
+								lenb = i;
+							}
+						}
+					}
+
+					// resolve overlap
+					if (lastScan + lenf > scan - lenb) {
+						int overlap = lastScan + lenf - (scan - lenb);
+						s = 0;
+						int ss = 0, lens = 0;
+						for (int i = 0; i < overlap; i++) {
+							if (newBytes[lastScan + lenf - overlap + i] == oldBytes[lastPos + lenf - overlap + i]) {
+								s++;
+							}
+							if (newBytes[scan - lenb + i] == oldBytes[pos - lenb + i]) {
+								s--;
+							}
+							if (s > ss) {
+								ss = s;
+								lens = i + 1;
+							}
+						}
+						lenf += lens - overlap;
+						lenb -= lens;
+					}
+
+					// write record
+					int extraLength = scan - lenb - (lastScan + lenf);
+					records.writeLong(lenf);
+					records.writeLong(extraLength);
+					records.writeLong(pos - lenb - (lastPos + lenf));
+					for (int i = 0; i < lenf; i++) {
+						records.write(newBytes[lastScan + i] - oldBytes[lastPos + i]);
+					}
+					records.write(newBytes, lastScan + lenf, extraLength);
+
+					// advance
+					lastScan = scan - lenb;
+					lastPos = pos - lenb;
+					lastOffset = pos - scan;
+				}
+			}
+			finally {
+				deflater.end();
+			}
+		}
+	}
+
+	/**
+	 * Sorts the suffixes of the given data (Larsson-Sadakane).
+	 *
+	 * @param I
+	 *            Suffix array to fill.
+	 * @param V
+	 *            Work array.
+	 * @param old
+	 *            Data.
+	 */
+	private static void qsufsort(int[] I, int[] V, byte[] old) {
+		int oldSize = old.length;
+		int[] buckets = new int[256];
+		for (byte b : old) {
+			buckets[b & 0xff]++;
+		}
+		for (int i = 1; i < 256; i++) {
+			buckets[i] += buckets[i - 1];
+		}
+		for (int i = 255; i > 0; i--) {
+			buckets[i] = buckets[i - 1];
+		}
+		buckets[0] = 0;
+		for (int i = 0; i < oldSize; i++) {
+			I[++buckets[old[i] & 0xff]] = i;
+		}
+		I[0] = oldSize;
+		for (int i = 0; i < oldSize; i++) {
+			V[i] = buckets[old[i] & 0xff];
+		}
+		V[oldSize] = 0;
+		for (int i = 1; i < 256; i++) {
+			if (buckets[i] == buckets[i - 1] + 1) {
+				I[buckets[i]] = -1;
+			}
+		}
+		I[0] = -1;
+		for (int h = 1; I[0] != -(oldSize + 1); h += h) {
+			int len = 0, i = 0;
+			while (i < oldSize + 1) {
+				if (I[i] < 0) {
+					len -= I[i];
+					i -= I[i];
+				}
+				else {
+					if (len != 0) {
+						I[i - len] = -len;
+					}
+					len = V[I[i]] + 1 - i;
+					split(I, V, i, len, h);
+					i += len;
+					len = 0;
+				}
+			}
+			if (len != 0) {
+				I[i - len] = -len;
+			}
+		}
+		for (int i = 0; i < oldSize + 1; i++) {
+			I[V[i]] = i;
+		}
+	}
+
+	/**
+	 * Splits the given bucket of the suffix array by the given depth.
+	 *
+	 * @param I
+	 *            Suffix array.
+	 * @param V
+	 *            Work array.
+	 * @param start
+	 *            Start of bucket.
+	 * @param len
+	 *            Length of bucket.
+	 * @param h
+	 *            Sort depth.
+	 */
+	private static void split(int[] I, int[] V, int start, int len, int h) {
+
+		// small bucket (selection sort)
+		if (len < 16) {
+			for (int k = start, j; k < start + len; k += j) {
+				j = 1;
+				int x = V[I[k] + h];
+				for (int i = 1; k + i < start + len; i++) {
+					if (V[I[k + i] + h] < x) {
+						x = V[I[k + i] + h];
+						j = 0;
+					}
+					if (V[I[k + i] + h] == x) {
+						swap(I, k + j, k + i);
+						j++;
+					}
+				}
+				for (int i = 0; i < j; i++) {
+					V[I[k + i]] = k + j - 1;
+				}
+				if (j == 1) {
+					I[k] = -1;
+				}
+			}
+			return;
+		}
+
+		// partition around pivot
+		int x = V[I[start + len / 2] + h], jj = 0, kk = 0;
+		for (int i = start; i < start + len; i++) {
+			if (V[I[i] + h] < x) {
+				jj++;
+			}
+			if (V[I[i] + h] == x) {
+				kk++;
+			}
+		}
+		jj += start;
+		kk += jj;
+		int i = start, j = 0, k = 0;
+		while (i < jj) {
+			if (V[I[i] + h] < x) {
+				i++;
+			}
+			else if (V[I[i] + h] == x) {
+				swap(I, i, jj + j);
+				j++;
+			}
+			else {
+				swap(I, i, kk + k);
+				k++;
+			}
+		}
+		while (jj + j < kk) {
+			if (V[I[jj + j] + h] == x) {
+				j++;
+			}
+			else {
+				swap(I, jj + j, kk + k);
+				k++;
+			}
+		}
+
+		// recurse
+		if (jj > start) {
+			split(I, V, start, jj - start, h);
+		}
+		for (i = 0; i < kk - jj; i++) {
+			V[I[jj + i]] = kk - 1;
+		}
+		if (jj == kk - 1) {
+			I[jj] = -1;
+		}
+		if (start + len > kk) {
+			split(I, V, kk, start + len - kk, h);
+		}
+	}
+
+	/**
+	 * Swaps array elements.
+	 *
+	 * @param array
+	 *            Array.
+	 * @param i
+	 *            First index.
+	 * @param j
+	 *            Second index.
+	 */
+	private static void swap(int[] array, int i, int j) {
+		int tmp = array[i];
+		array[i] = array[j];
+		array[j] = tmp;
+	}
+
+	/**
+	 * Searches the suffix array for the longest match of the new data at the given position.
+	 *
+	 * @param I
+	 *            Suffix array.
+	 * @param old
+	 *            Old data.
+	 * @param data
+	 *            New data.
+	 * @param offset
+	 *            Position in new data.
+	 * @param st
+	 *            Search start.
+	 * @param en
+	 *            Search end.
+	 * @param pos
+	 *            Array to store the position of the match in the old data.
+	 * @return Length of the match.
+	 */
+	private static int search(int[] I, byte[] old, byte[] data, int offset, int st, int en, int[] pos) {
+		while (en - st >= 2) {
+			int x = st + (en - st) / 2;
+			if (compare(old, I[x], data, offset) < 0) {
+				st = x;
+			}
+			else {
+				en = x;
+			}
+		}
+		int x = matchLength(old, I[st], data, offset), y = matchLength(old, I[en], data, offset);
+		pos[0] = x > y ? I[st] : I[en];
+		return Math.max(x, y);
+	}
+
+	/**
+	 * Returns the length of the common prefix of the given old and new data positions.
+	 *
+	 * @param old
+	 *            Old data.
+	 * @param oldOffset
+	 *            Position in old data.
+	 * @param data
+	 *            New data.
+	 * @param offset
+	 *            Position in new data.
+	 * @return The length of the common prefix.
+	 */
+	private static int matchLength(byte[] old, int oldOffset, byte[] data, int offset) {
+		int i = 0;
+		while (oldOffset + i < old.length && offset + i < data.length && old[oldOffset + i] == data[offset + i]) {
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * Compares the given old and new data positions as unsigned bytes, up to the length of the shorter one.
+	 *
+	 * @param old
+	 *            Old data.
+	 * @param oldOffset
+	 *            Position in old data.
+	 * @param data
+	 *            New data.
+	 * @param offset
+	 *            Position in new data.
+	 * @return A negative integer, zero, or a positive integer as the old data is less than, equal to, or greater than the new data.
+	 */
+	private static int compare(byte[] old, int oldOffset, byte[] data, int offset) {
+		int len = Math.min(old.length - oldOffset, data.length - offset);
+		for (int i = 0; i < len; i++) {
+			int comparison = (old[oldOffset + i] & 0xff) - (data[offset + i] & 0xff);
+			if (comparison != 0)
+				return comparison;
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,359 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package container.utility;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Class for zsync-style block checksum map of an archive. Publishers create the block map of each archive and upload it next to the archive (with <code>.blockmap</code> extension). The container then scans its existing copy of the archive with a rolling checksum, reuses every matching block and fetches only the missing blocks from the server.
+ * <p>
+ * File format: 8 byte magic, file length (long), block size (int), SHA-256 of the file (32 bytes), followed by rolling checksum (int) and MD5 checksum (16 bytes) of each block.
+ *
+ * @author Murat Artim
+ * @date 18 Oct 2026
+ * @time 22:11:40
+ */
+public class BlockMap {
+
+	/** Extension of block map files. */
+	public static final String EXTENSION = ".blockmap";
+
+	/** Default block size. */
+	public static final int DEFAULT_BLOCK_SIZE = 4096;
+
+	/** Size of the windows the old file is mapped in. */
+	private static final long WINDOW_SIZE = 64L * 1024L * 1024L;
+
+	/** Block map file magic. */
+	private static final byte[] MAGIC = "ACBMAP01".getBytes(StandardCharsets.US_ASCII);
+
+	/** File length. */
+	private final long fileLength;
+
+	/** Block size. */
+	private final int blockSize;
+
+	/** SHA-256 of the file. */
+	private final byte[] fileHash;
+
+	/** Rolling checksums of blocks. */
+	private final int[] weak;
+
+	/** MD5 checksums of blocks. */
+	private final byte[][] strong;
+
+	/**
+	 * Creates block map.
+	 *
+	 * @param fileLength
+	 *            File length.
+	 * @param blockSize
+	 *            Block size.
+	 * @param fileHash
+	 *            SHA-256 of the file.
+	 * @param weak
+	 *            Rolling checksums of blocks.
+	 * @param strong
+	 *            MD5 checksums of blocks.
+	 */
+	private BlockMap(long fileLength, int blockSize, byte[] fileHash, int[] weak, byte[][] strong) {
+		this.fileLength = fileLength;
+		this.blockSize = blockSize;
+		this.fileHash = fileHash;
+		this.weak = weak;
+		this.strong = strong;
+	}
+
+	/**
+	 * Returns the file length.
+	 *
+	 * @return The file length.
+	 */
+	public long getFileLength() {
+		return fileLength;
+	}
+
+	/**
+	 * Returns the block size.
+	 *
+	 * @return The block size.
+	 */
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	/**
+	 * Returns the number of blocks.
+	 *
+	 * @return The number of blocks.
+	 */
+	public int getBlockCount() {
+		return weak.length;
+	}
+
+	/**
+	 * Returns the SHA-256 of the file as lower case hexadecimal string.
+	 *
+	 * @return The SHA-256 of the file.
+	 */
+	public String getFileHash() {
+		return Utility.toHexString(fileHash);
+	}
+
+	/**
+	 * Returns the offset of the given block in the file.
+	 *
+	 * @param block
+	 *            Block index.
+	 * @return The offset of the given block in the file.
+	 */
+	public long getBlockOffset(int block) {
+		return (long) block * blockSize;
+	}
+
+	/**
+	 * Returns the length of the given block (the last block can be shorter than the block size).
+	 *
+	 * @param block
+	 *            Block index.
+	 * @return The length of the given block.
+	 */
+	public int getBlockLength(int block) {
+		return (int) Math.min(blockSize, fileLength - getBlockOffset(block));
+	}
+
+	/**
+	 * Scans the given old file with a rolling checksum, and returns the offsets of the matching blocks in the old file.
+	 *
+	 * @param oldFile
+	 *            Path to old file.
+	 * @return Array containing the offset of each block in the old file, or -1 if the block couldn't be found in the old file.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public long[] match(Path oldFile) throws Exception {
+
+		// initialize offsets
+		long[] offsets = new long[weak.length];
+		Arrays.fill(offsets, -1L);
+
+		// build checksum lookup table (last block is matched only if it's full)
+		HashMap<Integer, ArrayList<Integer>> table = new HashMap<>();
+		for (int i = 0; i < weak.length; i++) {
+			if (getBlockLength(i) == blockSize) {
+				table.computeIfAbsent(weak[i], k -> new ArrayList<>(1)).add(i);
+			}
+		}
+
+		// map old file (in windows overlapping by a block, since files can be larger than a mapped buffer)
+		try (FileChannel channel = FileChannel.open(oldFile, StandardOpenOption.READ)) {
+			long n = channel.size();
+			if (n < blockSize || table.isEmpty())
+				return offsets;
+			long windowSize = Math.min(Math.max(WINDOW_SIZE, 2L * blockSize + 1L), Integer.MAX_VALUE);
+			long start = 0;
+			MappedByteBuffer old = channel.map(MapMode.READ_ONLY, start, Math.min(windowSize, n));
+			MessageDigest md5 = MessageDigest.getInstance("MD5");
+			byte[] window = new byte[blockSize];
+
+			// compute initial checksum
+			int[] ab = checksum(old, 0, blockSize);
+			int a = ab[0], b = ab[1];
+
+			// scan
+			long pos = 0;
+			while (pos + blockSize <= n) {
+
+				// map next window (current block and the byte following it must be in the window)
+				if (pos + blockSize >= start + old.limit() && start + old.limit() < n) {
+					start = pos;
+					old = channel.map(MapMode.READ_ONLY, start, Math.min(windowSize, n - start));
+				}
+				int rel = (int) (pos - start);
+
+				// look up rolling checksum
+				ArrayList<Integer> candidates = table.get(a & 0xffff | b << 16);
+				if (candidates != null) {
+
+					// compute strong checksum
+					for (int i = 0; i < blockSize; i++) {
+						window[i] = old.get(rel + i);
+					}
+					byte[] digest = md5.digest(window);
+
+					// search candidates
+					boolean matched = false;
+					for (int block : candidates) {
+						if (Arrays.equals(strong[block], digest)) {
+							if (offsets[block] == -1L) {
+								offsets[block] = pos;
+							}
+							matched = true;
+						}
+					}
+
+					// matched (skip block)
+					if (matched) {
+						pos += blockSize;
+						if (pos + blockSize <= n) {
+							if (pos + blockSize > start + old.limit()) {
+								start = pos;
+								old = channel.map(MapMode.READ_ONLY, start, Math.min(windowSize, n - start));
+							}
+							ab = checksum(old, (int) (pos - start), blockSize);
+							a = ab[0];
+							b = ab[1];
+						}
+						continue;
+					}
+				}
+
+				// roll checksum by one byte
+				if (pos + blockSize < n) {
+					int out = old.get(rel) & 0xff, in = old.get(rel + blockSize) & 0xff;
+					a += in - out;
+					b += a - blockSize * out;
+				}
+				pos++;
+			}
+		}
+
+		// return offsets
+		return offsets;
+	}
+
+	/**
+	 * Computes rolling checksum components of the given data.
+	 *
+	 * @param data
+	 *            Data buffer.
+	 * @param offset
+	 *            Offset of data.
+	 * @param length
+	 *            Length of data.
+	 * @return Array containing the two components of the rolling checksum.
+	 */
+	private static int[] checksum(ByteBuffer data, int offset, int length) {
+		int a = 0, b = 0;
+		for (int i = 0; i < length; i++) {
+			int x = data.get(offset + i) & 0xff;
+			a += x;
+			b += (length - i) * x;
+		}
+		return new int[] { a, b };
+	}
+
+	/**
+	 * Reads block map from the given file.
+	 *
+	 * @param mapFile
+	 *            Path to block map file.
+	 * @return The block map.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	public static BlockMap read(Path mapFile) throws IOException {
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(mapFile)))) {
+
+			// read header
+			byte[] magic = new byte[MAGIC.length];
+			input.readFully(magic);
+			if (!Arrays.equals(magic, MAGIC))
+				throw new IOException("Invalid block map file.");
+			long fileLength = input.readLong();
+			int blockSize = input.readInt();
+			byte[] fileHash = new byte[32];
+			input.readFully(fileHash);
+
+			// read block checksums
+			int blockCount = (int) ((fileLength + blockSize - 1) / blockSize);
+			int[] weak = new int[blockCount];
+			byte[][] strong = new byte[blockCount][16];
+			for (int i = 0; i < blockCount; i++) {
+				weak[i] = input.readInt();
+				input.readFully(strong[i]);
+			}
+
+			// create block map
+			return new BlockMap(fileLength, blockSize, fileHash, weak, strong);
+		}
+	}
+
+	/**
+	 * Creates the block map of the given file.
+	 *
+	 * @param file
+	 *            Path to file.
+	 * @param mapFile
+	 *            Path to output block map file.
+	 * @param blockSize
+	 *            Block size.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public static void create(Path file, Path mapFile, int blockSize) throws Exception {
+
+		// create digests
+		MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+		MessageDigest md5 = MessageDigest.getInstance("MD5");
+		long fileLength = Files.size(file);
+
+		// create block checksums
+		int blockCount = (int) ((fileLength + blockSize - 1) / blockSize);
+		int[] weak = new int[blockCount];
+		byte[][] strong = new byte[blockCount][];
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			byte[] block = new byte[blockSize];
+			for (int i = 0; i < blockCount; i++) {
+				int len = (int) Math.min(blockSize, fileLength - (long) i * blockSize);
+				input.readFully(block, 0, len);
+				sha256.update(block, 0, len);
+				int[] ab = checksum(ByteBuffer.wrap(block), 0, len);
+				weak[i] = ab[0] & 0xffff | ab[1] << 16;
+				md5.update(block, 0, len);
+				strong[i] = md5.digest();
+			}
+		}
+
+		// write block map
+		try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(mapFile)))) {
+			output.write(MAGIC);
+			output.writeLong(fileLength);
+			output.writeInt(blockSize);
+			output.write(sha256.digest());
+			for (int i = 0; i < blockCount; i++) {
+				output.writeInt(weak[i]);
+				output.write(strong[i]);
+			}
+		}
+	}
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package container.utility;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+
+import container.AppContainer;
+import container.data.AppManifest;
+
+/**
+ * Utility class for application class data sharing (AppCDS). The embedded application is loaded into the JVM of the container; so its classes can only be shared through the JVM options of the native launcher, which are given in the launch configuration file (.cfg) of the container. For each installed application version (identified by the hash of its manifest), the first launch records a dynamic archive of the loaded classes when the JVM exits (<code>-XX:ArchiveClassesAtExit</code>), and later launches map the archive (<code>-XX:SharedArchiveFile</code>). Archives are kept in the archive cache directory; archives of other versions are deleted.
+ * <p>
+ * Dynamic archives (which include classes of custom class loaders, such as the application class loader) require a Java 13 or later runtime. With older runtimes (e.g. Java 8, where AppCDS is a commercial feature limited to the class path), nothing is done. The JVM validates archives when they are mapped, and ignores mismatching archives.
+ *
+ * @author Murat Artim
+ * @date 18 Oct 2026
+ * @time 23:16:25
+ */
+public final class ClassDataSharing {
+
+	/** Name prefix and extension of archive files (in archive cache directory). */
+	private static final String PREFIX = "app-", EXTENSION = ".jsa";
+
+	/** JVM options for recording and using archives. */
+	private static final String RECORD_OPTION = "-XX:ArchiveClassesAtExit=", SHARE_OPTION = "-XX:SharedArchiveFile=";
+
+	/** JVM options sections of launch configuration files (javapackager and jpackage formats). */
+	private static final String JVM_OPTIONS = "[JVMOptions]", JAVA_OPTIONS = "[JavaOptions]";
+
+	/** Option key of jpackage launch configuration files. */
+	private static final String JAVA_OPTION_KEY = "java-options=";
+
+	/** Minimum Java version supporting dynamic archives. */
+	private static final int MIN_JAVA_VERSION = 13;
+
+	/**
+	 * No instantiation allowed.
+	 */
+	private ClassDataSharing() {
+		// no implementation
+	}
+
+	/**
+	 * Configures class data sharing for the next launches of the given installed application version. The launch configuration file is updated to use the archive of the version if it's recorded, or to record it otherwise. Archives of other versions are deleted.
+	 *
+	 * @param manifest
+	 *            Installed application manifest.
+	 */
+	public static void configure(AppManifest manifest) {
+
+		// not supported
+		if (!isSupported() || manifest == null)
+			return;
+
+		try {
+
+			// set launch option
+			Path archive = AppContainer.CACHE_DIR.resolve(PREFIX + manifest.getSHA256().substring(0, 16) + EXTENSION);
+			boolean recorded = Files.exists(archive) && Files.size(archive) > 0;
+			if (setOption((recorded ? SHARE_OPTION : RECORD_OPTION) + archive.toAbsolutePath())) {
+				AppContainer.LOGGER.info(recorded ? "Class data sharing archive will be used at next launch." : "Class data sharing archive will be recorded at next launch.");
+			}
+
+			// delete archives of other versions
+			try (DirectoryStream<Path> dirStream = Files.newDirectoryStream(AppContainer.CACHE_DIR, PREFIX + "*" + EXTENSION)) {
+				for (Path path : dirStream) {
+					if (!path.equals(archive)) {
+						deleteArchive(path);
+					}
+				}
+			}
+		}
+
+		// exception occurred
+		catch (Exception e) {
+			AppContainer.LOGGER.log(Level.WARNING, "Class data sharing could not be configured.", e);
+		}
+	}
+
+	/**
+	 * Removes the class data sharing options from the launch configuration file. This is called when a new application version is found; the archive of the installed version is kept (it's used again if the update is skipped).
+	 */
+	public static void invalidate() {
+		if (!isSupported())
+			return;
+		try {
+			if (setOption(null)) {
+				AppContainer.LOGGER.info("Class data sharing archive invalidated.");
+			}
+		}
+		catch (IOException e) {
+			AppContainer.LOGGER.log(Level.WARNING, "Class data sharing archive could not be invalidated.", e);
+		}
+	}
+
+	/**
+	 * Returns true if class data sharing can be configured (i.e. the container is started by a native launcher with a Java 13 or later runtime).
+	 *
+	 * @return True if class data sharing can be configured.
+	 */
+	private static boolean isSupported() {
+
+		// not started by native launcher
+		if (AppContainer.CONFIG_FILE == null || !Files.isRegularFile(AppContainer.CONFIG_FILE))
+			return false;
+
+		// runtime doesn't support dynamic archives
+		String version = System.getProperty("java.specification.version", "1.8");
+		try {
+			if ((version.startsWith("1.") ? 8 : Integer.parseInt(version)) >= MIN_JAVA_VERSION)
+				return true;
+		}
+		catch (NumberFormatException e) {
+			// unknown version
+		}
+		AppContainer.LOGGER.fine("Class data sharing is not configured. Java " + MIN_JAVA_VERSION + " or later is required for dynamic archives, runtime version is " + version + ".");
+		return false;
+	}
+
+	/**
+	 * Replaces the class data sharing option in the JVM options of the launch configuration file. The file is rewritten only if the option changes.
+	 *
+	 * @param option
+	 *            New option, or null to remove the option.
+	 * @return True if the launch configuration file is changed.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	private static boolean setOption(String option) throws IOException {
+
+		// read launch configuration file
+		List<String> lines = Files.readAllLines(AppContainer.CONFIG_FILE, StandardCharsets.UTF_8);
+
+		// find JVM options section
+		int section = -1;
+		boolean jpackage = false;
+		for (int i = 0; i < lines.size(); i++) {
+			String line = lines.get(i).trim();
+			if (line.equals(JVM_OPTIONS) || line.equals(JAVA_OPTIONS)) {
+				section = i;
+				jpackage = line.equals(JAVA_OPTIONS);
+				break;
+			}
+		}
+
+		// no JVM options section (add one, in javapackager format)
+		ArrayList<String> updated = new ArrayList<>(lines);
+		if (section < 0) {
+			if (option == null)
+				return false;
+			updated.add(JVM_OPTIONS);
+			section = updated.size() - 1;
+		}
+
+		// remove existing options (up to the next section)
+		int end = section + 1;
+		while (end < updated.size() && !updated.get(end).trim().startsWith("[")) {
+			String line = updated.get(end).trim();
+			if (line.contains(RECORD_OPTION) || line.contains(SHARE_OPTION)) {
+				updated.remove(end);
+				continue;
+			}
+			end++;
+		}
+
+		// add new option
+		if (option != null) {
+			updated.add(section + 1, jpackage ? JAVA_OPTION_KEY + option : option);
+		}
+
+		// not changed
+		if (updated.equals(lines))
+			return false;
+
+		// write launch configuration file
+		Path temp = AppContainer.TEMP_DIR.resolve(AppContainer.CONFIG_FILE.getFileName().toString());
+		Files.write(temp, updated, StandardCharsets.UTF_8);
+		Files.move(temp, AppContainer.CONFIG_FILE, StandardCopyOption.REPLACE_EXISTING);
+		return true;
+	}
+
+	/**
+	 * Deletes the given archive. Archives mapped by the running JVM may not be deleted on some platforms; they are deleted at a later start.
+	 *
+	 * @param archive
+	 *            Archive to delete.
+	 */
+	private static void deleteArchive(Path archive) {
+		try {
+			Trash.delete(archive);
+			AppContainer.LOGGER.info("Outdated class data sharing archive '" + archive.getFileName() + "' deleted.");
+		}
+		catch (IOException e) {
+			AppContainer.LOGGER.log(Level.FINE, "Outdated class data sharing archive '" + archive.getFileName() + "' could not be deleted.", e);
+		}
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package container.utility;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+import container.AppContainer;
+
+/**
+ * Utility class for preloading the classes of the embedded application. The classes loaded by the application until its <code>start</code> method returns (i.e. until its first frame is shown) are recorded into a class list in the application directory (so, the list is recorded once for each installed version, see {@link AppSlots}). At later starts, the listed classes are loaded in parallel on background threads, while the application is started; so they are not loaded one at a time on the application thread. The launch doesn't wait for preloading.
+ * <p>
+ * Classes are loaded without initialization, since static initializers of application classes may depend on the application being started.
+ *
+ * @author Murat Artim
+ * @date 18 Oct 2026
+ * @time 23:18:44
+ */
+public final class ClassPreloader {
+
+	/** Name of the class list file (in application directory). */
+	public static final String FILE_NAME = "classes.preload";
+
+	/** Number of preloading threads. */
+	private static final int THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+	/**
+	 * No instantiation allowed.
+	 */
+	private ClassPreloader() {
+		// no implementation
+	}
+
+	/**
+	 * Starts preloading the recorded classes of the given application directory in the background. If no classes are recorded yet, the classes loaded from now on are recorded instead, until {@link #stop(IndexedClassLoader, Path)} is called.
+	 *
+	 * @param loader
+	 *            Application class loader.
+	 * @param appDir
+	 *            Application directory.
+	 */
+	public static void start(IndexedClassLoader loader, Path appDir) {
+
+		// no class list (record classes)
+		Path classList = appDir.resolve(FILE_NAME);
+		if (!Files.exists(classList)) {
+			loader.startRecording();
+			return;
+		}
+
+		// read class list
+		List<String> classNames;
+		try {
+			classNames = Files.readAllLines(classList, StandardCharsets.UTF_8);
+		}
+		catch (IOException e) {
+			AppContainer.LOGGER.log(Level.WARNING, "Class list could not be read.", e);
+			return;
+		}
+
+		// load classes in parallel (each thread takes the next class in list order)
+		AtomicInteger next = new AtomicInteger();
+		CompletableFuture<?>[] tasks = new CompletableFuture<?>[THREADS];
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < THREADS; i++) {
+			CompletableFuture<Void> task = new CompletableFuture<>();
+			Thread thread = new Thread(() -> {
+				for (int j = next.getAndIncrement(); j < classNames.size(); j = next.getAndIncrement()) {
+					try {
+						Class.forName(classNames.get(j), false, loader);
+					}
+					catch (ClassNotFoundException | LinkageError e) {
+						// class removed or invalid (application will fail the same way, if it ever loads it)
+					}
+				}
+				task.complete(null);
+			}, "ClassPreloader");
+			thread.setDaemon(true);
+			thread.start();
+			tasks[i] = task;
+		}
+		CompletableFuture.allOf(tasks).thenRun(() -> AppContainer.LOGGER.info(classNames.size() + " classes preloaded in " + (System.currentTimeMillis() - start) + " ms."));
+	}
+
+	/**
+	 * Stops recording the classes of the given class loader (if they are being recorded), and writes them into the class list of the given application directory in the background. This is called when the application has shown its first frame, so only the classes needed until then are preloaded at later starts.
+	 *
+	 * @param loader
+	 *            Application class loader.
+	 * @param appDir
+	 *            Application directory.
+	 */
+	public static void stop(IndexedClassLoader loader, Path appDir) {
+
+		// not recording
+		List<String> classNames = loader.stopRecording();
+		if (classNames == null)
+			return;
+
+		// write class list
+		Path classList = appDir.resolve(FILE_NAME);
+		Thread thread = new Thread(() -> {
+			try {
+				Path temp = classList.resolveSibling(FILE_NAME + ".tmp");
+				Files.write(temp, classNames, StandardCharsets.UTF_8);
+				Files.move(temp, classList, StandardCopyOption.REPLACE_EXISTING);
+				AppContainer.LOGGER.info(classNames.size() + " classes loaded until first frame recorded for preloading.");
+			}
+			catch (IOException e) {
+				AppContainer.LOGGER.log(Level.WARNING, "Classes loaded at startup could not be recorded.", e);
+			}
+		}, "ClassRecorder");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+	}
+}
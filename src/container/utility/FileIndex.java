@@ -0,0 +1,415 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package container.utility;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Utility class for per-file content index. The index is a UTF-8 text file with one line per file, in the form <code>hash&lt;TAB&gt;size&lt;TAB&gt;relative/path</code>. Lines are sorted by path (see {@link #comparePaths(String, String)}) so that two indices can be compared in a single streaming pass without loading either of them into memory.
+ *
+ * @author Murat Artim
+ * @date 18 Oct 2026
+ * @time 22:06:13
+ */
+public class FileIndex {
+
+	/** Name of the index file. */
+	public static final String FILE_NAME = "INDEX";
+
+	/** Header line of the index file. */
+	private static final String HEADER = "#FileIndex 1";
+
+	/**
+	 * Creates the file index of the given files under the given root directory. Directories are walked recursively.
+	 *
+	 * @param rootDir
+	 *            Root directory. Paths in the index are relative to this directory.
+	 * @param fileNames
+	 *            Names of files or directories (relative to root directory) to include. Null can be given to include all files under the root directory.
+	 * @param indexFile
+	 *            Path to output index file.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public static void create(Path rootDir, List<String> fileNames, Path indexFile) throws Exception {
+
+		// sort top level names
+		ArrayList<String> names = new ArrayList<>();
+		if (fileNames == null) {
+			names.addAll(listSorted(rootDir));
+		}
+		else {
+			names.addAll(fileNames);
+			Collections.sort(names, FileIndex::comparePaths);
+		}
+
+		// write index
+		try (BufferedWriter writer = Files.newBufferedWriter(indexFile, StandardCharsets.UTF_8)) {
+			writer.write(HEADER);
+			writer.newLine();
+			for (String name : names) {
+				write(rootDir, name, writer);
+			}
+		}
+	}
+
+	/**
+	 * Returns true if the given index contains any entry for the given file names.
+	 *
+	 * @param indexFile
+	 *            Path to index file.
+	 * @param fileNames
+	 *            File or directory names to search for.
+	 * @return True if the given index contains any entry for the given file names.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	public static boolean covers(Path indexFile, List<String> fileNames) throws IOException {
+
+		// no index
+		if (indexFile == null || !Files.exists(indexFile))
+			return false;
+
+		// search entries
+		try (Reader reader = new Reader(indexFile)) {
+			Entry entry;
+			while ((entry = reader.next()) != null) {
+				if (entry.belongsTo(fileNames))
+					return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Compares the given old and new indices in a single pass, and reports the differences to the given listener. Only entries belonging to the given file names are considered.
+	 *
+	 * @param oldIndex
+	 *            Path to old (installed) index file.
+	 * @param newIndex
+	 *            Path to new (remote) index file.
+	 * @param fileNames
+	 *            File or directory names to compare.
+	 * @param listener
+	 *            Listener to report the differences.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public static void diff(Path oldIndex, Path newIndex, List<String> fileNames, DiffListener listener) throws Exception {
+
+		// open indices
+		try (Reader oldReader = new Reader(oldIndex); Reader newReader = new Reader(newIndex)) {
+
+			// merge entries
+			Entry oldEntry = oldReader.next(fileNames), newEntry = newReader.next(fileNames);
+			while (oldEntry != null || newEntry != null) {
+
+				// compare paths
+				int comparison = oldEntry == null ? 1 : newEntry == null ? -1 : comparePaths(oldEntry.path, newEntry.path);
+
+				// removed file
+				if (comparison < 0) {
+					listener.removed(oldEntry);
+					oldEntry = oldReader.next(fileNames);
+				}
+
+				// new file
+				else if (comparison > 0) {
+					listener.changed(newEntry);
+					newEntry = newReader.next(fileNames);
+				}
+
+				// same file
+				else {
+					if (oldEntry.size != newEntry.size || !oldEntry.hash.equals(newEntry.hash)) {
+						listener.changed(newEntry);
+					}
+					oldEntry = oldReader.next(fileNames);
+					newEntry = newReader.next(fileNames);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Compares given relative paths segment by segment. This is the sort order of the index files.
+	 *
+	 * @param path1
+	 *            First path.
+	 * @param path2
+	 *            Second path.
+	 * @return A negative integer, zero, or a positive integer as the first path is less than, equal to, or greater than the second.
+	 */
+	public static int comparePaths(String path1, String path2) {
+		int i1 = 0, i2 = 0;
+		while (i1 < path1.length() && i2 < path2.length()) {
+			int end1 = path1.indexOf('/', i1), end2 = path2.indexOf('/', i2);
+			end1 = end1 == -1 ? path1.length() : end1;
+			end2 = end2 == -1 ? path2.length() : end2;
+			int comparison = path1.substring(i1, end1).compareTo(path2.substring(i2, end2));
+			if (comparison != 0)
+				return comparison;
+			i1 = end1 + 1;
+			i2 = end2 + 1;
+		}
+		return Integer.compare(path1.length() - i1, path2.length() - i2);
+	}
+
+	/**
+	 * Writes index entries of the given file recursively.
+	 *
+	 * @param rootDir
+	 *            Root directory.
+	 * @param relativePath
+	 *            Relative path of file to write.
+	 * @param writer
+	 *            Index writer.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private static void write(Path rootDir, String relativePath, BufferedWriter writer) throws Exception {
+
+		// file doesn't exist
+		Path file = rootDir.resolve(relativePath);
+		if (!Files.exists(file) || Files.isHidden(file))
+			return;
+
+		// directory
+		if (Files.isDirectory(file)) {
+			for (String name : listSorted(file)) {
+				write(rootDir, relativePath + "/" + name, writer);
+			}
+			return;
+		}
+
+		// file
+		writer.write(Utility.getSHA256(file) + "\t" + Files.size(file) + "\t" + relativePath);
+		writer.newLine();
+	}
+
+	/**
+	 * Returns sorted names of files within the given directory.
+	 *
+	 * @param directory
+	 *            Directory.
+	 * @return Sorted names of files within the given directory.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	private static ArrayList<String> listSorted(Path directory) throws IOException {
+		ArrayList<String> names = new ArrayList<>();
+		try (DirectoryStream<Path> dirStream = Files.newDirectoryStream(directory)) {
+			for (Path path : dirStream) {
+				Path fileName = path.getFileName();
+				if (fileName != null) {
+					names.add(fileName.toString());
+				}
+			}
+		}
+		Collections.sort(names);
+		return names;
+	}
+
+	/**
+	 * Class for file index entry.
+	 *
+	 * @author Murat Artim
+	 * @date 18 Oct 2026
+	 * @time 22:07:03
+	 */
+	public static class Entry {
+
+		/** Relative path of file. */
+		private final String path;
+
+		/** Hash of file content. */
+		private final String hash;
+
+		/** File size. */
+		private final long size;
+
+		/**
+		 * Creates file index entry.
+		 *
+		 * @param path
+		 *            Relative path of file.
+		 * @param hash
+		 *            Hash of file content.
+		 * @param size
+		 *            File size.
+		 */
+		public Entry(String path, String hash, long size) {
+			this.path = path;
+			this.hash = hash;
+			this.size = size;
+		}
+
+		/**
+		 * Returns the relative path of file.
+		 *
+		 * @return The relative path of file.
+		 */
+		public String getPath() {
+			return path;
+		}
+
+		/**
+		 * Returns the hash of file content.
+		 *
+		 * @return The hash of file content.
+		 */
+		public String getHash() {
+			return hash;
+		}
+
+		/**
+		 * Returns the file size.
+		 *
+		 * @return The file size.
+		 */
+		public long getSize() {
+			return size;
+		}
+
+		/**
+		 * Returns true if this entry is one of, or is located under one of the given file names.
+		 *
+		 * @param fileNames
+		 *            File or directory names.
+		 * @return True if this entry is one of, or is located under one of the given file names.
+		 */
+		public boolean belongsTo(List<String> fileNames) {
+			for (String fileName : fileNames) {
+				if (path.equals(fileName) || path.startsWith(fileName + "/"))
+					return true;
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Interface for file index difference listener.
+	 *
+	 * @author Murat Artim
+	 * @date 18 Oct 2026
+	 * @time 22:07:50
+	 */
+	public interface DiffListener {
+
+		/**
+		 * Called for each new or changed file.
+		 *
+		 * @param entry
+		 *            New index entry.
+		 * @throws Exception
+		 *             If exception occurs during process.
+		 */
+		void changed(Entry entry) throws Exception;
+
+		/**
+		 * Called for each removed file.
+		 *
+		 * @param entry
+		 *            Old index entry.
+		 * @throws Exception
+		 *             If exception occurs during process.
+		 */
+		void removed(Entry entry) throws Exception;
+	}
+
+	/**
+	 * Class for sequential index file reader.
+	 *
+	 * @author Murat Artim
+	 * @date 18 Oct 2026
+	 * @time 22:08:50
+	 */
+	public static class Reader implements Closeable {
+
+		/** Buffered reader. */
+		private final BufferedReader reader;
+
+		/**
+		 * Creates index file reader.
+		 *
+		 * @param indexFile
+		 *            Path to index file.
+		 * @throws IOException
+		 *             If exception occurs during process.
+		 */
+		public Reader(Path indexFile) throws IOException {
+			reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8);
+		}
+
+		/**
+		 * Returns the next entry, or null if end of index is reached.
+		 *
+		 * @return The next entry, or null if end of index is reached.
+		 * @throws IOException
+		 *             If exception occurs during process.
+		 */
+		public Entry next() throws IOException {
+			String line;
+			while ((line = reader.readLine()) != null) {
+
+				// header, comment or empty line
+				if (line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+
+				// parse entry
+				int tab1 = line.indexOf('\t'), tab2 = line.indexOf('\t', tab1 + 1);
+				if (tab1 == -1 || tab2 == -1)
+					throw new IOException("Invalid file index entry: " + line);
+				return new Entry(line.substring(tab2 + 1), line.substring(0, tab1), Long.parseLong(line.substring(tab1 + 1, tab2)));
+			}
+			return null;
+		}
+
+		/**
+		 * Returns the next entry belonging to the given file names, or null if end of index is reached.
+		 *
+		 * @param fileNames
+		 *            File or directory names.
+		 * @return The next entry belonging to the given file names, or null if end of index is reached.
+		 * @throws IOException
+		 *             If exception occurs during process.
+		 */
+		public Entry next(List<String> fileNames) throws IOException {
+			Entry entry;
+			while ((entry = next()) != null) {
+				if (entry.belongsTo(fileNames))
+					return entry;
+			}
+			return null;
+		}
+
+		@Override
+		public void close() throws IOException {
+			reader.close();
+		}
+	}
+}
@@ -0,0 +1,606 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package container.utility;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.CodeSigner;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import container.AppContainer;
+
+/**
+ * Class loader for the application jar and its libraries (i.e. the jars in the <code>Class-Path</code> of the application jar, and of the libraries in turn). {@link URLClassLoader} searches the jars one by one for each class; this class loader instead looks up the jars containing the package of the class in a package index, and searches only those jars. The jars are kept open until the class loader is closed. Directories in the class path are not indexed; they are searched by {@link URLClassLoader} when a class or resource is not found in the jars.
+ * <p>
+ * The package index is written into the application directory when the application is installed (see {@link #writeIndex(Path)}). It records the size and modification time of each jar; if a jar doesn't match the index (or the index doesn't exist), the index is rebuilt in memory from the central directories of the jars.
+ * <p>
+ * The index file is a UTF-8 text file. Jars are listed in class path order in the form <code>J&lt;TAB&gt;size&lt;TAB&gt;modified&lt;TAB&gt;relative/path</code>, followed by packages in the form <code>P&lt;TAB&gt;jar numbers&lt;TAB&gt;package/path</code>.
+ *
+ * @author Murat Artim
+ * @date 18 Oct 2026
+ * @time 23:14:27
+ */
+public class IndexedClassLoader extends URLClassLoader {
+
+	/** Name of the index file (in application directory). */
+	public static final String FILE_NAME = "classes.index";
+
+	/** Header line of the index file. */
+	private static final String HEADER = "#ClassIndex 1";
+
+	/** Jars in class path order. */
+	private final JarFile[] jars;
+
+	/** URLs of jars. */
+	private final URL[] jarURLs;
+
+	/** Code sources of jars (for unsigned entries). */
+	private final CodeSource[] codeSources;
+
+	/** Manifests of jars (null if a jar has no manifest). */
+	private final Manifest[] manifests;
+
+	/** Jar numbers, mapped to packages (in class path order). */
+	private final HashMap<String, int[]> index;
+
+	/** Names of classes defined since recording started, in definition order (null if not recording). */
+	private volatile Queue<String> recorded;
+
+	static {
+		registerAsParallelCapable();
+	}
+
+	/**
+	 * Creates indexed class loader.
+	 *
+	 * @param appDir
+	 *            Application directory.
+	 * @param jarFile
+	 *            Application jar.
+	 * @param parent
+	 *            Parent class loader.
+	 * @throws IOException
+	 *             If a jar cannot be opened.
+	 */
+	public IndexedClassLoader(Path appDir, Path jarFile, ClassLoader parent) throws IOException {
+		this(getClassPath(jarFile), appDir, parent);
+	}
+
+	/**
+	 * Creates indexed class loader.
+	 *
+	 * @param classPath
+	 *            Jars and directories in class path order.
+	 * @param appDir
+	 *            Application directory.
+	 * @param parent
+	 *            Parent class loader.
+	 * @throws IOException
+	 *             If a jar cannot be opened.
+	 */
+	private IndexedClassLoader(List<Path> classPath, Path appDir, ClassLoader parent) throws IOException {
+
+		// create class loader (only directories are searched by URL class loader, jars are searched through the index)
+		super(toURLs(classPath.stream().filter(Files::isDirectory).collect(Collectors.toList())), parent);
+		List<Path> paths = classPath.stream().filter(Files::isRegularFile).collect(Collectors.toList());
+		jarURLs = toURLs(paths);
+
+		// load or build package index
+		HashMap<String, int[]> packages = readIndex(appDir, paths);
+		if (packages == null) {
+			AppContainer.LOGGER.info("Class index is missing or outdated. Indexing application jars.");
+			packages = buildIndex(paths);
+		}
+		index = packages;
+
+		// open jars
+		jars = new JarFile[paths.size()];
+		codeSources = new CodeSource[paths.size()];
+		manifests = new Manifest[paths.size()];
+		try {
+			for (int i = 0; i < jars.length; i++) {
+				jars[i] = new JarFile(paths.get(i).toFile());
+				codeSources[i] = new CodeSource(jarURLs[i], (CodeSigner[]) null);
+				manifests[i] = jars[i].getManifest();
+			}
+		}
+		catch (IOException e) {
+			close();
+			throw e;
+		}
+	}
+
+	@Override
+	protected Class<?> findClass(String name) throws ClassNotFoundException {
+
+		// search jars containing the package
+		String path = name.replace('.', '/').concat(".class");
+		for (int jar : getJarNumbers(path)) {
+			JarEntry entry = jars[jar].getJarEntry(path);
+			if (entry == null)
+				continue;
+
+			// define package
+			int lastDot = name.lastIndexOf('.');
+			if (lastDot > 0) {
+				definePackage(name.substring(0, lastDot), jar);
+			}
+
+			// define class (code signers are available after the entry is read)
+			try {
+				byte[] bytes = read(jars[jar], entry);
+				CodeSigner[] signers = entry.getCodeSigners();
+				Class<?> definedClass = defineClass(name, bytes, 0, bytes.length, signers == null ? codeSources[jar] : new CodeSource(jarURLs[jar], signers));
+				Queue<String> classes = recorded;
+				if (classes != null) {
+					classes.add(name);
+				}
+				return definedClass;
+			}
+			catch (IOException e) {
+				throw new ClassNotFoundException(name, e);
+			}
+		}
+
+		// search directories
+		Class<?> definedClass = super.findClass(name);
+		Queue<String> classes = recorded;
+		if (classes != null) {
+			classes.add(name);
+		}
+		return definedClass;
+	}
+
+	@Override
+	public URL findResource(String name) {
+		for (int jar : getJarNumbers(name)) {
+			if (jars[jar].getEntry(name) != null)
+				return createURL(jar, name);
+		}
+		return super.findResource(name);
+	}
+
+	@Override
+	public Enumeration<URL> findResources(String name) throws IOException {
+		ArrayList<URL> urls = new ArrayList<>();
+		for (int jar : getJarNumbers(name)) {
+			if (jars[jar].getEntry(name) != null) {
+				URL url = createURL(jar, name);
+				if (url != null) {
+					urls.add(url);
+				}
+			}
+		}
+		urls.addAll(Collections.list(super.findResources(name)));
+		return Collections.enumeration(urls);
+	}
+
+	@Override
+	public URL[] getURLs() {
+		URL[] directoryURLs = super.getURLs();
+		URL[] urls = Arrays.copyOf(jarURLs, jarURLs.length + directoryURLs.length);
+		System.arraycopy(directoryURLs, 0, urls, jarURLs.length, directoryURLs.length);
+		return urls;
+	}
+
+	@Override
+	public void close() throws IOException {
+		IOException exception = null;
+		for (JarFile jar : jars) {
+			try {
+				if (jar != null) {
+					jar.close();
+				}
+			}
+			catch (IOException e) {
+				exception = e;
+			}
+		}
+		super.close();
+		if (exception != null)
+			throw exception;
+	}
+
+	/**
+	 * Starts recording the names of the classes defined by this class loader (see {@link ClassPreloader}).
+	 */
+	public void startRecording() {
+		recorded = new ConcurrentLinkedQueue<>();
+	}
+
+	/**
+	 * Stops recording and returns the names of the classes defined since recording started.
+	 *
+	 * @return The names of the recorded classes in definition order, or null if classes are not being recorded.
+	 */
+	public List<String> stopRecording() {
+		Queue<String> classes = recorded;
+		recorded = null;
+		return classes == null ? null : new ArrayList<>(classes);
+	}
+
+	/**
+	 * Writes the package index of the application jar and its libraries into the given application directory. The index file is replaced atomically.
+	 *
+	 * @param appDir
+	 *            Application directory.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	public static void writeIndex(Path appDir) throws IOException {
+
+		// no application jar
+		Path indexFile = appDir.resolve(FILE_NAME);
+		Path jarFile = Utility.getPathToAppJar(appDir);
+		if (jarFile == null) {
+			Files.deleteIfExists(indexFile);
+			return;
+		}
+
+		// build index
+		List<Path> paths = getJars(jarFile);
+		HashMap<String, int[]> packages = buildIndex(paths);
+
+		// write index
+		Path tempFile = indexFile.resolveSibling(FILE_NAME + ".tmp");
+		try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+			writer.write(HEADER);
+			writer.newLine();
+			for (Path path : paths) {
+				BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+				writer.write("J\t" + attributes.size() + "\t" + attributes.lastModifiedTime().toMillis() + "\t" + appDir.toAbsolutePath().normalize().relativize(path).toString().replace('\\', '/'));
+				writer.newLine();
+			}
+			for (String packageName : packages.keySet().stream().sorted().collect(Collectors.toList())) {
+				int[] jars = packages.get(packageName);
+				StringBuilder numbers = new StringBuilder();
+				for (int jar : jars) {
+					numbers.append(numbers.length() == 0 ? "" : ",").append(jar);
+				}
+				writer.write("P\t" + numbers + "\t" + packageName);
+				writer.newLine();
+			}
+		}
+		Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Returns the numbers of the jars which may contain the given entry (i.e. the jars containing its package).
+	 *
+	 * @param name
+	 *            Entry name.
+	 * @return The numbers of the jars which may contain the given entry.
+	 */
+	private int[] getJarNumbers(String name) {
+		int[] numbers = index.get(getPackageOf(name));
+		return numbers == null ? new int[0] : numbers;
+	}
+
+	/**
+	 * Defines the given package (if it's not defined yet), with the attributes of the manifest of the given jar.
+	 *
+	 * @param packageName
+	 *            Package name.
+	 * @param jar
+	 *            Jar number.
+	 */
+	private void definePackage(String packageName, int jar) {
+		if (getPackage(packageName) != null)
+			return;
+		try {
+			if (manifests[jar] != null) {
+				definePackage(packageName, manifests[jar], jarURLs[jar]);
+			}
+			else {
+				definePackage(packageName, null, null, null, null, null, null, null);
+			}
+		}
+		catch (IllegalArgumentException e) {
+			// defined concurrently
+		}
+	}
+
+	/**
+	 * Creates URL to the given entry of the given jar.
+	 *
+	 * @param jar
+	 *            Jar number.
+	 * @param name
+	 *            Entry name.
+	 * @return URL to the given entry, or null if the URL cannot be created.
+	 */
+	private URL createURL(int jar, String name) {
+		try {
+			return new URL("jar:" + jarURLs[jar] + "!/" + name);
+		}
+		catch (MalformedURLException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Reads the given jar entry.
+	 *
+	 * @param jar
+	 *            Jar file.
+	 * @param entry
+	 *            Jar entry.
+	 * @return Entry data.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	private static byte[] read(JarFile jar, JarEntry entry) throws IOException {
+		try (InputStream input = jar.getInputStream(entry)) {
+			long size = entry.getSize();
+			if (size < 0) {
+				ByteArrayOutputStream output = new ByteArrayOutputStream();
+				byte[] buffer = new byte[8192];
+				int len;
+				while ((len = input.read(buffer)) != -1) {
+					output.write(buffer, 0, len);
+				}
+				return output.toByteArray();
+			}
+			byte[] bytes = new byte[(int) size];
+			int count = 0;
+			while (count < bytes.length) {
+				int len = input.read(bytes, count, bytes.length - count);
+				if (len < 0)
+					throw new IOException("Truncated entry '" + entry.getName() + "'.");
+				count += len;
+			}
+			return bytes;
+		}
+	}
+
+	/**
+	 * Returns the package (directory) of the given entry name. Directory entries belong to their parent directory, like files.
+	 *
+	 * @param name
+	 *            Entry name.
+	 * @return The package of the given entry name (empty string for the root directory).
+	 */
+	private static String getPackageOf(String name) {
+		int lastSlash = name.lastIndexOf('/', name.length() - 2);
+		return lastSlash < 0 ? "" : name.substring(0, lastSlash);
+	}
+
+	/**
+	 * Returns the application jar and its libraries (in class path order).
+	 *
+	 * @param jarFile
+	 *            Application jar.
+	 * @return The application jar and its libraries.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	private static List<Path> getJars(Path jarFile) throws IOException {
+		return getClassPath(jarFile).stream().filter(Files::isRegularFile).collect(Collectors.toList());
+	}
+
+	/**
+	 * Returns the class path of the application jar. The class path is walked like {@link URLClassLoader} does: the entries of the <code>Class-Path</code> attribute of each jar follow the jar itself, before the next entry. Missing entries are skipped.
+	 *
+	 * @param jarFile
+	 *            Application jar.
+	 * @return The jars and directories of the class path (in class path order).
+	 * @throws IOException
+	 *             If the application jar cannot be read.
+	 */
+	private static List<Path> getClassPath(Path jarFile) throws IOException {
+		LinkedHashSet<Path> paths = new LinkedHashSet<>();
+		addToClassPath(jarFile.toAbsolutePath().normalize(), paths);
+		return new ArrayList<>(paths);
+	}
+
+	/**
+	 * Adds the given class path entry, followed by the entries of its <code>Class-Path</code> attribute (if it's a jar), to the given class path.
+	 *
+	 * @param path
+	 *            Class path entry (jar or directory).
+	 * @param paths
+	 *            Class path.
+	 * @throws IOException
+	 *             If the jar cannot be read.
+	 */
+	private static void addToClassPath(Path path, LinkedHashSet<Path> paths) throws IOException {
+
+		// already added or directory
+		if (!paths.add(path) || Files.isDirectory(path))
+			return;
+
+		// get class path of jar
+		String classPath;
+		try (JarFile jar = new JarFile(path.toFile())) {
+			Manifest manifest = jar.getManifest();
+			classPath = manifest == null ? null : manifest.getMainAttributes().getValue(Attributes.Name.CLASS_PATH);
+		}
+		if (classPath == null)
+			return;
+
+		// add entries
+		URL base = path.toUri().toURL();
+		for (String entry : classPath.trim().split("\\s+")) {
+			try {
+				Path entryPath = Paths.get(new URL(base, entry).toURI()).toAbsolutePath().normalize();
+				if (Files.isRegularFile(entryPath) || Files.isDirectory(entryPath)) {
+					addToClassPath(entryPath, paths);
+				}
+			}
+			catch (MalformedURLException | URISyntaxException | IllegalArgumentException e) {
+				AppContainer.LOGGER.log(Level.FINE, "Invalid class path entry: " + entry, e);
+			}
+			catch (IOException e) {
+				AppContainer.LOGGER.log(Level.WARNING, "Class path of '" + entry + "' could not be read.", e);
+			}
+		}
+	}
+
+	/**
+	 * Returns the URLs of the given jars or directories.
+	 *
+	 * @param paths
+	 *            Jars or directories.
+	 * @return The URLs of the given jars or directories.
+	 * @throws MalformedURLException
+	 *             If a URL cannot be created.
+	 */
+	private static URL[] toURLs(List<Path> paths) throws MalformedURLException {
+		URL[] urls = new URL[paths.size()];
+		for (int i = 0; i < urls.length; i++) {
+			urls[i] = paths.get(i).toUri().toURL();
+		}
+		return urls;
+	}
+
+	/**
+	 * Builds the package index of the given jars. Central directories of the jars are read in parallel.
+	 *
+	 * @param paths
+	 *            Jars in class path order.
+	 * @return Jar numbers, mapped to packages.
+	 * @throws IOException
+	 *             If a jar cannot be read.
+	 */
+	private static HashMap<String, int[]> buildIndex(List<Path> paths) throws IOException {
+
+		// get packages of jars
+		List<Set<String>> jarPackages;
+		try {
+			jarPackages = paths.parallelStream().map(path -> {
+				try (ZipFile zip = new ZipFile(path.toFile())) {
+					Set<String> packages = new LinkedHashSet<>();
+					Enumeration<? extends ZipEntry> entries = zip.entries();
+					while (entries.hasMoreElements()) {
+						packages.add(getPackageOf(entries.nextElement().getName()));
+					}
+					return packages;
+				}
+				catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}).collect(Collectors.toList());
+		}
+		catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		// map packages to jar numbers (in class path order)
+		HashMap<String, int[]> index = new HashMap<>();
+		for (int i = 0; i < jarPackages.size(); i++) {
+			for (String packageName : jarPackages.get(i)) {
+				int[] jars = index.get(packageName);
+				if (jars == null) {
+					jars = new int[] { i };
+				}
+				else {
+					jars = Arrays.copyOf(jars, jars.length + 1);
+					jars[jars.length - 1] = i;
+				}
+				index.put(packageName, jars);
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Reads the package index of the given application directory.
+	 *
+	 * @param appDir
+	 *            Application directory.
+	 * @param paths
+	 *            Jars in class path order.
+	 * @return Jar numbers mapped to packages, or null if the index doesn't exist, cannot be read or doesn't match the jars.
+	 */
+	private static HashMap<String, int[]> readIndex(Path appDir, List<Path> paths) {
+
+		// no index
+		Path indexFile = appDir.resolve(FILE_NAME);
+		if (!Files.exists(indexFile))
+			return null;
+
+		// read index
+		HashMap<String, int[]> index = new HashMap<>();
+		try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+			if (!HEADER.equals(reader.readLine()))
+				return null;
+			int jar = 0;
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] fields = line.split("\t", line.startsWith("J") ? 4 : 3);
+
+				// jar (must match the jar in the same class path position)
+				if (fields[0].equals("J")) {
+					if (jar >= paths.size())
+						return null;
+					Path path = paths.get(jar++);
+					BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+					if (!path.equals(appDir.resolve(fields[3]).toAbsolutePath().normalize()) || attributes.size() != Long.parseLong(fields[1]) || attributes.lastModifiedTime().toMillis() != Long.parseLong(fields[2]))
+						return null;
+				}
+
+				// package
+				else if (fields[0].equals("P")) {
+					String[] numbers = fields[1].split(",");
+					int[] jars = new int[numbers.length];
+					for (int i = 0; i < jars.length; i++) {
+						jars[i] = Integer.parseInt(numbers[i]);
+					}
+					index.put(fields[2], jars);
+				}
+			}
+			return jar == paths.size() ? index : null;
+		}
+
+		// invalid index
+		catch (IOException | RuntimeException e) {
+			AppContainer.LOGGER.log(Level.FINE, "Class index could not be read.", e);
+			return null;
+		}
+	}
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package container.utility;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+import container.AppContainer;
+
+/**
+ * Class for index of files extracted from resource archives. The index records the archive, CRC-32 and size (taken from the ZIP central directory) of each extracted file, together with the size and modification time of the written file. When an archive is extracted again, entries with the same CRC-32 and size as the installed (and unmodified) file are skipped, so that unchanged files are not rewritten.
+ * <p>
+ * The index is a UTF-8 text file with one line per file, in the form <code>archive&lt;TAB&gt;crc&lt;TAB&gt;size&lt;TAB&gt;modified&lt;TAB&gt;relative/path</code>.
+ *
+ * @author Murat Artim
+ * @date 18 Oct 2026
+ * @time 22:32:58
+ */
+public class InstalledFileIndex {
+
+	/** Name of the index file (in cache directory). */
+	public static final String FILE_NAME = "installed.index";
+
+	/** Header line of the index file. */
+	private static final String HEADER = "#InstalledFiles 1";
+
+	/** Path to index file. */
+	private final Path indexFile;
+
+	/** Base directory of indexed files. */
+	private final Path baseDir;
+
+	/** Index entries, mapped to relative paths. */
+	private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates installed file index.
+	 *
+	 * @param indexFile
+	 *            Path to index file.
+	 * @param baseDir
+	 *            Base directory of indexed files.
+	 */
+	private InstalledFileIndex(Path indexFile, Path baseDir) {
+		this.indexFile = indexFile;
+		this.baseDir = baseDir;
+	}
+
+	/**
+	 * Loads the index of the files installed in the application directory (from the cache directory). An empty index is returned if the index file doesn't exist or cannot be read.
+	 *
+	 * @return The installed file index.
+	 */
+	public static InstalledFileIndex load() {
+		return load(AppContainer.CACHE_DIR.resolve(FILE_NAME), AppContainer.APP_DIR);
+	}
+
+	/**
+	 * Loads the given index file. An empty index is returned if the index file doesn't exist or cannot be read.
+	 *
+	 * @param indexFile
+	 *            Path to index file.
+	 * @param baseDir
+	 *            Base directory of indexed files.
+	 * @return The installed file index.
+	 */
+	public static InstalledFileIndex load(Path indexFile, Path baseDir) {
+
+		// create index
+		InstalledFileIndex index = new InstalledFileIndex(indexFile, baseDir);
+
+		// read index file
+		if (Files.exists(indexFile)) {
+			try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+				if (!HEADER.equals(reader.readLine()))
+					throw new IOException("Invalid installed file index.");
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (line.isEmpty()) {
+						continue;
+					}
+					String[] fields = line.split("\t", 5);
+					index.entries.put(fields[4], new Entry(fields[0], Long.parseLong(fields[1]), Long.parseLong(fields[2]), Long.parseLong(fields[3])));
+				}
+			}
+			catch (Exception e) {
+				AppContainer.LOGGER.log(Level.WARNING, "Installed file index could not be read. All files will be extracted.", e);
+				index.entries.clear();
+			}
+		}
+
+		// return index
+		return index;
+	}
+
+	/**
+	 * Returns true if files of the given archive are indexed. The installed files of such archives don't need to be deleted before extraction; unchanged files are skipped and removed files are deleted during extraction.
+	 *
+	 * @param archiveName
+	 *            Archive (resource) name.
+	 * @return True if files of the given archive are indexed.
+	 */
+	public boolean covers(String archiveName) {
+		for (Entry entry : entries.values()) {
+			if (entry.archive.equals(archiveName))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns true if the given file is installed unchanged. That is, the file is indexed with the given CRC-32 and size, and it was not modified since it was written.
+	 *
+	 * @param path
+	 *            Relative path to file.
+	 * @param crc
+	 *            CRC-32 of the file content.
+	 * @param size
+	 *            Size of the file content.
+	 * @return True if the given file is installed unchanged.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	public boolean isUnchanged(String path, long crc, long size) throws IOException {
+
+		// not indexed or changed
+		Entry entry = entries.get(path);
+		if (entry == null || entry.crc != crc || entry.size != size)
+			return false;
+
+		// compare installed file
+		try {
+			BasicFileAttributes attributes = Files.readAttributes(baseDir.resolve(path), BasicFileAttributes.class);
+			return attributes.isRegularFile() && attributes.size() == size && attributes.lastModifiedTime().toMillis() == entry.modified;
+		}
+
+		// file doesn't exist
+		catch (NoSuchFileException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Records the given written file.
+	 *
+	 * @param archiveName
+	 *            Archive (resource) name.
+	 * @param path
+	 *            Relative path to file.
+	 * @param crc
+	 *            CRC-32 of the file content.
+	 * @param size
+	 *            Size of the file content.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	public void put(String archiveName, String path, long crc, long size) throws IOException {
+		long modified = Files.getLastModifiedTime(baseDir.resolve(path)).toMillis();
+		entries.put(path, new Entry(archiveName, crc, size, modified));
+	}
+
+	/**
+	 * Removes the files of the given archive which are not contained in the given paths from the index.
+	 *
+	 * @param archiveName
+	 *            Archive (resource) name.
+	 * @param paths
+	 *            Relative paths of the files currently contained in the archive.
+	 * @return Relative paths of the removed files.
+	 */
+	public ArrayList<String> removeStale(String archiveName, Set<String> paths) {
+		ArrayList<String> removed = new ArrayList<>();
+		Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<String, Entry> entry = iterator.next();
+			if (entry.getValue().archive.equals(archiveName) && !paths.contains(entry.getKey())) {
+				removed.add(entry.getKey());
+				iterator.remove();
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * Saves this index. The index file is replaced atomically, so that an interrupted save leaves the previous index intact.
+	 *
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	public void save() throws IOException {
+		Path tempFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+		try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+			writer.write(HEADER);
+			writer.newLine();
+			for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+				Entry value = entry.getValue();
+				writer.write(value.archive + "\t" + value.crc + "\t" + value.size + "\t" + value.modified + "\t" + entry.getKey());
+				writer.newLine();
+			}
+		}
+		Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Inner class for index entry.
+	 *
+	 * @author Murat Artim
+	 * @date 18 Oct 2026
+	 * @time 22:33:26
+	 */
+	private static class Entry {
+
+		/** Archive (resource) name. */
+		private final String archive;
+
+		/** CRC-32, size and modification time of file. */
+		private final long crc, size, modified;
+
+		/**
+		 * Creates index entry.
+		 *
+		 * @param archive
+		 *            Archive (resource) name.
+		 * @param crc
+		 *            CRC-32 of file content.
+		 * @param size
+		 *            Size of file content.
+		 * @param modified
+		 *            Modification time of written file (in milliseconds).
+		 */
+		public Entry(String archive, long crc, long size, long modified) {
+			this.archive = archive;
+			this.crc = crc;
+			this.size = size;
+			this.modified = modified;
+		}
+	}
+}
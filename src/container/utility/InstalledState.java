@@ -0,0 +1,375 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package container.utility;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Class for the state of installed files. The state records the path, size, modification time and SHA-256 hash of each file installed from the application resources, and is written into the application directory at install time. It's used to detect deleted or modified (e.g. corrupted) files: a cheap sweep compares sizes and modification times, and a full verification compares hashes.
+ * <p>
+ * The state file is a compact binary file, which is read into memory as a whole (it's not mapped, so that it's not locked while the application runs). It consists of a header (magic number, version, number of entries and offset of paths), fixed size entries sorted by path (size, modification time, hash, offset and length of path), and UTF-8 encoded relative paths.
+ *
+ * @author Murat Artim
+ * @date 18 Oct 2026
+ * @time 23:00:55
+ */
+public final class InstalledState {
+
+	/** Name of the state file (in application directory). */
+	public static final String FILE_NAME = "STATE";
+
+	/** Magic number and version of the state file. */
+	private static final int MAGIC = 0x41505354, VERSION = 1;
+
+	/** Sizes of header and entries. */
+	private static final int HEADER_SIZE = 16, ENTRY_SIZE = 56;
+
+	/** Length of hashes. */
+	private static final int HASH_LENGTH = 32;
+
+	/** State content. */
+	private final ByteBuffer buffer;
+
+	/** Number of entries. */
+	private final int count;
+
+	/**
+	 * Creates installed state.
+	 *
+	 * @param buffer
+	 *            State content.
+	 * @throws IOException
+	 *             If the content is not a valid state.
+	 */
+	private InstalledState(ByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+		if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+			throw new IOException("Invalid installed state file.");
+		count = buffer.getInt(8);
+		if (count < 0 || HEADER_SIZE + (long) count * ENTRY_SIZE > buffer.getInt(12) || buffer.getInt(12) > buffer.capacity())
+			throw new IOException("Invalid installed state file.");
+	}
+
+	/**
+	 * Loads the state of the given application directory.
+	 *
+	 * @param appDir
+	 *            Application directory.
+	 * @return The installed state, or null if the application directory has no state file.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	public static InstalledState load(Path appDir) throws IOException {
+		Path file = appDir.resolve(FILE_NAME);
+		if (!Files.exists(file))
+			return null;
+		return new InstalledState(ByteBuffer.wrap(Files.readAllBytes(file)));
+	}
+
+	/**
+	 * Writes the state of the given files of the application directory. The state file is replaced atomically. Only files installed from resources are recorded: files shared with the previous installation are skipped unless they are recorded in the previous state, so that files written by the application into resource directories are not treated as damaged. Hashes of files which are linked to the files of the previous installation (see {@link AppSlots}) and unchanged since then are taken from the previous state; other files are hashed in parallel.
+	 *
+	 * @param appDir
+	 *            Application directory.
+	 * @param fileNames
+	 *            Names of installed files or directories (relative to application directory). Directories are walked recursively.
+	 * @param previousDir
+	 *            Application directory of the previous installation, or null.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	public static void write(Path appDir, List<String> fileNames, Path previousDir) throws IOException {
+
+		// read previous state
+		Path stateFile = appDir.resolve(FILE_NAME);
+		InstalledState previous = null;
+		if (previousDir != null && Files.exists(previousDir.resolve(FILE_NAME))) {
+			try {
+				previous = new InstalledState(ByteBuffer.wrap(Files.readAllBytes(previousDir.resolve(FILE_NAME))));
+			}
+			catch (IOException e) {
+				// ignore (files are hashed)
+			}
+		}
+
+		// collect installed files (sorted by path)
+		InstalledState base = previous;
+		ArrayList<String> paths = new ArrayList<>();
+		for (String fileName : fileNames) {
+			Path path = appDir.resolve(fileName);
+			if (Files.exists(path)) {
+				try (Stream<Path> files = Files.walk(path)) {
+					files.filter(Files::isRegularFile).map(x -> appDir.relativize(x).toString().replace('\\', '/')).filter(x -> !x.equals(FILE_NAME) && isInstalled(appDir, x, previousDir, base)).forEach(paths::add);
+				}
+			}
+		}
+		Collections.sort(paths);
+		List<String> sorted = paths.stream().distinct().collect(Collectors.toList());
+
+		// create entries (hashes are computed in parallel)
+		List<Object[]> entries;
+		try {
+			entries = sorted.parallelStream().map(path -> {
+				try {
+					Path file = appDir.resolve(path);
+					BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+					long size = attributes.size(), modified = attributes.lastModifiedTime().toMillis();
+					int index = base == null ? -1 : base.find(path);
+					byte[] hash = index >= 0 && base.getSize(index) == size && base.getModified(index) == modified && UpdateJournal.isLinked(file) ? base.getHashBytes(index) : hash(file);
+					return new Object[] { path.getBytes(StandardCharsets.UTF_8), size, modified, hash };
+				}
+				catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}).collect(Collectors.toList());
+		}
+		catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		// create content
+		int pathsLength = 0;
+		for (Object[] entry : entries) {
+			pathsLength += ((byte[]) entry[0]).length;
+		}
+		int pathsOffset = HEADER_SIZE + entries.size() * ENTRY_SIZE;
+		ByteBuffer content = ByteBuffer.allocate(pathsOffset + pathsLength);
+		content.putInt(MAGIC).putInt(VERSION).putInt(entries.size()).putInt(pathsOffset);
+		int pathOffset = pathsOffset;
+		for (Object[] entry : entries) {
+			byte[] path = (byte[]) entry[0];
+			content.putLong((Long) entry[1]).putLong((Long) entry[2]).put((byte[]) entry[3]).putInt(pathOffset).putInt(path.length);
+			pathOffset += path.length;
+		}
+		for (Object[] entry : entries) {
+			content.put((byte[]) entry[0]);
+		}
+
+		// write state file (replaced, since it may be linked to the state file of the previous installation)
+		Path tempFile = stateFile.resolveSibling(FILE_NAME + ".tmp");
+		Files.write(tempFile, content.array());
+		Files.move(tempFile, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Returns the paths of the files which are missing, or whose size or modification time differ from the state (cheap sweep). Files are checked in parallel.
+	 *
+	 * @param appDir
+	 *            Application directory.
+	 * @return The paths of the damaged files (relative to application directory).
+	 */
+	public List<String> sweep(Path appDir) {
+		return IntStream.range(0, count).parallel().filter(i -> !isIntact(appDir, i, false)).mapToObj(this::getPath).collect(Collectors.toList());
+	}
+
+	/**
+	 * Returns the paths of the files which are missing, or whose content differ from the state (full verification). Files are hashed in parallel.
+	 *
+	 * @param appDir
+	 *            Application directory.
+	 * @return The paths of the damaged files (relative to application directory).
+	 */
+	public List<String> verify(Path appDir) {
+		return IntStream.range(0, count).parallel().filter(i -> !isIntact(appDir, i, true)).mapToObj(this::getPath).collect(Collectors.toList());
+	}
+
+	/**
+	 * Returns the index of the entry with the given path, or a negative value if there is no such entry.
+	 *
+	 * @param path
+	 *            Relative path of file.
+	 * @return The index of the entry with the given path, or a negative value if there is no such entry.
+	 */
+	public int find(String path) {
+		int low = 0, high = count - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int comparison = getPath(middle).compareTo(path);
+			if (comparison < 0) {
+				low = middle + 1;
+			}
+			else if (comparison > 0) {
+				high = middle - 1;
+			}
+			else
+				return middle;
+		}
+		return -(low + 1);
+	}
+
+	/**
+	 * Returns the relative path of the entry with the given index.
+	 *
+	 * @param index
+	 *            Entry index.
+	 * @return The relative path of the entry.
+	 */
+	public String getPath(int index) {
+		int entry = HEADER_SIZE + index * ENTRY_SIZE;
+		byte[] path = new byte[buffer.getInt(entry + 16 + HASH_LENGTH + 4)];
+		int offset = buffer.getInt(entry + 16 + HASH_LENGTH);
+		for (int i = 0; i < path.length; i++) {
+			path[i] = buffer.get(offset + i);
+		}
+		return new String(path, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Returns the file size of the entry with the given index.
+	 *
+	 * @param index
+	 *            Entry index.
+	 * @return The file size of the entry.
+	 */
+	public long getSize(int index) {
+		return buffer.getLong(HEADER_SIZE + index * ENTRY_SIZE);
+	}
+
+	/**
+	 * Returns the modification time (in milliseconds) of the entry with the given index.
+	 *
+	 * @param index
+	 *            Entry index.
+	 * @return The modification time of the entry.
+	 */
+	public long getModified(int index) {
+		return buffer.getLong(HEADER_SIZE + index * ENTRY_SIZE + 8);
+	}
+
+	/**
+	 * Returns the SHA-256 hash (lower case hexadecimal) of the entry with the given index.
+	 *
+	 * @param index
+	 *            Entry index.
+	 * @return The SHA-256 hash of the entry.
+	 */
+	public String getHash(int index) {
+		return Utility.toHexString(getHashBytes(index));
+	}
+
+	/**
+	 * Returns the SHA-256 hash of the entry with the given index.
+	 *
+	 * @param index
+	 *            Entry index.
+	 * @return The SHA-256 hash of the entry.
+	 */
+	private byte[] getHashBytes(int index) {
+		byte[] hash = new byte[HASH_LENGTH];
+		int offset = HEADER_SIZE + index * ENTRY_SIZE + 16;
+		for (int i = 0; i < HASH_LENGTH; i++) {
+			hash[i] = buffer.get(offset + i);
+		}
+		return hash;
+	}
+
+	/**
+	 * Returns true if the file of the entry with the given index is intact.
+	 *
+	 * @param appDir
+	 *            Application directory.
+	 * @param index
+	 *            Entry index.
+	 * @param full
+	 *            True to compare hashes, false to compare sizes and modification times.
+	 * @return True if the file is intact.
+	 */
+	private boolean isIntact(Path appDir, int index, boolean full) {
+		try {
+			Path file = appDir.resolve(getPath(index));
+			BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+			if (attributes.size() != getSize(index))
+				return false;
+			if (!full)
+				return attributes.lastModifiedTime().toMillis() == getModified(index);
+			return Arrays.equals(hash(file), getHashBytes(index));
+		}
+
+		// missing or unreadable file
+		catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Returns true if the given file was installed from resources. Without previous state, all files are taken as installed. Otherwise, files recorded in the previous state, and files written by the current installation (i.e. not shared with the previous installation) are installed.
+	 *
+	 * @param appDir
+	 *            Application directory.
+	 * @param path
+	 *            Relative path of file.
+	 * @param previousDir
+	 *            Application directory of the previous installation, or null.
+	 * @param previous
+	 *            Previous state, or null.
+	 * @return True if the given file was installed from resources.
+	 */
+	private static boolean isInstalled(Path appDir, String path, Path previousDir, InstalledState previous) {
+
+		// no previous state or recorded in previous state
+		if (previous == null || previous.find(path) >= 0)
+			return true;
+
+		// written by current installation (previous installation doesn't have the file, or has another file)
+		Path previousFile = previousDir.resolve(path);
+		try {
+			return !Files.exists(previousFile) || !Files.isSameFile(appDir.resolve(path), previousFile);
+		}
+		catch (IOException e) {
+			return true;
+		}
+	}
+
+	/**
+	 * Computes the SHA-256 hash of the given file.
+	 *
+	 * @param file
+	 *            File to hash.
+	 * @return The SHA-256 hash.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	private static byte[] hash(Path file) throws IOException {
+		try {
+			String hash = Utility.getSHA256(file);
+			byte[] bytes = new byte[HASH_LENGTH];
+			for (int i = 0; i < HASH_LENGTH; i++) {
+				bytes[i] = (byte) Integer.parseInt(hash.substring(2 * i, 2 * i + 2), 16);
+			}
+			return bytes;
+		}
+		catch (IOException e) {
+			throw e;
+		}
+		catch (Exception e) {
+			throw new IOException("File '" + file + "' could not be hashed.", e);
+		}
+	}
+}
@@ -0,0 +1,413 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package container.utility;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+
+import container.data.AppManifest;
+import container.data.ApplicationResource;
+
+/**
+ * Utility class for entry level delta of jar files. Publishers create an entry index for the application jar, listing the local header and the SHA-256 of the data of each entry in file order. The container assembles the new jar from the entries of the installed jar whose data didn't change, and fetches only the changed entries (and the central directory) from the published jar with range requests. Since entries are written in the original order with their original headers, the assembled jar is byte-identical to the published jar and can be verified against its hash.
+ * <p>
+ * Entry indices are referenced from the manifest with a named section for the jar file:
+ *
+ * <pre>
+ * Name: Equinox.jar
+ * Entry-Index: jars/Equinox.jar.entries
+ * </pre>
+ *
+ * where the path is relative to the manifest location, and the published jar is expected next to its entry index (with the same name, without the <code>.entries</code> extension).
+ *
+ * @author Murat Artim
+ * @date 18 Oct 2026
+ * @time 22:13:47
+ */
+public class JarDelta {
+
+	/** Manifest attribute listing the entry index of a file. */
+	public static final String ENTRY_INDEX_ATTRIBUTE = "Entry-Index";
+
+	/** Extension of entry index files. */
+	public static final String EXTENSION = ".entries";
+
+	/** Header line of the entry index file. */
+	private static final String HEADER = "#JarEntries 1";
+
+	/** Zip record signatures. */
+	private static final int LOCAL_HEADER = 0x04034b50, CENTRAL_HEADER = 0x02014b50, END_OF_CENTRAL_DIR = 0x06054b50;
+
+	/**
+	 * Interface for reading byte ranges of the published jar.
+	 *
+	 * @author Murat Artim
+	 * @date 18 Oct 2026
+	 * @time 22:14:16
+	 */
+	public interface RangeReader {
+
+		/**
+		 * Opens an input stream to the given byte range of the published jar.
+		 *
+		 * @param offset
+		 *            Offset of the first byte.
+		 * @param length
+		 *            Number of bytes.
+		 * @return Input stream to the given byte range.
+		 * @throws Exception
+		 *             If exception occurs during process.
+		 */
+		InputStream open(long offset, long length) throws Exception;
+	}
+
+	/**
+	 * Returns the relative paths of the entry indices of all files of the given resource, or null if any of the files has no entry index or isn't installed.
+	 *
+	 * @param resource
+	 *            Application resource.
+	 * @param appDir
+	 *            Application directory containing the installed files.
+	 * @param remoteManifest
+	 *            Remote (new) manifest.
+	 * @return Mapping of file names to relative entry index paths, or null if the resource cannot be assembled from entries.
+	 */
+	public static HashMap<String, String> findEntryIndices(ApplicationResource resource, Path appDir, AppManifest remoteManifest) {
+
+		// remote manifest doesn't exist
+		if (remoteManifest == null)
+			return null;
+
+		// loop over files of resource
+		HashMap<String, String> indices = new HashMap<>();
+		for (String fileName : resource.getFileNames()) {
+
+			// no entry index for file, or file is not installed
+			String entryIndex = remoteManifest.getSectionAttribute(fileName, ENTRY_INDEX_ATTRIBUTE);
+			if (entryIndex == null || !Files.isRegularFile(appDir.resolve(fileName)))
+				return null;
+			indices.put(fileName, entryIndex.trim());
+		}
+
+		// return indices
+		return indices.isEmpty() ? null : indices;
+	}
+
+	/**
+	 * Assembles the new jar from the installed jar and the changed entries of the published jar. The assembled jar is verified against the hash given in the entry index.
+	 *
+	 * @param oldJar
+	 *            Path to installed jar.
+	 * @param entryIndex
+	 *            Path to entry index of the new jar.
+	 * @param reader
+	 *            Reader for byte ranges of the published jar.
+	 * @param newJar
+	 *            Path to output jar.
+	 * @return Number of bytes fetched from the published jar.
+	 * @throws Exception
+	 *             If exception occurs during process, or the assembled jar doesn't match the entry index.
+	 */
+	public static long assemble(Path oldJar, Path entryIndex, RangeReader reader, Path newJar) throws Exception {
+
+		// index data of old entries
+		HashMap<String, long[]> oldData = new HashMap<>();
+		for (Record record : readRecords(oldJar)) {
+			oldData.putIfAbsent(record.dataHash, new long[] { record.dataOffset, record.dataLength });
+		}
+
+		// read entry index
+		String jarHash;
+		long jarSize;
+		ArrayList<Record> records = new ArrayList<>();
+		try (BufferedReader index = Files.newBufferedReader(entryIndex, StandardCharsets.UTF_8)) {
+			if (!HEADER.equals(index.readLine()))
+				throw new IOException("Invalid entry index file.");
+			String[] jar = index.readLine().split("\t");
+			jarHash = jar[0];
+			jarSize = Long.parseLong(jar[1]);
+			long offset = 0;
+			String line;
+			while ((line = index.readLine()) != null) {
+				if (line.isEmpty()) {
+					continue;
+				}
+				String[] fields = line.split("\t", 4);
+				Record record = new Record(fields[3], offset, Base64.getDecoder().decode(fields[2]), Long.parseLong(fields[1]), fields[0]);
+				records.add(record);
+				offset = record.dataOffset + record.dataLength;
+			}
+		}
+
+		// assemble jar
+		long fetched = 0;
+		try (FileChannel output = FileChannel.open(newJar, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+				FileChannel old = FileChannel.open(oldJar, StandardOpenOption.READ)) {
+
+			// loop over entries
+			for (int i = 0; i < records.size();) {
+
+				// unchanged data (write header and copy data from old jar)
+				long[] data = oldData.get(records.get(i).dataHash);
+				if (data != null && data[1] == records.get(i).dataLength) {
+					output.write(ByteBuffer.wrap(records.get(i).header));
+					for (long done = 0; done < data[1];) {
+						done += old.transferTo(data[0] + done, data[1] - done, output);
+					}
+					i++;
+					continue;
+				}
+
+				// find range of changed entries
+				int j = i + 1;
+				while (j < records.size() && !oldData.containsKey(records.get(j).dataHash)) {
+					j++;
+				}
+
+				// fetch range
+				long offset = records.get(i).offset;
+				long length = records.get(j - 1).dataOffset + records.get(j - 1).dataLength - offset;
+				fetched += fetch(reader, offset, length, output);
+				i = j;
+			}
+
+			// fetch central directory
+			long offset = output.position();
+			fetched += fetch(reader, offset, jarSize - offset, output);
+		}
+
+		// verify jar
+		if (Files.size(newJar) != jarSize || !Utility.getSHA256(newJar).equals(jarHash))
+			throw new Exception("Assembled jar '" + newJar.getFileName() + "' doesn't match the entry index.");
+
+		// return fetched bytes
+		return fetched;
+	}
+
+	/**
+	 * Fetches the given range of the published jar and appends it to the output.
+	 *
+	 * @param reader
+	 *            Range reader.
+	 * @param offset
+	 *            Offset of range.
+	 * @param length
+	 *            Length of range.
+	 * @param output
+	 *            Output channel.
+	 * @return Number of bytes fetched.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private static long fetch(RangeReader reader, long offset, long length, FileChannel output) throws Exception {
+		try (ReadableByteChannel range = Channels.newChannel(reader.open(offset, length))) {
+			long position = output.position();
+			for (long done = 0; done < length;) {
+				long n = output.transferFrom(range, position + done, length - done);
+				if (n <= 0)
+					throw new EOFException("Unexpected end of range.");
+				done += n;
+			}
+			output.position(position + length);
+		}
+		return length;
+	}
+
+	/**
+	 * Creates the entry index of the given jar file.
+	 *
+	 * @param jar
+	 *            Path to jar file.
+	 * @param entryIndex
+	 *            Path to output entry index file.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public static void create(Path jar, Path entryIndex) throws Exception {
+
+		// read records
+		ArrayList<Record> records = readRecords(jar);
+
+		// check layout (entries must be contiguous starting from the beginning of the file)
+		long offset = 0;
+		for (Record record : records) {
+			if (record.offset != offset)
+				throw new IOException("Unsupported jar layout. Entries are not contiguous.");
+			offset = record.dataOffset + record.dataLength;
+		}
+
+		// write entry index
+		try (BufferedWriter writer = Files.newBufferedWriter(entryIndex, StandardCharsets.UTF_8)) {
+			writer.write(HEADER);
+			writer.newLine();
+			writer.write(Utility.getSHA256(jar) + "\t" + Files.size(jar));
+			writer.newLine();
+			for (Record record : records) {
+				writer.write(record.dataHash + "\t" + record.dataLength + "\t" + Base64.getEncoder().encodeToString(record.header) + "\t" + record.name);
+				writer.newLine();
+			}
+		}
+	}
+
+	/**
+	 * Reads entry records of the given jar file in file order. The data of each record extends up to the next record (or the central directory), so that data descriptors are included.
+	 *
+	 * @param jar
+	 *            Path to jar file.
+	 * @return Entry records of the jar file.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private static ArrayList<Record> readRecords(Path jar) throws Exception {
+
+		try (RandomAccessFile file = new RandomAccessFile(jar.toFile(), "r")) {
+
+			// find end of central directory record
+			long length = file.length();
+			int tailLength = (int) Math.min(length, 0xffff + 22);
+			ByteBuffer tail = ByteBuffer.allocate(tailLength).order(ByteOrder.LITTLE_ENDIAN);
+			file.seek(length - tailLength);
+			file.readFully(tail.array());
+			int eocd = -1;
+			for (int i = tailLength - 22; i >= 0; i--) {
+				if (tail.getInt(i) == END_OF_CENTRAL_DIR) {
+					eocd = i;
+					break;
+				}
+			}
+			if (eocd == -1)
+				throw new IOException("End of central directory not found in '" + jar.getFileName() + "'.");
+
+			// read central directory location
+			int entryCount = tail.getShort(eocd + 10) & 0xffff;
+			long cdSize = tail.getInt(eocd + 12) & 0xffffffffL;
+			long cdOffset = tail.getInt(eocd + 16) & 0xffffffffL;
+			if (entryCount == 0xffff || cdOffset == 0xffffffffL)
+				throw new IOException("ZIP64 archives are not supported.");
+
+			// read central directory
+			ByteBuffer cd = ByteBuffer.allocate((int) cdSize).order(ByteOrder.LITTLE_ENDIAN);
+			file.seek(cdOffset);
+			file.readFully(cd.array());
+			ArrayList<long[]> offsets = new ArrayList<>();
+			ArrayList<String> names = new ArrayList<>();
+			for (int i = 0, pos = 0; i < entryCount; i++) {
+				if (cd.getInt(pos) != CENTRAL_HEADER)
+					throw new IOException("Invalid central directory in '" + jar.getFileName() + "'.");
+				int nameLength = cd.getShort(pos + 28) & 0xffff, extraLength = cd.getShort(pos + 30) & 0xffff, commentLength = cd.getShort(pos + 32) & 0xffff;
+				offsets.add(new long[] { cd.getInt(pos + 42) & 0xffffffffL, i });
+				names.add(new String(cd.array(), pos + 46, nameLength, StandardCharsets.UTF_8));
+				pos += 46 + nameLength + extraLength + commentLength;
+			}
+			offsets.sort((o1, o2) -> Long.compare(o1[0], o2[0]));
+
+			// create records
+			ArrayList<Record> records = new ArrayList<>();
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[] buffer = new byte[8192];
+			for (int i = 0; i < offsets.size(); i++) {
+
+				// read local header
+				long offset = offsets.get(i)[0];
+				long end = i + 1 < offsets.size() ? offsets.get(i + 1)[0] : cdOffset;
+				ByteBuffer fixed = ByteBuffer.allocate(30).order(ByteOrder.LITTLE_ENDIAN);
+				file.seek(offset);
+				file.readFully(fixed.array());
+				if (fixed.getInt(0) != LOCAL_HEADER)
+					throw new IOException("Invalid local header in '" + jar.getFileName() + "'.");
+				byte[] header = new byte[30 + (fixed.getShort(26) & 0xffff) + (fixed.getShort(28) & 0xffff)];
+				file.seek(offset);
+				file.readFully(header);
+
+				// hash data
+				long dataOffset = offset + header.length;
+				for (long remaining = end - dataOffset; remaining > 0;) {
+					int n = (int) Math.min(buffer.length, remaining);
+					file.readFully(buffer, 0, n);
+					digest.update(buffer, 0, n);
+					remaining -= n;
+				}
+				records.add(new Record(names.get((int) offsets.get(i)[1]), offset, header, end - dataOffset, Utility.toHexString(digest.digest())));
+			}
+			return records;
+		}
+	}
+
+	/**
+	 * Class for jar entry record (local header followed by entry data).
+	 *
+	 * @author Murat Artim
+	 * @date 18 Oct 2026
+	 * @time 22:15:00
+	 */
+	private static class Record {
+
+		/** Entry name. */
+		private final String name;
+
+		/** Offset of local header. */
+		private final long offset;
+
+		/** Local header bytes. */
+		private final byte[] header;
+
+		/** Offset and length of entry data. */
+		private final long dataOffset, dataLength;
+
+		/** SHA-256 of entry data. */
+		private final String dataHash;
+
+		/**
+		 * Creates jar entry record.
+		 *
+		 * @param name
+		 *            Entry name.
+		 * @param offset
+		 *            Offset of local header.
+		 * @param header
+		 *            Local header bytes.
+		 * @param dataLength
+		 *            Length of entry data.
+		 * @param dataHash
+		 *            SHA-256 of entry data.
+		 */
+		private Record(String name, long offset, byte[] header, long dataLength, String dataHash) {
+			this.name = name;
+			this.offset = offset;
+			this.header = header;
+			this.dataOffset = offset + header.length;
+			this.dataLength = dataLength;
+			this.dataHash = dataHash;
+		}
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package container.utility;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import container.AppContainer;
+import container.data.AppManifest;
+import container.data.ApplicationResource;
+
+/**
+ * Utility class for library set resources. Each library of a library set resource is listed in a manifest section named after its relative path, together with its SHA-256 hash:
+ *
+ * <pre>
+ * Name: libs/jsch-0.1.54.jar
+ * SHA-256: &lt;hash of library&gt;
+ * </pre>
+ *
+ * Libraries are then compared one by one, and only the changed libraries are downloaded (from the same relative path under the manifest location).
+ *
+ * @author Murat Artim
+ * @date 18 Oct 2026
+ * @time 22:15:28
+ */
+public class LibrarySet {
+
+	/**
+	 * Returns the hashes of the libraries of the given resource listed in the given manifest, sorted by library path. An empty map is returned if the manifest doesn't list any library of the resource. Sections whose names are not plain relative paths (such as <code>libs/../../file</code>) are ignored.
+	 *
+	 * @param manifest
+	 *            Application manifest.
+	 * @param resource
+	 *            Application resource.
+	 * @return Mapping of library paths to hashes.
+	 */
+	public static TreeMap<String, String> getHashes(AppManifest manifest, ApplicationResource resource) {
+
+		// create mapping
+		TreeMap<String, String> hashes = new TreeMap<>();
+
+		// not a library set, or manifest doesn't exist
+		if (!resource.isLibrarySet() || manifest == null)
+			return hashes;
+
+		// collect sections belonging to resource
+		for (String section : manifest.getSectionNames()) {
+			String hash = manifest.getSectionAttribute(section, BinaryDelta.HASH_ATTRIBUTE);
+			if (hash != null && new FileIndex.Entry(section, hash, 0L).belongsTo(resource.getFileNames())) {
+				if (!isRelativePath(section)) {
+					AppContainer.LOGGER.warning("Invalid library path in manifest: " + section);
+					continue;
+				}
+				hashes.put(section, hash.trim());
+			}
+		}
+
+		// return hashes
+		return hashes;
+	}
+
+	/**
+	 * Returns true if the given path is a plain relative path, i.e. it consists of non-empty segments separated by slashes, none of which is <code>.</code> or <code>..</code>.
+	 *
+	 * @param path
+	 *            Path to check.
+	 * @return True if the given path is a plain relative path.
+	 */
+	private static boolean isRelativePath(String path) {
+		if (path.indexOf('\\') >= 0 || path.indexOf(':') >= 0)
+			return false;
+		for (String segment : path.split("/", -1)) {
+			if (segment.isEmpty() || segment.equals(".") || segment.equals(".."))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the paths of libraries which are new or changed in the remote manifest, or missing in the application directory.
+	 *
+	 * @param remoteHashes
+	 *            Library hashes from the remote manifest.
+	 * @param installedHashes
+	 *            Library hashes from the installed manifest.
+	 * @param appDir
+	 *            Application directory.
+	 * @return The paths of libraries to download.
+	 */
+	public static ArrayList<String> getChanged(TreeMap<String, String> remoteHashes, TreeMap<String, String> installedHashes, Path appDir) {
+		ArrayList<String> changed = new ArrayList<>();
+		for (Map.Entry<String, String> library : remoteHashes.entrySet()) {
+			if (!library.getValue().equals(installedHashes.get(library.getKey())) || !Files.exists(appDir.resolve(library.getKey()))) {
+				changed.add(library.getKey());
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Returns the paths of installed files of the given resource which are not listed in the remote manifest.
+	 *
+	 * @param resource
+	 *            Application resource.
+	 * @param remoteHashes
+	 *            Library hashes from the remote manifest.
+	 * @param appDir
+	 *            Application directory.
+	 * @return The paths of files to remove.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	public static ArrayList<String> getRemoved(ApplicationResource resource, TreeMap<String, String> remoteHashes, Path appDir) throws IOException {
+		ArrayList<String> removed = new ArrayList<>();
+		for (String fileName : resource.getFileNames()) {
+			Path root = appDir.resolve(fileName);
+			if (!Files.exists(root)) {
+				continue;
+			}
+			try (Stream<Path> files = Files.walk(root)) {
+				files.filter(Files::isRegularFile).forEach(file -> {
+					String path = appDir.relativize(file).toString().replace('\\', '/');
+					if (!remoteHashes.containsKey(path)) {
+						removed.add(path);
+					}
+				});
+			}
+		}
+		return removed;
+	}
+}
@@ -0,0 +1,396 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package container.utility;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import container.data.Settings;
+
+/**
+ * Class for encryption of application resources. Encrypted resources are AES-GCM encrypted in frames, so that they can be decrypted and authenticated as a stream (see {@link #decrypt(InputStream, SecretKey)}) while they are extracted, without writing the plain content to disk.
+ * <p>
+ * An encrypted resource starts with a header (magic number, format version, frame size and a random nonce prefix), followed by frames. Each frame consists of its length (the highest bit marking the final frame) and the encrypted content with its authentication tag. Frames are encrypted with the nonce prefix followed by the frame index, and authenticated together with the header and the final frame flag; so that modified, reordered or truncated resources are rejected.
+ *
+ * @author Murat Artim
+ * @date 18 Oct 2026
+ * @time 22:44:06
+ */
+public final class ResourceCipher {
+
+	/** Magic number of encrypted resources ("ACRE"). */
+	private static final int MAGIC = 0x41435245;
+
+	/** Format version. */
+	private static final byte VERSION = 1;
+
+	/** Header length. */
+	private static final int HEADER_LENGTH = 4 + 1 + 4 + 8;
+
+	/** Plain content size of frames. */
+	private static final int FRAME_SIZE = 256 * 1024;
+
+	/** Authentication tag length in bytes. */
+	private static final int TAG_LENGTH = 16;
+
+	/** Final frame flag. */
+	private static final int FINAL_FRAME = 0x80000000;
+
+	/** Cipher transformation. */
+	private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
+	/** Random number generator for nonces. */
+	private static final SecureRandom RANDOM = new SecureRandom();
+
+	/**
+	 * No instantiation allowed.
+	 */
+	private ResourceCipher() {
+		// no implementation
+	}
+
+	/**
+	 * Returns the resource key given in the settings (see {@link Settings#RESOURCE_KEY}).
+	 *
+	 * @param settings
+	 *            Application settings.
+	 * @return The resource key.
+	 * @throws IOException
+	 *             If no valid resource key is given in the settings.
+	 */
+	public static SecretKey getKey(Settings settings) throws IOException {
+		String key = (String) settings.getSetting(Settings.RESOURCE_KEY);
+		if (key == null || key.trim().isEmpty())
+			throw new IOException("No resource key given in settings. Encrypted resources cannot be installed.");
+		try {
+			byte[] bytes = Base64.getDecoder().decode(key.trim());
+			if (bytes.length != 16 && bytes.length != 24 && bytes.length != 32)
+				throw new IllegalArgumentException("Invalid key length: " + bytes.length);
+			return new SecretKeySpec(bytes, "AES");
+		}
+		catch (IllegalArgumentException e) {
+			throw new IOException("Invalid resource key given in settings.", e);
+		}
+	}
+
+	/**
+	 * Generates a new 256 bit resource key.
+	 *
+	 * @return Base64 encoded resource key.
+	 * @throws GeneralSecurityException
+	 *             If AES is not available.
+	 */
+	public static String generateKey() throws GeneralSecurityException {
+		KeyGenerator generator = KeyGenerator.getInstance("AES");
+		generator.init(256, RANDOM);
+		return Base64.getEncoder().encodeToString(generator.generateKey().getEncoded());
+	}
+
+	/**
+	 * Encrypts the given plain stream to the given output stream. Neither stream is closed.
+	 *
+	 * @param input
+	 *            Plain stream.
+	 * @param output
+	 *            Output stream.
+	 * @param key
+	 *            Resource key.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	public static void encrypt(InputStream input, OutputStream output, SecretKey key) throws IOException {
+
+		try {
+
+			// write header
+			byte[] header = ByteBuffer.allocate(HEADER_LENGTH).putInt(MAGIC).put(VERSION).putInt(FRAME_SIZE).putLong(RANDOM.nextLong()).array();
+			output.write(header);
+
+			// read ahead one frame (to know whether the current frame is the final one)
+			Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+			byte[] current = new byte[FRAME_SIZE], next = new byte[FRAME_SIZE], encrypted = new byte[FRAME_SIZE + TAG_LENGTH];
+			int length = readFrame(input, current);
+			int index = 0;
+			while (true) {
+				int nextLength = length == FRAME_SIZE ? readFrame(input, next) : 0;
+				boolean last = nextLength == 0;
+
+				// encrypt frame
+				cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH * 8, nonce(header, index)));
+				cipher.updateAAD(header);
+				cipher.updateAAD(new byte[] { (byte) (last ? 1 : 0) });
+				int encryptedLength = cipher.doFinal(current, 0, length, encrypted, 0);
+
+				// write frame
+				output.write(ByteBuffer.allocate(4).putInt(encryptedLength | (last ? FINAL_FRAME : 0)).array());
+				output.write(encrypted, 0, encryptedLength);
+				if (last)
+					break;
+
+				// next frame
+				byte[] temp = current;
+				current = next;
+				next = temp;
+				length = nextLength;
+				index++;
+			}
+		}
+
+		// cipher not available
+		catch (GeneralSecurityException e) {
+			throw new IOException("Resource could not be encrypted.", e);
+		}
+	}
+
+	/**
+	 * Returns a stream decrypting the given encrypted stream. Frames are authenticated before their content is returned, so that no unauthenticated content is ever read. Closing the returned stream closes the encrypted stream.
+	 *
+	 * @param input
+	 *            Encrypted stream.
+	 * @param key
+	 *            Resource key.
+	 * @return The decrypting stream.
+	 * @throws IOException
+	 *             If the header of the encrypted stream is invalid.
+	 */
+	public static InputStream decrypt(InputStream input, SecretKey key) throws IOException {
+		return new DecryptingInputStream(input, key);
+	}
+
+	/**
+	 * Encrypts small values (such as passwords) with the given key. The result consists of a random nonce followed by the encrypted value and its authentication tag.
+	 *
+	 * @param value
+	 *            Value to encrypt.
+	 * @param key
+	 *            Key.
+	 * @return The encrypted value.
+	 * @throws GeneralSecurityException
+	 *             If exception occurs during process.
+	 */
+	public static byte[] seal(byte[] value, SecretKey key) throws GeneralSecurityException {
+		byte[] nonce = new byte[12];
+		RANDOM.nextBytes(nonce);
+		Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+		cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH * 8, nonce));
+		byte[] encrypted = cipher.doFinal(value);
+		byte[] sealed = Arrays.copyOf(nonce, nonce.length + encrypted.length);
+		System.arraycopy(encrypted, 0, sealed, nonce.length, encrypted.length);
+		return sealed;
+	}
+
+	/**
+	 * Decrypts values encrypted with {@link #seal(byte[], SecretKey)}.
+	 *
+	 * @param sealed
+	 *            Encrypted value.
+	 * @param key
+	 *            Key.
+	 * @return The decrypted value.
+	 * @throws GeneralSecurityException
+	 *             If the value cannot be decrypted or authenticated.
+	 */
+	public static byte[] open(byte[] sealed, SecretKey key) throws GeneralSecurityException {
+		Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+		cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH * 8, sealed, 0, 12));
+		return cipher.doFinal(sealed, 12, sealed.length - 12);
+	}
+
+	/**
+	 * Returns the nonce of the frame with the given index.
+	 *
+	 * @param header
+	 *            Header of encrypted resource.
+	 * @param index
+	 *            Frame index.
+	 * @return The nonce of the frame.
+	 */
+	private static byte[] nonce(byte[] header, int index) {
+		return ByteBuffer.allocate(12).put(header, HEADER_LENGTH - 8, 8).putInt(index).array();
+	}
+
+	/**
+	 * Reads a frame of plain content. Fewer bytes than the frame size are only read at the end of the stream.
+	 *
+	 * @param input
+	 *            Plain stream.
+	 * @param frame
+	 *            Frame to fill.
+	 * @return Number of bytes read.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	private static int readFrame(InputStream input, byte[] frame) throws IOException {
+		int count = 0;
+		while (count < frame.length) {
+			int len = input.read(frame, count, frame.length - count);
+			if (len < 0) {
+				break;
+			}
+			count += len;
+		}
+		return count;
+	}
+
+	/**
+	 * Inner class for decrypting stream.
+	 *
+	 * @author Murat Artim
+	 * @date 18 Oct 2026
+	 * @time 22:44:35
+	 */
+	private static class DecryptingInputStream extends InputStream {
+
+		/** Encrypted stream. */
+		private final DataInputStream input;
+
+		/** Resource key. */
+		private final SecretKey key;
+
+		/** Header of encrypted resource. */
+		private final byte[] header = new byte[HEADER_LENGTH];
+
+		/** Cipher. */
+		private final Cipher cipher;
+
+		/** Encrypted and decrypted frames. */
+		private final byte[] encrypted, frame;
+
+		/** Frame index, length and read position. */
+		private int index = 0, length = 0, position = 0;
+
+		/** True if the final frame is read. */
+		private boolean finished = false;
+
+		/**
+		 * Creates decrypting stream.
+		 *
+		 * @param input
+		 *            Encrypted stream.
+		 * @param key
+		 *            Resource key.
+		 * @throws IOException
+		 *             If the header of the encrypted stream is invalid.
+		 */
+		public DecryptingInputStream(InputStream input, SecretKey key) throws IOException {
+
+			// read header
+			this.input = new DataInputStream(input);
+			this.key = key;
+			this.input.readFully(header);
+			ByteBuffer buffer = ByteBuffer.wrap(header);
+			if (buffer.getInt() != MAGIC || buffer.get() != VERSION)
+				throw new IOException("Resource is not encrypted, or it is encrypted with an unsupported format.");
+			int frameSize = buffer.getInt();
+			if (frameSize <= 0 || frameSize > 64 * 1024 * 1024)
+				throw new IOException("Invalid frame size of encrypted resource: " + frameSize);
+
+			// create cipher and frames
+			try {
+				cipher = Cipher.getInstance(TRANSFORMATION);
+			}
+			catch (GeneralSecurityException e) {
+				throw new IOException("Resource could not be decrypted.", e);
+			}
+			encrypted = new byte[frameSize + TAG_LENGTH];
+			frame = new byte[frameSize];
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+			return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+
+			// read next frames (frames may be empty)
+			while (position == length) {
+				if (finished)
+					return -1;
+				readNextFrame();
+			}
+
+			// copy from frame
+			int count = Math.min(len, length - position);
+			System.arraycopy(frame, position, b, off, count);
+			position += count;
+			return count;
+		}
+
+		@Override
+		public int available() {
+			return length - position;
+		}
+
+		@Override
+		public void close() throws IOException {
+			input.close();
+		}
+
+		/**
+		 * Reads, authenticates and decrypts the next frame.
+		 *
+		 * @throws IOException
+		 *             If the frame cannot be read or authenticated.
+		 */
+		private void readNextFrame() throws IOException {
+
+			// read frame
+			int frameLength;
+			try {
+				frameLength = input.readInt();
+			}
+			catch (EOFException e) {
+				throw new IOException("Encrypted resource is truncated.", e);
+			}
+			boolean last = (frameLength & FINAL_FRAME) != 0;
+			frameLength &= ~FINAL_FRAME;
+			if (frameLength < TAG_LENGTH || frameLength > encrypted.length)
+				throw new IOException("Invalid frame length of encrypted resource: " + frameLength);
+			input.readFully(encrypted, 0, frameLength);
+
+			// decrypt and authenticate frame
+			try {
+				cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH * 8, nonce(header, index)));
+				cipher.updateAAD(header);
+				cipher.updateAAD(new byte[] { (byte) (last ? 1 : 0) });
+				length = cipher.doFinal(encrypted, 0, frameLength, frame, 0);
+			}
+			catch (GeneralSecurityException e) {
+				throw new IOException("Encrypted resource could not be authenticated. It may be corrupted, or encrypted with another key.", e);
+			}
+			position = 0;
+			index++;
+			finished = last;
+		}
+	}
+}
@@ -0,0 +1,381 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package container.utility;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import container.utility.ZipExtractor.ExtractionListener;
+
+/**
+ * Class for uncompressed tar archive format. POSIX (ustar and pax) and GNU (long names) archives are supported. Regular files and directories are extracted; links and special files are skipped.
+ * <p>
+ * Compressed tar formats extend this class and decompress the archive stream (see {@link #decompress(InputStream)}). Since tar archives are compressed as a whole, they compress considerably better than ZIP archives of many small files.
+ *
+ * @author Murat Artim
+ * @date 18 Oct 2026
+ * @time 22:40:28
+ */
+public class TarArchiveFormat implements ArchiveFormat {
+
+	/** Format name. */
+	public static final String NAME = "tar";
+
+	/** Size of tar blocks. */
+	private static final int BLOCK = 512;
+
+	/** Buffer size for extracting files. */
+	private static final int BUFSIZE = 256 * 1024;
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public String[] getExtensions() {
+		return new String[] { ".tar" };
+	}
+
+	@Override
+	public void extract(InputStream input, Path outputDir, ExtractionListener listener) throws IOException {
+		Path root = outputDir.toAbsolutePath().normalize();
+		extract(input, (entryName, directory) -> ArchiveFormats.resolveEntry(root, entryName), listener);
+	}
+
+	@Override
+	public void extract(InputStream input, EntryTarget target, ExtractionListener listener) throws IOException {
+
+		// create decompressed stream (not closed, since the input stream is not closed)
+		InputStream tar = decompress(input);
+
+		// loop over headers
+		byte[] header = new byte[BLOCK], buffer = new byte[BUFSIZE];
+		String longName = null;
+		long paxSize = -1;
+		int processed = 0;
+		while (readHeader(tar, header)) {
+
+			// get entry name, size and type (extended headers override the name and size of the next entry)
+			String name = longName != null ? longName : getName(header);
+			long size = paxSize >= 0 ? paxSize : parseNumber(header, 124, 12);
+			byte type = header[156];
+
+			// GNU long name of next entry
+			if (type == 'L') {
+				longName = readString(tar, size, buffer);
+				continue;
+			}
+
+			// pax extended header of next entry
+			if (type == 'x') {
+				String[] attributes = readString(tar, size, buffer).split("\n");
+				for (String attribute : attributes) {
+					int space = attribute.indexOf(' '), equals = attribute.indexOf('=');
+					if (space < 0 || equals < space)
+						continue;
+					String key = attribute.substring(space + 1, equals), value = attribute.substring(equals + 1);
+					if (key.equals("path")) {
+						longName = value;
+					}
+					else if (key.equals("size")) {
+						paxSize = Long.parseLong(value);
+					}
+				}
+				continue;
+			}
+			longName = null;
+			paxSize = -1;
+
+			// directory
+			if (type == '5') {
+				Path dir = target.getTarget(name, true);
+				if (dir == null) {
+					skip(tar, size + padding(size), buffer);
+					continue;
+				}
+				Files.createDirectories(dir);
+			}
+
+			// regular file
+			else if (type == '0' || type == 0 || type == '7') {
+				Path file = target.getTarget(name, false);
+				if (file == null) {
+					skip(tar, size + padding(size), buffer);
+					continue;
+				}
+				Files.createDirectories(file.getParent());
+				Files.deleteIfExists(file);
+				try (OutputStream output = Files.newOutputStream(file)) {
+					copy(tar, output, size, buffer);
+				}
+				skip(tar, padding(size), buffer);
+			}
+
+			// other entry types (global pax headers, links, special files)
+			else {
+				skip(tar, size + padding(size), buffer);
+				continue;
+			}
+
+			// progress info
+			processed++;
+			if (listener != null) {
+				listener.entryExtracted(name, processed, -1);
+			}
+		}
+	}
+
+	/**
+	 * Returns the decompressed archive stream. This implementation returns the given stream (tar archives are not compressed).
+	 *
+	 * @param input
+	 *            Archive stream.
+	 * @return The decompressed archive stream.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	protected InputStream decompress(InputStream input) throws IOException {
+		return input;
+	}
+
+	/**
+	 * Reads the next header block.
+	 *
+	 * @param tar
+	 *            Tar stream.
+	 * @param header
+	 *            Header block to fill.
+	 * @return True if a header was read, false if the end of archive is reached.
+	 * @throws IOException
+	 *             If the header is truncated or corrupted.
+	 */
+	private static boolean readHeader(InputStream tar, byte[] header) throws IOException {
+
+		// read block (end of stream without end of archive blocks is accepted)
+		int count = 0;
+		while (count < BLOCK) {
+			int len = tar.read(header, count, BLOCK - count);
+			if (len < 0) {
+				if (count == 0)
+					return false;
+				throw new EOFException("Truncated tar header.");
+			}
+			count += len;
+		}
+
+		// end of archive (zero block)
+		boolean zero = true;
+		for (byte b : header) {
+			if (b != 0) {
+				zero = false;
+				break;
+			}
+		}
+		if (zero)
+			return false;
+
+		// verify checksum (checksum field is summed as spaces)
+		long sum = 0;
+		for (int i = 0; i < BLOCK; i++) {
+			sum += i >= 148 && i < 156 ? ' ' : header[i] & 0xff;
+		}
+		if (sum != parseNumber(header, 148, 8))
+			throw new IOException("Invalid tar header checksum.");
+		return true;
+	}
+
+	/**
+	 * Returns the entry name of the given header (prefixed with the ustar prefix, if any).
+	 *
+	 * @param header
+	 *            Header block.
+	 * @return The entry name of the given header.
+	 */
+	private static String getName(byte[] header) {
+		String name = getString(header, 0, 100);
+		if (getString(header, 257, 6).startsWith("ustar")) {
+			String prefix = getString(header, 345, 155);
+			if (!prefix.isEmpty())
+				return prefix + "/" + name;
+		}
+		return name;
+	}
+
+	/**
+	 * Returns the NUL terminated string in the given header field.
+	 *
+	 * @param header
+	 *            Header block.
+	 * @param offset
+	 *            Field offset.
+	 * @param length
+	 *            Field length.
+	 * @return The string.
+	 */
+	private static String getString(byte[] header, int offset, int length) {
+		int end = offset;
+		while (end < offset + length && header[end] != 0) {
+			end++;
+		}
+		return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Parses the numeric header field (octal, or base-256 for large values).
+	 *
+	 * @param header
+	 *            Header block.
+	 * @param offset
+	 *            Field offset.
+	 * @param length
+	 *            Field length.
+	 * @return The number.
+	 * @throws IOException
+	 *             If the field is invalid.
+	 */
+	private static long parseNumber(byte[] header, int offset, int length) throws IOException {
+
+		// base-256
+		if ((header[offset] & 0x80) != 0) {
+			long value = header[offset] & 0x7f;
+			for (int i = offset + 1; i < offset + length; i++) {
+				value = value << 8 | header[i] & 0xff;
+			}
+			return value;
+		}
+
+		// octal
+		String field = new String(header, offset, length, StandardCharsets.US_ASCII).replace('\0', ' ').trim();
+		try {
+			return field.isEmpty() ? 0L : Long.parseLong(field, 8);
+		}
+		catch (NumberFormatException e) {
+			throw new IOException("Invalid tar header field '" + field + "'.", e);
+		}
+	}
+
+	/**
+	 * Reads the string content of an extended header entry.
+	 *
+	 * @param tar
+	 *            Tar stream.
+	 * @param size
+	 *            Entry size.
+	 * @param buffer
+	 *            Buffer to use.
+	 * @return The string content (without trailing NUL characters).
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	private static String readString(InputStream tar, long size, byte[] buffer) throws IOException {
+		if (size > buffer.length)
+			throw new IOException("Tar extended header is too large.");
+		readFully(tar, buffer, (int) size);
+		int end = (int) size;
+		while (end > 0 && buffer[end - 1] == 0) {
+			end--;
+		}
+		String string = new String(buffer, 0, end, StandardCharsets.UTF_8);
+		skip(tar, padding(size), buffer);
+		return string;
+	}
+
+	/**
+	 * Copies the given number of bytes from the tar stream to the output stream.
+	 *
+	 * @param tar
+	 *            Tar stream.
+	 * @param output
+	 *            Output stream.
+	 * @param size
+	 *            Number of bytes to copy.
+	 * @param buffer
+	 *            Buffer to use.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	private static void copy(InputStream tar, OutputStream output, long size, byte[] buffer) throws IOException {
+		long remaining = size;
+		while (remaining > 0) {
+			int len = tar.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+			if (len < 0)
+				throw new EOFException("Truncated tar entry.");
+			output.write(buffer, 0, len);
+			remaining -= len;
+		}
+	}
+
+	/**
+	 * Skips the given number of bytes of the tar stream.
+	 *
+	 * @param tar
+	 *            Tar stream.
+	 * @param size
+	 *            Number of bytes to skip.
+	 * @param buffer
+	 *            Buffer to use.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	private static void skip(InputStream tar, long size, byte[] buffer) throws IOException {
+		long remaining = size;
+		while (remaining > 0) {
+			int len = tar.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+			if (len < 0)
+				throw new EOFException("Truncated tar entry.");
+			remaining -= len;
+		}
+	}
+
+	/**
+	 * Reads the given number of bytes into the buffer.
+	 *
+	 * @param tar
+	 *            Tar stream.
+	 * @param buffer
+	 *            Buffer to fill.
+	 * @param length
+	 *            Number of bytes to read.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	private static void readFully(InputStream tar, byte[] buffer, int length) throws IOException {
+		int count = 0;
+		while (count < length) {
+			int len = tar.read(buffer, count, length - count);
+			if (len < 0)
+				throw new EOFException("Truncated tar entry.");
+			count += len;
+		}
+	}
+
+	/**
+	 * Returns the number of padding bytes following an entry of the given size.
+	 *
+	 * @param size
+	 *            Entry size.
+	 * @return The number of padding bytes.
+	 */
+	private static long padding(long size) {
+		return (BLOCK - size % BLOCK) % BLOCK;
+	}
+}
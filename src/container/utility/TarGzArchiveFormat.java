@@ -0,0 +1,48 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package container.utility;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Class for gzip compressed tar archive format.
+ *
+ * @author Murat Artim
+ * @date 18 Oct 2026
+ * @time 22:40:16
+ */
+public class TarGzArchiveFormat extends TarArchiveFormat {
+
+	/** Format name. */
+	public static final String NAME = "tar.gz";
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public String[] getExtensions() {
+		return new String[] { ".tar.gz", ".tgz" };
+	}
+
+	@Override
+	protected InputStream decompress(InputStream input) throws IOException {
+		return new GZIPInputStream(input, 64 * 1024);
+	}
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package container.utility;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.stream.Stream;
+
+import container.AppContainer;
+
+/**
+ * Class for trash. Files and directories are deleted by moving (renaming) them into the trash directory, which returns immediately. The trash is then emptied by a background deleter, which deletes files in parallel at low priority. Files left in the trash (e.g. when the container is closed while deleting) are deleted after the next start.
+ * <p>
+ * Files are deleted in place when they cannot be moved into the trash (e.g. when the trash is not started, or it's on a different file system).
+ *
+ * @author Murat Artim
+ * @date 18 Oct 2026
+ * @time 22:55:05
+ */
+public final class Trash {
+
+	/** Number of files deleted by each deletion task. */
+	private static final int BATCH_SIZE = 256;
+
+	/** Counter for names of trashed files. */
+	private static final AtomicLong COUNTER = new AtomicLong();
+
+	/** Trash directory (null if the trash is not started). */
+	private static Path trashDir;
+
+	/** Background deleter (null if it's not running). */
+	private static Thread deleter;
+
+	/** True if files were trashed after the background deleter started its last pass. */
+	private static boolean trashed;
+
+	/**
+	 * No instantiation allowed.
+	 */
+	private Trash() {
+		// no implementation
+	}
+
+	/**
+	 * Starts the trash in the trash directory of the container. Files left in the trash by earlier runs are deleted in the background.
+	 */
+	public static synchronized void start() {
+		trashDir = AppContainer.TRASH_DIR;
+		emptyInBackground();
+	}
+
+	/**
+	 * Deletes the given file or directory (recursively), by moving it into the trash. Nothing is done if the file doesn't exist.
+	 *
+	 * @param path
+	 *            Path to file or directory to delete.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	public static void delete(Path path) throws IOException {
+
+		// file doesn't exist
+		if (!Files.exists(path))
+			return;
+
+		// move file into trash
+		Path dir = getTrashDir();
+		if (dir != null) {
+			try {
+				Files.move(path, dir.resolve(COUNTER.incrementAndGet() + "-" + System.currentTimeMillis() + "-" + path.getFileName()), StandardCopyOption.ATOMIC_MOVE);
+				emptyInBackground();
+				return;
+			}
+
+			// cannot be moved (deleted in place below)
+			catch (IOException e) {
+				AppContainer.LOGGER.log(Level.FINE, "'" + path + "' could not be moved into trash. Deleting it in place.", e);
+			}
+		}
+
+		// delete file in place
+		Utility.deleteTemporaryFiles(path);
+	}
+
+	/**
+	 * Deletes the contents of the given directory, by moving them into the trash.
+	 *
+	 * @param dir
+	 *            Directory to empty.
+	 * @param keep
+	 *            Files and directories of the given directory to keep.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	public static void deleteContents(Path dir, Path... keep) throws IOException {
+		List<Path> kept = Arrays.asList(keep);
+		ArrayList<Path> contents = new ArrayList<>();
+		try (DirectoryStream<Path> dirStream = Files.newDirectoryStream(dir)) {
+			for (Path path : dirStream) {
+				if (!kept.contains(path)) {
+					contents.add(path);
+				}
+			}
+		}
+		for (Path path : contents) {
+			delete(path);
+		}
+	}
+
+	/**
+	 * Returns the trash directory.
+	 *
+	 * @return The trash directory, or null if the trash is not started.
+	 */
+	private static synchronized Path getTrashDir() {
+		return trashDir;
+	}
+
+	/**
+	 * Starts the background deleter (if it's not running).
+	 */
+	private static synchronized void emptyInBackground() {
+		trashed = true;
+		if (deleter == null) {
+			deleter = new Thread(Trash::empty, "TrashDeleter");
+			deleter.setDaemon(true);
+			deleter.setPriority(Thread.MIN_PRIORITY);
+			deleter.start();
+		}
+	}
+
+	/**
+	 * Empties the trash, until no more files are trashed. Files which cannot be deleted (e.g. files in use) are left in the trash for the next pass.
+	 */
+	private static void empty() {
+
+		// create executor for deletion tasks
+		int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+		ExecutorService executor = Executors.newFixedThreadPool(threads, task -> {
+			Thread thread = new Thread(task, "TrashDeleterTask");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		});
+
+		try {
+
+			// delete trashed files (until no more files are trashed)
+			while (true) {
+
+				// no more files trashed
+				synchronized (Trash.class) {
+					if (!trashed) {
+						deleter = null;
+						return;
+					}
+					trashed = false;
+				}
+
+				// delete contents of trash
+				try (DirectoryStream<Path> dirStream = Files.newDirectoryStream(trashDir)) {
+					for (Path path : dirStream) {
+						deleteTree(path, executor);
+					}
+				}
+				catch (IOException e) {
+					AppContainer.LOGGER.log(Level.WARNING, "Trash could not be listed.", e);
+				}
+			}
+		}
+
+		// shutdown executor
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Deletes the given file or directory recursively. Files are deleted in parallel batches, and directories are deleted after their files.
+	 *
+	 * @param path
+	 *            Path to file or directory to delete.
+	 * @param executor
+	 *            Executor for deletion tasks.
+	 */
+	private static void deleteTree(Path path, ExecutorService executor) {
+
+		try {
+
+			// submit files in batches (directories are collected in walk order)
+			ArrayList<Path> dirs = new ArrayList<>();
+			ArrayList<Future<?>> tasks = new ArrayList<>();
+			try (Stream<Path> stream = Files.walk(path)) {
+				ArrayList<Path> batch = new ArrayList<>();
+				Iterator<Path> iterator = stream.iterator();
+				while (iterator.hasNext()) {
+					Path file = iterator.next();
+					if (Files.isDirectory(file, LinkOption.NOFOLLOW_LINKS)) {
+						dirs.add(file);
+						continue;
+					}
+					batch.add(file);
+					if (batch.size() == BATCH_SIZE) {
+						tasks.add(submit(executor, batch));
+						batch = new ArrayList<>();
+					}
+				}
+				if (!batch.isEmpty()) {
+					tasks.add(submit(executor, batch));
+				}
+			}
+
+			// wait for deletion tasks
+			for (Future<?> task : tasks) {
+				task.get();
+			}
+
+			// delete directories (in reverse walk order, children before parents)
+			for (int i = dirs.size() - 1; i >= 0; i--) {
+				Files.deleteIfExists(dirs.get(i));
+			}
+		}
+
+		// exception occurred (left for the next pass)
+		catch (Exception e) {
+			AppContainer.LOGGER.log(Level.FINE, "'" + path.getFileName() + "' could not be deleted from trash.", e);
+		}
+	}
+
+	/**
+	 * Submits a deletion task for the given files.
+	 *
+	 * @param executor
+	 *            Executor for deletion tasks.
+	 * @param files
+	 *            Files to delete.
+	 * @return The deletion task.
+	 */
+	private static Future<Void> submit(ExecutorService executor, List<Path> files) {
+		return executor.submit(() -> {
+			deleteFiles(files);
+			return null;
+		});
+	}
+
+	/**
+	 * Deletes the given files.
+	 *
+	 * @param files
+	 *            Files to delete.
+	 * @throws IOException
+	 *             If a file cannot be deleted (remaining files are still deleted).
+	 */
+	private static void deleteFiles(List<Path> files) throws IOException {
+		IOException exception = null;
+		for (Path file : files) {
+			try {
+				Files.deleteIfExists(file);
+			}
+			catch (IOException e) {
+				exception = e;
+			}
+		}
+		if (exception != null)
+			throw exception;
+	}
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package container.utility;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+import container.AppContainer;
+
+/**
+ * Class for update notification channel. The channel subscribes to a Server-Sent Events endpoint and passes the data of each <code>update</code> event (or unnamed event) to its listener, so that a running container learns of new releases without polling the manifest.
+ * <p>
+ * Long-polling servers are supported as well: the server may hold the request until a release is published, answer with the events and close the response; the channel then reconnects immediately. The id of the last received event is sent with each reconnection (<code>Last-Event-ID</code> header), so that no release is missed between connections. Failed connections are retried with increasing delays (starting from the <code>retry</code> field sent by the server).
+ * <p>
+ * Connections which deliver nothing (not even a keep-alive comment) for {@link #READ_TIMEOUT} are considered dropped (e.g. half-open connections after a NAT timeout or a system resume), and are reopened. So, servers should send keep-alive comments (or answer long-polling requests) more often than that.
+ *
+ * @author Murat Artim
+ * @date 18 Oct 2026
+ * @time 22:27:47
+ */
+public class UpdateChannel implements Runnable {
+
+	/** Name of the event announcing a new release. */
+	public static final String UPDATE_EVENT = "update";
+
+	/** Read timeout in milliseconds (connections without any data for longer are reopened). */
+	public static final int READ_TIMEOUT = 120000;
+
+	/** Default and maximum reconnection delays in milliseconds. */
+	private static final long DEFAULT_RETRY = 3000L, MAX_RETRY = 300000L;
+
+	/** Location (URL) of the event stream. */
+	private final String location;
+
+	/** Connection timeout in milliseconds. */
+	private final int timeout;
+
+	/** Listener of update events. */
+	private final Consumer<String> listener;
+
+	/** Id of the last received event. */
+	private volatile String lastEventId;
+
+	/** Current connection. */
+	private volatile HttpURLConnection connection;
+
+	/** Thread running this channel. */
+	private volatile Thread thread;
+
+	/** Reconnection delay in milliseconds. */
+	private long retry = DEFAULT_RETRY;
+
+	/**
+	 * Creates update notification channel.
+	 *
+	 * @param location
+	 *            Location (URL) of the event stream.
+	 * @param timeout
+	 *            Connection timeout in milliseconds.
+	 * @param listener
+	 *            Listener of update events. This is called on the channel thread with the data of the event.
+	 */
+	public UpdateChannel(String location, int timeout, Consumer<String> listener) {
+		this.location = location;
+		this.timeout = timeout;
+		this.listener = listener;
+	}
+
+	/**
+	 * Starts this channel on a daemon thread.
+	 */
+	public void start() {
+		thread = new Thread(this, "UpdateChannel");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+	}
+
+	/**
+	 * Stops this channel.
+	 */
+	public void stop() {
+
+		// interrupt thread
+		Thread channelThread = thread;
+		thread = null;
+		if (channelThread != null) {
+			channelThread.interrupt();
+		}
+
+		// close connection (blocked reads are not interrupted by thread interruption)
+		HttpURLConnection urlConnection = connection;
+		if (urlConnection != null) {
+			urlConnection.disconnect();
+		}
+	}
+
+	@Override
+	public void run() {
+
+		// loop until stopped
+		long delay = 0L;
+		while (thread == Thread.currentThread()) {
+
+			try {
+
+				// wait before reconnecting
+				if (delay > 0) {
+					Thread.sleep(delay);
+				}
+
+				// read event stream (reconnect immediately if the server closes it after sending events, or if it timed out)
+				delay = readEvents() ? 0L : retry;
+			}
+
+			// interrupted
+			catch (InterruptedException e) {
+				break;
+			}
+
+			// connection failed (retry with increasing delays)
+			catch (Exception e) {
+				if (thread != Thread.currentThread()) {
+					break;
+				}
+				delay = delay == 0L ? retry : Math.min(delay * 2, MAX_RETRY);
+				AppContainer.LOGGER.log(Level.FINE, "Update channel connection failed. Reconnecting in " + delay + " ms.", e);
+			}
+		}
+	}
+
+	/**
+	 * Opens the event stream and dispatches its events until the stream is closed.
+	 *
+	 * @return True if any event was received, or the stream timed out (i.e. the stream can be reopened immediately).
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	private boolean readEvents() throws Exception {
+
+		// open connection
+		HttpURLConnection urlConnection = (HttpURLConnection) new URL(location).openConnection();
+		urlConnection.setConnectTimeout(timeout);
+		urlConnection.setReadTimeout(READ_TIMEOUT);
+		urlConnection.setRequestProperty("Accept", "text/event-stream");
+		urlConnection.setRequestProperty("Cache-Control", "no-cache");
+		if (lastEventId != null) {
+			urlConnection.setRequestProperty("Last-Event-ID", lastEventId);
+		}
+		connection = urlConnection;
+
+		try {
+
+			// check response
+			int responseCode = urlConnection.getResponseCode();
+			if (responseCode == HttpURLConnection.HTTP_NO_CONTENT)
+				return false;
+			if (responseCode != HttpURLConnection.HTTP_OK)
+				throw new Exception("Update channel returned HTTP " + responseCode + ".");
+
+			// read events
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(urlConnection.getInputStream(), StandardCharsets.UTF_8))) {
+				String event = null, id = null, line;
+				StringBuilder data = null;
+				boolean received = false;
+				while ((line = reader.readLine()) != null) {
+
+					// end of event
+					if (line.isEmpty()) {
+						received |= data != null;
+						if (id != null) {
+							lastEventId = id;
+						}
+						if (data != null && (event == null || event.equals(UPDATE_EVENT))) {
+							listener.accept(data.toString());
+						}
+						event = null;
+						id = null;
+						data = null;
+						continue;
+					}
+
+					// comment (keep-alive)
+					if (line.startsWith(":")) {
+						continue;
+					}
+
+					// split field
+					int index = line.indexOf(':');
+					String field = index < 0 ? line : line.substring(0, index);
+					String value = index < 0 ? "" : line.substring(index + 1);
+					if (value.startsWith(" ")) {
+						value = value.substring(1);
+					}
+
+					// event type
+					if (field.equals("event")) {
+						event = value;
+					}
+
+					// event data
+					else if (field.equals("data")) {
+						data = data == null ? new StringBuilder(value) : data.append('\n').append(value);
+					}
+
+					// event id
+					else if (field.equals("id")) {
+						id = value;
+					}
+
+					// reconnection delay
+					else if (field.equals("retry")) {
+						try {
+							retry = Math.max(1000L, Long.parseLong(value.trim()));
+						}
+						catch (NumberFormatException e) {
+							// ignore invalid value
+						}
+					}
+				}
+				return received;
+			}
+
+			// no data within read timeout (connection is considered dropped, reopen immediately)
+			catch (SocketTimeoutException e) {
+				AppContainer.LOGGER.fine("Update channel received no data for " + READ_TIMEOUT + " ms. Reconnecting.");
+				return true;
+			}
+		}
+
+		// disconnect
+		finally {
+			connection = null;
+			urlConnection.disconnect();
+		}
+	}
+}
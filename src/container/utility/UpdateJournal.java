@@ -0,0 +1,516 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package container.utility;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import container.AppContainer;
+import container.data.AppManifest;
+import container.data.ApplicationResource;
+
+/**
+ * Class for write-ahead journal of updates. The steps of an update are appended to the journal file (in cache directory) as they are completed:
+ * <ul>
+ * <li><code>BEGIN</code>: update from the installed slot to the version of the remote manifest is staged in a new slot (see {@link AppSlots}),</li>
+ * <li><code>DOWNLOADED</code>: resource is downloaded,</li>
+ * <li><code>VERIFIED</code>: downloaded resource is written to disk (and its size is recorded),</li>
+ * <li><code>EXTRACTED</code>: resource is extracted into the staged slot and its files are written to disk,</li>
+ * <li><code>COMMITTED</code>: staged slot is made the current one.</li>
+ * </ul>
+ * Files are synchronized with the disk at these commit points only (in batches), before the records which depend on them. When an update is interrupted (e.g. by a power loss), the next update to the same version resumes from the last durable step: verified downloads are kept in the temporary directory and are not downloaded again, and extracted resources are not extracted again.
+ * <p>
+ * The journal is a UTF-8 text file with one record per line, in the form <code>crc&lt;TAB&gt;type&lt;TAB&gt;field...</code>. Records are checked with their CRC-32, and the journal is read up to the first torn or corrupted record.
+ *
+ * @author Murat Artim
+ * @date 18 Oct 2026
+ * @time 22:53:23
+ */
+public final class UpdateJournal {
+
+	/** Name of the journal file (in cache directory). */
+	public static final String FILE_NAME = "update.journal";
+
+	/** Record types. */
+	private static final String BEGIN = "BEGIN", DOWNLOADED = "DOWNLOADED", VERIFIED = "VERIFIED", EXTRACTED = "EXTRACTED", COMMITTED = "COMMITTED";
+
+	/** Path to journal file. */
+	private static Path journalFile;
+
+	/** Journal file channel (opened for appending records). */
+	private static FileChannel channel;
+
+	/** Installed slot, SHA-256 of remote manifest and staged slot of the pending update (null if there is no pending update). */
+	private static String baseSlot, manifest, stagedSlot;
+
+	/** Verified downloads of the pending update (resource names mapped to paths and sizes). */
+	private static final HashMap<String, String[]> downloads = new HashMap<>();
+
+	/** Extracted resources of the pending update. */
+	private static final HashSet<String> extracted = new HashSet<>();
+
+	/**
+	 * No instantiation allowed.
+	 */
+	private UpdateJournal() {
+		// no implementation
+	}
+
+	/**
+	 * Loads the journal from the cache directory.
+	 *
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	public static synchronized void load() throws IOException {
+
+		// set path to journal file
+		journalFile = AppContainer.CACHE_DIR.resolve(FILE_NAME);
+		if (!Files.exists(journalFile))
+			return;
+
+		// read records (up to the first invalid record)
+		long length = 0L;
+		boolean truncated = false;
+		try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+
+				// invalid record
+				String[] fields = parse(line);
+				if (fields == null) {
+					truncated = true;
+					break;
+				}
+				length += line.getBytes(StandardCharsets.UTF_8).length + 1;
+
+				// apply record
+				if (fields[0].equals(BEGIN) && fields.length == 4) {
+					reset();
+					baseSlot = fields[1];
+					manifest = fields[2];
+					stagedSlot = fields[3];
+				}
+				else if (fields[0].equals(VERIFIED) && fields.length == 4) {
+					downloads.put(fields[1], new String[] { fields[2], fields[3] });
+				}
+				else if (fields[0].equals(EXTRACTED) && fields.length == 2) {
+					extracted.add(fields[1]);
+				}
+				else if (fields[0].equals(COMMITTED)) {
+					reset();
+				}
+			}
+		}
+
+		// remove invalid records (so that new records can be appended)
+		if (truncated) {
+			AppContainer.LOGGER.warning("Update journal is truncated at an invalid record.");
+			try (FileChannel journal = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+				journal.truncate(length);
+			}
+		}
+
+		// pending update
+		if (stagedSlot != null) {
+			AppContainer.LOGGER.info("Update journal has a pending update in '" + stagedSlot + "' (" + downloads.size() + " verified downloads, " + extracted.size() + " extracted resources).");
+		}
+	}
+
+	/**
+	 * Returns the name of the staged slot of the pending update, or null if there is no pending update.
+	 *
+	 * @return The name of the staged slot of the pending update, or null if there is no pending update.
+	 */
+	public static synchronized String getStagedSlot() {
+		return stagedSlot;
+	}
+
+	/**
+	 * Returns the verified downloads of the pending update. These are kept when the temporary directory is cleaned.
+	 *
+	 * @return The verified downloads of the pending update.
+	 */
+	public static synchronized Path[] getDownloads() {
+		return downloads.values().stream().map(x -> AppContainer.TEMP_DIR.resolve(x[0])).toArray(Path[]::new);
+	}
+
+	/**
+	 * Returns the staged slot of the pending update if it can be resumed. The pending update can be resumed if it updates the given installed slot to the version of the given remote manifest, and every resource is either extracted or has a valid verified download. Otherwise, null is returned; verified downloads are still reused if the update is from the same installed slot to the same version (see {@link #begin(Path, AppManifest, Path)}).
+	 *
+	 * @param base
+	 *            Installed slot.
+	 * @param remoteManifest
+	 *            Remote manifest.
+	 * @param resources
+	 *            Resources to be updated.
+	 * @return The staged slot of the pending update, or null if it cannot be resumed.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	public static synchronized Path resume(Path base, AppManifest remoteManifest, List<ApplicationResource> resources) throws IOException {
+
+		// no pending update from installed slot to remote version
+		if (stagedSlot == null || !base.getFileName().toString().equals(baseSlot) || !remoteManifest.getSHA256().equals(manifest)) {
+			reset();
+			return null;
+		}
+
+		// remove invalid downloads (deleted or modified)
+		ArrayList<String> invalid = new ArrayList<>();
+		for (Entry<String, String[]> download : downloads.entrySet()) {
+			if (!isValid(download.getValue())) {
+				invalid.add(download.getKey());
+			}
+		}
+		downloads.keySet().removeAll(invalid);
+
+		// staged slot cannot be resumed
+		Path staged = base.resolveSibling(stagedSlot);
+		if (!Files.isDirectory(staged) || !resources.stream().allMatch(x -> extracted.contains(x.toString()) || downloads.containsKey(x.toString())))
+			return null;
+
+		// resume staged slot
+		AppContainer.LOGGER.info("Resuming interrupted update in '" + stagedSlot + "'.");
+		return staged;
+	}
+
+	/**
+	 * Begins a new update. The journal is rewritten with the given update, and the verified downloads of the previous pending update (if it was to the same version).
+	 *
+	 * @param base
+	 *            Installed slot.
+	 * @param remoteManifest
+	 *            Remote manifest.
+	 * @param staged
+	 *            Staged slot.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	public static synchronized void begin(Path base, AppManifest remoteManifest, Path staged) throws IOException {
+
+		// close journal
+		close();
+
+		// set update
+		baseSlot = base.getFileName().toString();
+		manifest = remoteManifest.getSHA256();
+		stagedSlot = staged.getFileName().toString();
+		extracted.clear();
+
+		// write journal (replaced atomically)
+		Path tempFile = journalFile.resolveSibling(FILE_NAME + ".tmp");
+		StringBuilder records = new StringBuilder(format(BEGIN, baseSlot, manifest, stagedSlot));
+		for (Entry<String, String[]> download : downloads.entrySet()) {
+			records.append(format(VERIFIED, download.getKey(), download.getValue()[0], download.getValue()[1]));
+		}
+		Files.write(tempFile, records.toString().getBytes(StandardCharsets.UTF_8));
+		sync(tempFile);
+		Files.move(tempFile, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		syncDirectory(journalFile.getParent());
+	}
+
+	/**
+	 * Returns the verified download of the given resource, or null if the resource has no valid verified download.
+	 *
+	 * @param resource
+	 *            Resource name.
+	 * @return The verified download of the given resource, or null if the resource has no valid verified download.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	public static synchronized Path getDownload(String resource) throws IOException {
+		String[] download = downloads.get(resource);
+		return download != null && isValid(download) ? AppContainer.TEMP_DIR.resolve(download[0]) : null;
+	}
+
+	/**
+	 * Returns true if the given resource is extracted into the staged slot.
+	 *
+	 * @param resource
+	 *            Resource name.
+	 * @return True if the given resource is extracted into the staged slot.
+	 */
+	public static synchronized boolean isExtracted(String resource) {
+		return extracted.contains(resource);
+	}
+
+	/**
+	 * Records the download of the given resource (commit point). The downloaded files are synchronized with the disk before the download is recorded as verified.
+	 *
+	 * @param resource
+	 *            Resource name.
+	 * @param path
+	 *            Path to downloaded file or directory (in temporary directory).
+	 * @return The given path.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	public static synchronized Path downloaded(String resource, Path path) throws IOException {
+		String relativePath = AppContainer.TEMP_DIR.relativize(path).toString();
+		append(DOWNLOADED, resource, relativePath);
+		sync(path);
+		String size = Long.toString(getSize(path));
+		append(VERIFIED, resource, relativePath, size);
+		channel.force(false);
+		downloads.put(resource, new String[] { relativePath, size });
+		return path;
+	}
+
+	/**
+	 * Records the extraction of the given resource (commit point). The given installed files are synchronized with the disk before the extraction is recorded.
+	 *
+	 * @param resource
+	 *            Resource name.
+	 * @param files
+	 *            Installed files and directories of the resource.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	public static synchronized void extracted(String resource, Path... files) throws IOException {
+		sync(files);
+		append(EXTRACTED, resource);
+		channel.force(false);
+		extracted.add(resource);
+	}
+
+	/**
+	 * Records the commit of the staged slot.
+	 *
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	public static synchronized void committed() throws IOException {
+		append(COMMITTED);
+		channel.force(false);
+		close();
+		reset();
+	}
+
+	/**
+	 * Synchronizes the given files (and the files in the given directories) with the disk. Files linked to files of other application slots are skipped, since they were written by earlier installations. Files are synchronized in parallel.
+	 *
+	 * @param paths
+	 *            Files and directories to synchronize.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	public static void sync(Path... paths) throws IOException {
+
+		// collect files
+		ArrayList<Path> files = new ArrayList<>();
+		for (Path path : paths) {
+			if (path != null && Files.exists(path)) {
+				try (Stream<Path> stream = Files.walk(path)) {
+					files.addAll(stream.filter(x -> Files.isRegularFile(x) && !isLinked(x)).collect(Collectors.toList()));
+				}
+			}
+		}
+
+		// synchronize files
+		try {
+			files.parallelStream().forEach(x -> {
+				try {
+					force(x);
+				}
+				catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		}
+		catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Synchronizes the given directory (i.e. the names of its files) with the disk. This is not supported on all platforms, in which case nothing is done.
+	 *
+	 * @param dir
+	 *            Directory to synchronize.
+	 */
+	public static void syncDirectory(Path dir) {
+		try (FileChannel dirChannel = FileChannel.open(dir, StandardOpenOption.READ)) {
+			dirChannel.force(true);
+		}
+		catch (IOException e) {
+			AppContainer.LOGGER.log(Level.FINEST, "Directory '" + dir + "' could not be synchronized.", e);
+		}
+	}
+
+	/**
+	 * Forces the content of the given file to the disk.
+	 *
+	 * @param file
+	 *            File to force.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	private static void force(Path file) throws IOException {
+		FileChannel fileChannel;
+		try {
+			fileChannel = FileChannel.open(file, StandardOpenOption.WRITE);
+		}
+
+		// read-only file (read access is enough for some platforms)
+		catch (AccessDeniedException e) {
+			fileChannel = FileChannel.open(file, StandardOpenOption.READ);
+		}
+		try (FileChannel c = fileChannel) {
+			c.force(true);
+		}
+	}
+
+	/**
+	 * Returns true if the given file has more than one link (i.e. it's shared with other application slots).
+	 *
+	 * @param file
+	 *            File to check.
+	 * @return True if the given file has more than one link.
+	 */
+	static boolean isLinked(Path file) {
+		try {
+			return (Integer) Files.getAttribute(file, "unix:nlink") > 1;
+		}
+		catch (UnsupportedOperationException | IllegalArgumentException | IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Returns true if the given verified download still exists with its recorded size.
+	 *
+	 * @param download
+	 *            Path and size of verified download.
+	 * @return True if the given verified download is valid.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	private static boolean isValid(String[] download) throws IOException {
+		Path path = AppContainer.TEMP_DIR.resolve(download[0]);
+		return Files.exists(path) && Long.toString(getSize(path)).equals(download[1]);
+	}
+
+	/**
+	 * Returns the size of the given file, or the total size of the files in the given directory.
+	 *
+	 * @param path
+	 *            File or directory.
+	 * @return The size.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	private static long getSize(Path path) throws IOException {
+		if (!Files.isDirectory(path))
+			return Files.size(path);
+		try (Stream<Path> files = Files.walk(path)) {
+			return files.filter(Files::isRegularFile).mapToLong(x -> x.toFile().length()).sum();
+		}
+	}
+
+	/**
+	 * Appends a record to the journal (without forcing it to the disk).
+	 *
+	 * @param fields
+	 *            Record type and fields.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	private static void append(String... fields) throws IOException {
+		if (channel == null) {
+			channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		}
+		ByteBuffer record = ByteBuffer.wrap(format(fields).getBytes(StandardCharsets.UTF_8));
+		while (record.hasRemaining()) {
+			channel.write(record);
+		}
+	}
+
+	/**
+	 * Formats a record line.
+	 *
+	 * @param fields
+	 *            Record type and fields.
+	 * @return The record line (with its CRC-32 and line separator).
+	 */
+	private static String format(String... fields) {
+		String content = String.join("\t", fields);
+		CRC32 crc = new CRC32();
+		crc.update(content.getBytes(StandardCharsets.UTF_8));
+		return Long.toHexString(crc.getValue()) + "\t" + content + "\n";
+	}
+
+	/**
+	 * Parses a record line.
+	 *
+	 * @param line
+	 *            Record line.
+	 * @return Record type and fields, or null if the record is invalid.
+	 */
+	private static String[] parse(String line) {
+		int tab = line.indexOf('\t');
+		if (tab < 0)
+			return null;
+		String content = line.substring(tab + 1);
+		CRC32 crc = new CRC32();
+		crc.update(content.getBytes(StandardCharsets.UTF_8));
+		if (!Long.toHexString(crc.getValue()).equals(line.substring(0, tab)))
+			return null;
+		return content.split("\t");
+	}
+
+	/**
+	 * Closes the journal file channel.
+	 *
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	private static void close() throws IOException {
+		if (channel != null) {
+			channel.close();
+			channel = null;
+		}
+	}
+
+	/**
+	 * Resets the pending update.
+	 */
+	private static void reset() {
+		baseSlot = null;
+		manifest = null;
+		stagedSlot = null;
+		downloads.clear();
+		extracted.clear();
+	}
+}
@@ -26,11 +26,13 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryNotEmptyException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -87,6 +89,9 @@ public class Utility {
 	/** Operating system name and architecture. */
 	public static final String MACOS = "macos", WINDOWS = "windows", LINUX = "linux", X86 = "x86", X64 = "x64";
 
+	/** Maximum length of manifest attribute names (in bytes). */
+	private static final int MAX_ATTRIBUTE_NAME_LENGTH = 70;
+
 	/**
 	 * Returns the operating system type.
 	 *
@@ -501,6 +506,61 @@ public class Utility {
 		alert.showAndWait();
 	}
 
+	/**
+	 * Returns the application resources of the current platform (see {@link ApplicationResource#isForPlatform(String, String)}).
+	 *
+	 * @param settings
+	 *            Application settings.
+	 * @param includeOnDemand
+	 *            True to include on-demand resources (see {@link ApplicationResource#isOnDemand()}).
+	 * @return The application resources of the current platform.
+	 */
+	@SuppressWarnings("unchecked")
+	public static ArrayList<ApplicationResource> getPlatformResources(Settings settings, boolean includeOnDemand) {
+		ArrayList<ApplicationResource> platformResources = new ArrayList<>();
+		ArrayList<ApplicationResource> resources = (ArrayList<ApplicationResource>) settings.getSetting(Settings.APP_RESOURCES);
+		if (resources != null) {
+			for (ApplicationResource resource : resources) {
+				if (resource.isForPlatform(AppContainer.OS_TYPE, AppContainer.OS_ARCH) && (includeOnDemand || !resource.isOnDemand())) {
+					platformResources.add(resource);
+				}
+			}
+		}
+		return platformResources;
+	}
+
+	/**
+	 * Returns the value of the given resource version attribute for the current platform. Version attributes can be qualified by platform (such as <code>Lib-Version-windows-x64</code> or <code>Lib-Version-windows</code>); the most specific attribute is returned, falling back to the unqualified attribute. Qualified names longer than the manifest limit of 70 bytes are not looked up (so, attribute names qualified by platform are limited to 58 characters).
+	 *
+	 * @param attributes
+	 *            Manifest attributes.
+	 * @param attributeName
+	 *            Unqualified attribute name.
+	 * @return The value of the given manifest attribute for the current platform, or null if attribute value couldn't be found.
+	 */
+	public static String getPlatformAttributeValue(Attributes attributes, String attributeName) {
+		String value = getAttributeValue(attributes, attributeName + "-" + AppContainer.OS_TYPE + "-" + AppContainer.OS_ARCH);
+		if (value == null) {
+			value = getAttributeValue(attributes, attributeName + "-" + AppContainer.OS_TYPE);
+		}
+		return value == null ? attributes.getValue(attributeName) : value;
+	}
+
+	/**
+	 * Returns the value of the given manifest attribute, or null if the attribute couldn't be found or its name exceeds the manifest limit.
+	 *
+	 * @param attributes
+	 *            Manifest attributes.
+	 * @param attributeName
+	 *            Attribute name.
+	 * @return The value of the given manifest attribute, or null if the attribute couldn't be found or its name exceeds the manifest limit.
+	 */
+	private static String getAttributeValue(Attributes attributes, String attributeName) {
+		if (attributeName.getBytes(StandardCharsets.UTF_8).length > MAX_ATTRIBUTE_NAME_LENGTH)
+			return null;
+		return attributes.getValue(attributeName);
+	}
+
 	/**
 	 * Returns the application resource versions from the jar file which are defined in the application settings, or null if resource versions couldn't be found.
 	 *
@@ -512,16 +572,15 @@ public class Utility {
 	 * @throws Exception
 	 *             If exception occurs during processing the jar file.
 	 */
-	@SuppressWarnings("unchecked")
 	public static HashMap<String, String> getResourceVersionsFromJar(Path jarFile, Settings settings) throws Exception {
 
 		// null jar file, doesn't exist or not a regular file
 		if (jarFile == null || !Files.exists(jarFile) || !Files.isRegularFile(jarFile))
 			return null;
 
-		// get application resources from settings
-		ArrayList<ApplicationResource> resources = (ArrayList<ApplicationResource>) settings.getSetting(Settings.APP_RESOURCES);
-		if (resources == null || resources.isEmpty())
+		// get application resources of current platform from settings
+		ArrayList<ApplicationResource> resources = getPlatformResources(settings, true);
+		if (resources.isEmpty())
 			return null;
 
 		// create mapping to store manifest attributes
@@ -542,7 +601,7 @@ public class Utility {
 				if (attributeName == null) {
 					continue;
 				}
-				String attributeValue = attributes.getValue(attributeName);
+				String attributeValue = getPlatformAttributeValue(attributes, attributeName);
 				if (attributeValue == null) {
 					continue;
 				}
@@ -565,16 +624,15 @@ public class Utility {
 	 * @throws Exception
 	 *             If exception occurs during processing the manifest file.
 	 */
-	@SuppressWarnings("unchecked")
 	public static HashMap<String, String> getResourceVersionsFromManifest(Path manifestFile, Settings settings) throws Exception {
 
 		// null manifest file, doesn't exist or not a regular file
 		if (manifestFile == null || !Files.exists(manifestFile) || !Files.isRegularFile(manifestFile))
 			return null;
 
-		// get application resources from settings
-		ArrayList<ApplicationResource> resources = (ArrayList<ApplicationResource>) settings.getSetting(Settings.APP_RESOURCES);
-		if (resources == null || resources.isEmpty())
+		// get application resources of current platform from settings
+		ArrayList<ApplicationResource> resources = getPlatformResources(settings, true);
+		if (resources.isEmpty())
 			return null;
 
 		// create mapping to store manifest attributes
@@ -595,7 +653,7 @@ public class Utility {
 				if (attributeName == null) {
 					continue;
 				}
-				String attributeValue = attributes.getValue(attributeName);
+				String attributeValue = getPlatformAttributeValue(attributes, attributeName);
 				if (attributeValue == null) {
 					continue;
 				}
@@ -834,6 +892,113 @@ public class Utility {
 		}
 	}
 
+	/**
+	 * Opens stream to file on web server. The download progress is reported to the given listener while the stream is read.
+	 *
+	 * @param sourceURL
+	 *            URL of the source file in the webserver.
+	 * @param listener
+	 *            Download listener.
+	 * @return Stream to file. Caller must close it.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public static InputStream openStream(URL sourceURL, DownloadListener listener) throws Exception {
+		return Channels.newInputStream(new RBCWrapper(Channels.newChannel(sourceURL.openStream()), getURLContentLength(sourceURL), listener));
+	}
+
+	/**
+	 * Returns the location of a file relative to the given remote location (i.e. in the same remote directory or its sub-directories).
+	 *
+	 * @param settings
+	 *            Application settings.
+	 * @param location
+	 *            Remote location (URL for web hosting, file path for SFTP hosting).
+	 * @param relativePath
+	 *            Path relative to the directory of the remote location (with '/' separators).
+	 * @return The remote location of the file.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public static String getSiblingLocation(Settings settings, String location, String relativePath) throws Exception {
+
+		// web hosting
+		if (settings.getSetting(Settings.HOSTING_TYPE).equals(Settings.WEB_HOSTING))
+			return new URL(new URL(location), new URI(null, null, relativePath, null).toASCIIString()).toString();
+
+		// SFTP hosting
+		return location.substring(0, location.lastIndexOf('/') + 1) + relativePath;
+	}
+
+	/**
+	 * Returns the SHA-256 hash of the given file as lower case hexadecimal string.
+	 *
+	 * @param file
+	 *            Path to file.
+	 * @return The SHA-256 hash of the given file.
+	 * @throws Exception
+	 *             If exception occurs during process.
+	 */
+	public static String getSHA256(Path file) throws Exception {
+		MessageDigest digest = MessageDigest.getInstance("SHA-256");
+		try (InputStream inputStream = Files.newInputStream(file)) {
+			byte[] buffer = new byte[65536];
+			int len;
+			while ((len = inputStream.read(buffer)) != -1) {
+				digest.update(buffer, 0, len);
+			}
+		}
+		return toHexString(digest.digest());
+	}
+
+	/**
+	 * Returns lower case hexadecimal string representation of the given bytes.
+	 *
+	 * @param bytes
+	 *            Bytes to convert.
+	 * @return Lower case hexadecimal string representation of the given bytes.
+	 */
+	public static String toHexString(byte[] bytes) {
+		char[] digits = "0123456789abcdef".toCharArray();
+		char[] chars = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			chars[2 * i] = digits[(bytes[i] >> 4) & 0xf];
+			chars[2 * i + 1] = digits[bytes[i] & 0xf];
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * Opens an input stream to the given byte range of a remote file. HTTP range requests are used for files on web server. Note that, the stream may return more bytes than requested for SFTP hosting; callers should read only the requested length.
+	 *
+	 * @param location
+	 *            Remote location of file (URL for web hosting, file path for SFTP hosting).
+	 * @param offset
+	 *            Offset of the first byte.
+	 * @param length
+	 *            Number of bytes.
+	 * @param connection
+	 *            SFTP connection, or null if the file is hosted on web server.
+	 * @return Input stream to the given byte range.
+	 * @throws Exception
+	 *             If exception occurs during process, or the web server doesn't support range requests.
+	 */
+	public static InputStream openRange(String location, long offset, long length, SFTPConnection connection) throws Exception {
+
+		// SFTP hosting
+		if (connection != null)
+			return connection.getSftpChannel().get(location, null, offset);
+
+		// web hosting
+		HttpURLConnection urlConnection = (HttpURLConnection) new URL(location).openConnection();
+		urlConnection.setRequestProperty("Range", "bytes=" + offset + "-" + (offset + length - 1));
+		if (urlConnection.getResponseCode() != HttpURLConnection.HTTP_PARTIAL) {
+			urlConnection.disconnect();
+			throw new IOException("Web server doesn't support range requests for '" + location + "'.");
+		}
+		return urlConnection.getInputStream();
+	}
+
 	/**
 	 * Restarts App Container.
 	 *
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package container.utility;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import container.utility.ZipExtractor.ExtractionListener;
+
+/**
+ * Class for ZIP archive format. Archive files are extracted in parallel with {@link ZipExtractor}; archive streams are extracted sequentially from their local headers.
+ *
+ * @author Murat Artim
+ * @date 18 Oct 2026
+ * @time 22:40:25
+ */
+public class ZipArchiveFormat implements ArchiveFormat {
+
+	/** Format name. */
+	public static final String NAME = "zip";
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public String[] getExtensions() {
+		return new String[] { ".zip" };
+	}
+
+	@Override
+	public void extract(InputStream input, Path outputDir, ExtractionListener listener) throws IOException {
+		Path root = outputDir.toAbsolutePath().normalize();
+		extract(input, (entryName, directory) -> ArchiveFormats.resolveEntry(root, entryName), listener);
+	}
+
+	@Override
+	public void extract(InputStream input, EntryTarget target, ExtractionListener listener) throws IOException {
+
+		// create zip stream (not closed, since the input stream is not closed)
+		ZipInputStream zis = new ZipInputStream(input);
+
+		// loop over entries
+		int processed = 0;
+		ZipEntry ze;
+		while ((ze = zis.getNextEntry()) != null) {
+
+			// skip entry
+			Path file = target.getTarget(ze.getName(), ze.isDirectory());
+			if (file == null)
+				continue;
+
+			// create directory or write file
+			if (ze.isDirectory()) {
+				Files.createDirectories(file);
+			}
+			else {
+				Files.createDirectories(file.getParent());
+				Files.copy(zis, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+
+			// progress info
+			processed++;
+			if (listener != null) {
+				listener.entryExtracted(ze.getName(), processed, -1);
+			}
+		}
+	}
+
+	@Override
+	public void extract(Path archive, Path outputDir, ExtractionListener listener) throws IOException {
+		new ZipExtractor(outputDir, listener).extract(Collections.singletonList(archive));
+	}
+}
@@ -0,0 +1,462 @@
+/*
+ * Copyright 2018 Murat Artim (muratartim@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package container.utility;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Class for parallel ZIP extraction. Archives are extracted concurrently on a fork/join pool, and the entries of large archives are split into ranges extracted by separate workers. Each worker opens its own {@link ZipFile} (and thus uses its own inflaters), so that entries are inflated on all cores. Directories are created only once, even if they are shared by entries extracted by different workers.
+ *
+ * @author Murat Artim
+ * @date 18 Oct 2026
+ * @time 22:29:10
+ */
+public class ZipExtractor {
+
+	/** Buffer size for extracting zipped files. */
+	private static final int BUFSIZE = 256 * 1024;
+
+	/** End of central directory and central directory header signatures. */
+	private static final int END_OF_CENTRAL_DIR = 0x06054b50, CENTRAL_DIR_HEADER = 0x02014b50;
+
+	/** Extraction buffers of worker threads (reused for all entries extracted by a worker). */
+	private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[BUFSIZE]);
+
+	/** Maximum number of entries extracted by a single worker (larger ranges are split). */
+	private static final int MAX_RANGE = 256;
+
+	/** Output directory. */
+	private final Path outputDir;
+
+	/** Listener of extraction progress (can be null). */
+	private final ExtractionListener listener;
+
+	/** Index of installed files (can be null). */
+	private final InstalledFileIndex index;
+
+	/** Directories created during extraction. */
+	private final ConcurrentHashMap<Path, Boolean> createdDirs = new ConcurrentHashMap<>();
+
+	/** Number of processed entries. */
+	private final AtomicInteger processed = new AtomicInteger();
+
+	/** Total number of entries. */
+	private int total = 0;
+
+	/**
+	 * Interface for extraction listener.
+	 *
+	 * @author Murat Artim
+	 * @date 18 Oct 2026
+	 * @time 22:29:43
+	 */
+	public interface ExtractionListener {
+
+		/**
+		 * Called (from worker threads) after each entry is extracted.
+		 *
+		 * @param entryName
+		 *            Name of extracted entry.
+		 * @param processed
+		 *            Number of processed entries (of all archives).
+		 * @param total
+		 *            Total number of entries (of all archives).
+		 */
+		void entryExtracted(String entryName, int processed, int total);
+	}
+
+	/**
+	 * Creates ZIP extractor.
+	 *
+	 * @param outputDir
+	 *            Output directory.
+	 * @param listener
+	 *            Listener of extraction progress. Can be null.
+	 */
+	public ZipExtractor(Path outputDir, ExtractionListener listener) {
+		this(outputDir, listener, null);
+	}
+
+	/**
+	 * Creates ZIP extractor, which skips the entries installed unchanged according to the given index. Extracted files are recorded to the index, and files of the archives which are no longer contained in them are deleted.
+	 *
+	 * @param outputDir
+	 *            Output directory.
+	 * @param listener
+	 *            Listener of extraction progress. Can be null.
+	 * @param index
+	 *            Index of installed files in the output directory. Can be null.
+	 */
+	public ZipExtractor(Path outputDir, ExtractionListener listener, InstalledFileIndex index) {
+		this.outputDir = outputDir.toAbsolutePath().normalize();
+		this.listener = listener;
+		this.index = index;
+	}
+
+	/**
+	 * Extracts all files of the given archives into the output directory.
+	 *
+	 * @param archives
+	 *            Paths to ZIP archives.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	public void extract(List<Path> archives) throws IOException {
+
+		// read entry names of archives (in the order of their data, so that workers read sequentially)
+		ArrayList<List<String>> entries = new ArrayList<>();
+		for (Path archive : archives) {
+			ArrayList<String> names = new ArrayList<>();
+			try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+				Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+				while (zipEntries.hasMoreElements()) {
+					names.add(zipEntries.nextElement().getName());
+				}
+			}
+			sortByOffset(archive, names);
+			entries.add(names);
+			total += names.size();
+		}
+
+		// create tasks for archives
+		ArrayList<ExtractRange> tasks = new ArrayList<>();
+		for (int i = 0; i < archives.size(); i++) {
+			tasks.add(new ExtractRange(archives.get(i), entries.get(i), 0, entries.get(i).size()));
+		}
+
+		// extract archives in parallel
+		ForkJoinPool pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors()));
+		try {
+			pool.invoke(new RecursiveAction() {
+
+				/** Serial id. */
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					invokeAll(tasks);
+				}
+			});
+		}
+
+		// worker failed
+		catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		// shutdown pool
+		finally {
+			pool.shutdown();
+		}
+
+		// delete files which are no longer contained in archives
+		if (index != null) {
+			for (int i = 0; i < archives.size(); i++) {
+				for (String path : index.removeStale(archives.get(i).getFileName().toString(), new HashSet<>(entries.get(i)))) {
+					Files.deleteIfExists(outputDir.resolve(path));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Extracts the given entries from the given ZIP file.
+	 *
+	 * @param zipFile
+	 *            ZIP file.
+	 * @param archiveName
+	 *            Archive name.
+	 * @param names
+	 *            Entry names.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	private void extractEntries(ZipFile zipFile, String archiveName, List<String> names) throws IOException {
+
+		// get buffer of worker
+		byte[] buffer = BUFFERS.get();
+
+		// loop over entries
+		for (String name : names) {
+
+			// get entry
+			ZipEntry ze = zipFile.getEntry(name);
+
+			// not directory
+			if (ze != null && !ze.isDirectory()) {
+
+				// create output file (entries are not allowed to escape output directory)
+				Path file = outputDir.resolve(ze.getName()).normalize();
+				if (!file.startsWith(outputDir))
+					throw new IOException("Invalid ZIP entry '" + ze.getName() + "'.");
+
+				// skip unchanged file
+				if (index != null && ze.getCrc() != -1 && ze.getSize() != -1 && index.isUnchanged(name, ze.getCrc(), ze.getSize())) {
+					entryProcessed(name);
+					continue;
+				}
+
+				// create all necessary directories (once)
+				createDirectories(file.getParent());
+
+				// write file
+				writeEntry(zipFile, ze, file, buffer);
+
+				// record file
+				if (index != null && ze.getCrc() != -1 && ze.getSize() != -1) {
+					index.put(archiveName, name, ze.getCrc(), ze.getSize());
+				}
+			}
+
+			// progress info
+			entryProcessed(name);
+		}
+	}
+
+	/**
+	 * Counts the given processed entry and notifies the listener (if any).
+	 *
+	 * @param name
+	 *            Entry name.
+	 */
+	private void entryProcessed(String name) {
+		int count = processed.incrementAndGet();
+		if (listener != null) {
+			listener.entryExtracted(name, count, total);
+		}
+	}
+
+	/**
+	 * Writes the given entry to the given file. The file is written through a file channel in large blocks.
+	 *
+	 * @param zipFile
+	 *            ZIP file.
+	 * @param ze
+	 *            Entry to write.
+	 * @param file
+	 *            Output file.
+	 * @param buffer
+	 *            Buffer to use.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	private static void writeEntry(ZipFile zipFile, ZipEntry ze, Path file, byte[] buffer) throws IOException {
+
+		// delete existing file (it may be linked to files of other application slots)
+		Files.deleteIfExists(file);
+
+		// write file
+		try (InputStream zis = zipFile.getInputStream(ze); FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			ByteBuffer block = ByteBuffer.wrap(buffer);
+			int len;
+			while ((len = readBlock(zis, buffer)) > 0) {
+				block.clear().limit(len);
+				while (block.hasRemaining()) {
+					channel.write(block);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads from the given input stream until the given buffer is full, or the end of stream is reached. Inflater streams return few kilobytes per read, so this allows writing large blocks.
+	 *
+	 * @param inputStream
+	 *            Input stream.
+	 * @param buffer
+	 *            Buffer to fill.
+	 * @return Number of bytes read, or 0 if the end of stream is reached.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	private static int readBlock(InputStream inputStream, byte[] buffer) throws IOException {
+		int count = 0, len;
+		while (count < buffer.length && (len = inputStream.read(buffer, count, buffer.length - count)) != -1) {
+			count += len;
+		}
+		return count;
+	}
+
+	/**
+	 * Sorts the given entry names of the given archive by the offsets of their local headers (read from the central directory). Names are left in central directory order if the offsets cannot be read (such as for ZIP64 archives).
+	 *
+	 * @param archive
+	 *            Path to archive.
+	 * @param names
+	 *            Entry names to sort.
+	 */
+	private static void sortByOffset(Path archive, List<String> names) {
+
+		try (RandomAccessFile file = new RandomAccessFile(archive.toFile(), "r")) {
+
+			// find end of central directory record
+			long length = file.length();
+			int tailLength = (int) Math.min(length, 0xffff + 22);
+			ByteBuffer tail = ByteBuffer.allocate(tailLength).order(ByteOrder.LITTLE_ENDIAN);
+			file.seek(length - tailLength);
+			file.readFully(tail.array());
+			int eocd = -1;
+			for (int i = tailLength - 22; i >= 0; i--) {
+				if (tail.getInt(i) == END_OF_CENTRAL_DIR) {
+					eocd = i;
+					break;
+				}
+			}
+			if (eocd == -1)
+				return;
+
+			// read central directory location
+			int entryCount = tail.getShort(eocd + 10) & 0xffff;
+			long cdSize = tail.getInt(eocd + 12) & 0xffffffffL;
+			long cdOffset = tail.getInt(eocd + 16) & 0xffffffffL;
+			if (entryCount == 0xffff || cdOffset == 0xffffffffL)
+				return;
+
+			// read central directory
+			ByteBuffer cd = ByteBuffer.allocate((int) cdSize).order(ByteOrder.LITTLE_ENDIAN);
+			file.seek(cdOffset);
+			file.readFully(cd.array());
+
+			// read local header offsets
+			HashMap<String, Long> offsets = new HashMap<>();
+			int position = 0;
+			for (int i = 0; i < entryCount && position + 46 <= cd.limit() && cd.getInt(position) == CENTRAL_DIR_HEADER; i++) {
+				int nameLength = cd.getShort(position + 28) & 0xffff;
+				int extraLength = cd.getShort(position + 30) & 0xffff;
+				int commentLength = cd.getShort(position + 32) & 0xffff;
+				long offset = cd.getInt(position + 42) & 0xffffffffL;
+				offsets.putIfAbsent(new String(cd.array(), position + 46, nameLength, StandardCharsets.UTF_8), offset);
+				position += 46 + nameLength + extraLength + commentLength;
+			}
+
+			// sort names
+			names.sort(Comparator.comparingLong(name -> offsets.getOrDefault(name, Long.MAX_VALUE)));
+		}
+
+		// offsets couldn't be read (keep central directory order)
+		catch (Exception e) {
+			return;
+		}
+	}
+
+	/**
+	 * Creates the given directory (and its parents) if it was not created yet during this extraction. Concurrent calls for the same directory wait until the directory is created.
+	 *
+	 * @param dir
+	 *            Directory to create.
+	 * @throws IOException
+	 *             If exception occurs during process.
+	 */
+	private void createDirectories(Path dir) throws IOException {
+		try {
+			createdDirs.computeIfAbsent(dir, x -> {
+				try {
+					Files.createDirectories(x);
+					return Boolean.TRUE;
+				}
+				catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		}
+		catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Inner class for extracting a range of entries of an archive. Ranges larger than {@link ZipExtractor#MAX_RANGE} are split into halves.
+	 *
+	 * @author Murat Artim
+	 * @date 18 Oct 2026
+	 * @time 22:30:36
+	 */
+	private class ExtractRange extends RecursiveAction {
+
+		/** Serial id. */
+		private static final long serialVersionUID = 1L;
+
+		/** Path to archive. */
+		private final Path archive;
+
+		/** Entry names of archive. */
+		private final List<String> names;
+
+		/** Range of entries to extract. */
+		private final int from, to;
+
+		/**
+		 * Creates extract range task.
+		 *
+		 * @param archive
+		 *            Path to archive.
+		 * @param names
+		 *            Entry names of archive.
+		 * @param from
+		 *            Index of first entry (inclusive).
+		 * @param to
+		 *            Index of last entry (exclusive).
+		 */
+		public ExtractRange(Path archive, List<String> names, int from, int to) {
+			this.archive = archive;
+			this.names = names;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+
+			// split range
+			if (to - from > MAX_RANGE) {
+				int middle = from + (to - from) / 2;
+				invokeAll(new ExtractRange(archive, names, from, middle), new ExtractRange(archive, names, middle, to));
+				return;
+			}
+
+			// extract range (with own ZIP file handle)
+			try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+				extractEntries(zipFile, archive.getFileName().toString(), Collections.unmodifiableList(names.subList(from, to)));
+			}
+			catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+}